@@ -1,7 +1,9 @@
 import axios from 'axios'
 
+const baseURL = import.meta.env.VITE_API_URL || '/api'
+
 const api = axios.create({
-    baseURL: import.meta.env.VITE_API_URL || '/api',
+    baseURL,
     headers: { 'Content-Type': 'application/json' }
 })
 
@@ -12,17 +14,62 @@ api.interceptors.request.use(config => {
     return config
 })
 
-// Handle 401 - redirect to login
+export const storeSession = (data) => {
+    localStorage.setItem('token', data.token)
+    localStorage.setItem('refreshToken', data.refreshToken)
+    localStorage.setItem('user', JSON.stringify({ ...data, token: undefined, refreshToken: undefined }))
+}
+
+export const clearSession = () => {
+    localStorage.removeItem('token')
+    localStorage.removeItem('refreshToken')
+    localStorage.removeItem('user')
+}
+
+// One refresh at a time: concurrent 401s wait for the same rotation
+let refreshing = null
+
+export const refreshSession = () => {
+    if (!refreshing) {
+        const refreshToken = localStorage.getItem('refreshToken')
+        refreshing = axios.post(`${baseURL}/auth/refresh`, { refreshToken })
+            .then(({ data }) => {
+                storeSession(data)
+                return data.token
+            })
+            .catch(error => {
+                // Another tab rotated the token first and already stored the new pair
+                if (localStorage.getItem('refreshToken') !== refreshToken) return localStorage.getItem('token')
+                throw error
+            })
+            .finally(() => { refreshing = null })
+    }
+    return refreshing
+}
+
+const NO_REFRESH = ['/auth/login', '/auth/register', '/auth/refresh', '/auth/logout']
+
+// Handle 401 - refresh the access token once and retry, else redirect to login
 api.interceptors.response.use(
     response => response,
-    error => {
-        if (error.response?.status === 401 && error.config?.url !== '/auth/login') {
-            localStorage.removeItem('token')
-            localStorage.removeItem('user')
+    async error => {
+        const config = error.config
+        if (error.response?.status === 401 && config && !NO_REFRESH.includes(config.url)) {
+            if (!config._retried && localStorage.getItem('refreshToken')) {
+                config._retried = true
+                try {
+                    const token = await refreshSession()
+                    config.headers.Authorization = `Bearer ${token}`
+                    return api(config)
+                } catch {
+                    // fall through to the login page
+                }
+            }
+            clearSession()
             window.location.href = '/login'
         }
         return Promise.reject(error)
     }
 )
 
-export default api
\ No newline at end of file
+export default api
@@ -4,6 +4,7 @@ import api from './axios'
 export const authAPI = {
     login:          (data) => api.post('/auth/login', data),
     register:       (data) => api.post('/auth/register', data),
+    logout:         (data, token) => api.post('/auth/logout', data, { headers: { Authorization: `Bearer ${token}` } }),
     forgotPassword: (data) => api.post('/auth/forgot-password', data),
     resetPassword:  (data) => api.post('/auth/reset-password', data),
 }
@@ -18,6 +19,7 @@ export const userAPI = {
     delete:           (id)       => api.delete(`/users/${id}`),
     changeRole:       (id, role) => api.patch(`/users/${id}/role?role=${role}`),
     verify:           (id)       => api.patch(`/users/${id}/verify`),
+    setActive:        (id, active) => api.patch(`/users/${id}/active?active=${active}`),
     getPublicProfile: (id)       => api.get(`/users/${id}/public`),
 }
 
@@ -68,6 +70,10 @@ export const reviewAPI = {
 
 // ─── Chat ────────────────────────────────────────────────────────────────────
 export const chatAPI = {
-    getMessages: (sId, rId) => api.get(`/chat/messages/${sId}/${rId}`),
+    getMessages: (sId, rId, params) => api.get(`/chat/messages/${sId}/${rId}`, { params }),
     getRooms:    (userId)    => api.get(`/chat/rooms/${userId}`),
+    getInbox:    (params)    => api.get('/chat/inbox', { params }),
+    sync:        (data)      => api.post('/chat/sync', data),
+    getPresence: ()          => api.get('/chat/presence'),
+    search:      (params)    => api.get('/chat/search', { params }),
 }
\ No newline at end of file
@@ -1,4 +1,5 @@
 import { X, MapPin, BedDouble, Bath, Users, DollarSign, Star, Calendar, User, Building2, CheckCircle, XCircle } from 'lucide-react'
+import { imageVariantUrl } from '../utils/formatters'
 
 const InfoRow = ({ label, value }) => (
     <div className="flex justify-between items-center py-2 border-b border-gray-50 last:border-0">
@@ -7,8 +8,8 @@ const InfoRow = ({ label, value }) => (
     </div>
 )
 
-const ImageGallery = ({ images, mainImageUrl }) => {
-    if (!images?.length && !mainImageUrl) {
+const ImageGallery = ({ images, imageUrls, mainImageUrl }) => {
+    if (!images?.length && !imageUrls?.length && !mainImageUrl) {
         return (
             <div className="w-full h-52 bg-gray-100 rounded-xl flex items-center justify-center">
                 <Building2 size={32} className="text-gray-300" />
@@ -16,23 +17,23 @@ const ImageGallery = ({ images, mainImageUrl }) => {
         )
     }
 
-    const all = images?.length ? images : [mainImageUrl]
+    const all = images?.length ? images : (imageUrls?.length ? imageUrls : [mainImageUrl]).map(url => ({ original: url }))
 
     return (
         <div className="grid grid-cols-3 gap-2">
             <div className="col-span-2">
                 <img
-                    src={all[0]}
+                    src={imageVariantUrl(all[0], 'card', all[0].original)}
                     alt="main"
                     className="w-full h-48 object-cover rounded-xl"
                     onError={e => { e.target.style.display = 'none' }}
                 />
             </div>
             <div className="flex flex-col gap-2">
-                {all.slice(1, 3).map((url, i) => (
+                {all.slice(1, 3).map((image, i) => (
                     <img
                         key={i}
-                        src={url}
+                        src={imageVariantUrl(image, 'thumbnail', image.original)}
                         alt={`img-${i}`}
                         className="w-full h-[calc(50%-4px)] object-cover rounded-xl flex-1"
                         style={{ height: '92px' }}
@@ -95,7 +96,7 @@ export default function PropertyDetailModal({ property, onClose, onApprove, onRe
                 <div className="p-5 space-y-5">
 
                     {/* Images */}
-                    <ImageGallery images={property.imageUrls} mainImageUrl={property.mainImageUrl} />
+                    <ImageGallery images={property.images} imageUrls={property.imageUrls} mainImageUrl={property.mainImageUrl} />
 
                     {/* Price + Rating */}
                     <div className="grid grid-cols-2 gap-3">
@@ -3,6 +3,7 @@ import { Badge } from '../ui/Badge'
 import { useNavigate } from 'react-router-dom'
 import { propertyAPI } from '../../api/services'
 import toast from 'react-hot-toast'
+import { imageVariantUrl } from '../../utils/formatters'
 
 export const PropertyManagementTab = ({ 
     properties, 
@@ -119,7 +120,7 @@ export const PropertyManagementTab = ({
                                 <td className={`${tdCls} font-medium`}>
                                     <div className="flex items-center gap-2">
                                         {p.mainImageUrl ? (
-                                            <img src={p.mainImageUrl} alt={p.title} className="w-8 h-8 rounded-lg object-cover flex-shrink-0" onError={e => { e.target.style.display = 'none' }} />
+                                            <img src={imageVariantUrl(p.mainImage, 'thumbnail', p.mainImageUrl)} alt={p.title} className="w-8 h-8 rounded-lg object-cover flex-shrink-0" onError={e => { e.target.style.display = 'none' }} />
                                         ) : (
                                             <div className="w-8 h-8 rounded-lg bg-gray-100 flex-shrink-0" />
                                         )}
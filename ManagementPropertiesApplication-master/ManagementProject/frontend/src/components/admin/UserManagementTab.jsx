@@ -3,7 +3,7 @@ import { Badge } from '../ui/Badge'
 import { Avatar } from '../ui/Avatar'
 import { useNavigate } from 'react-router-dom'
 
-export const UserManagementTab = ({ users, onDeleteUser, onRoleChange, onToggleVerify, onViewUser }) => {
+export const UserManagementTab = ({ users, onDeleteUser, onRoleChange, onToggleVerify, onToggleActive, onViewUser }) => {
     const navigate = useNavigate()
     const thCls = 'text-left px-4 py-2.5 text-xs font-medium text-muted bg-surface-hover border-b border-gray-100'
     const tdCls = 'px-4 py-3 text-sm text-title'
@@ -48,7 +48,14 @@ export const UserManagementTab = ({ users, onDeleteUser, onRoleChange, onToggleV
                                     ))}
                                 </select>
                             </td>
-                            <td className={tdCls}><Badge status={u.active ? 'active' : 'inactive'} /></td>
+                            <td className={tdCls}>
+                                <button
+                                    onClick={() => onToggleActive(u.id, !u.active)}
+                                    title={u.active ? 'Click to deactivate' : 'Click to activate'}
+                                >
+                                    <Badge status={u.active ? 'active' : 'inactive'} />
+                                </button>
+                            </td>
                             <td className={tdCls}>
                                 <div className="flex items-center gap-1">
                                     {u.role === 'ROLE_AGENT' ? (
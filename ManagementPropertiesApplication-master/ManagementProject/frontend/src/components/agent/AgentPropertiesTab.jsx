@@ -1,6 +1,7 @@
 import { Info, Upload, ToggleLeft, ToggleRight, Pencil, Trash2, Plus } from 'lucide-react'
 import { Badge } from '../ui/Badge'
 import { useNavigate } from 'react-router-dom'
+import { imageVariantUrl } from '../../utils/formatters'
 
 export const AgentPropertiesTab = ({ 
     properties, 
@@ -35,9 +36,8 @@ export const AgentPropertiesTab = ({
     return (
         <div className="space-y-4">
             {properties.map(p => {
-                const imageUrl = p.mainImageUrl
-                    ? p.mainImageUrl.startsWith('http') ? p.mainImageUrl : `http://localhost:8080${p.mainImageUrl}`
-                    : 'https://via.placeholder.com/80x80?text=No+Image'
+                const imageUrl = imageVariantUrl(p.mainImage, 'thumbnail', p.mainImageUrl,
+                    'https://via.placeholder.com/80x80?text=No+Image')
 
                 return (
                     <div key={p.id} className="card flex items-center gap-4">
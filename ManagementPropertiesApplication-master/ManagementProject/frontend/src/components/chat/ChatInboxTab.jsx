@@ -2,21 +2,25 @@ import React from 'react'
 import { useChat } from '../../context/ChatContext'
 import { MessageSquare, User, Clock } from 'lucide-react'
 import { useAuth } from '../../context/AuthContext'
+import { ChatSearch } from './ChatSearch'
 
 export const ChatInboxTab = () => {
-    const { rooms, setActiveChat, loadHistory } = useChat()
+    const { rooms, setActiveChat, loadHistory, hasMoreRooms, loadMoreRooms, isOnline } = useChat()
     const { user } = useAuth()
 
     const handleRoomClick = (room) => {
-        const otherUserId = room.senderId === user.userId ? room.recipientId : room.senderId
-        const otherUserName = room.senderId === user.userId ? room.recipientName : room.senderName
-
         setActiveChat({
             roomId: room.chatId,
-            recipientId: otherUserId,
-            recipientName: otherUserName
+            recipientId: room.counterpartId,
+            recipientName: room.counterpartName
         })
-        loadHistory(user.userId, otherUserId)
+        loadHistory(user.userId, room.counterpartId)
+    }
+
+    // Search results only carry ids; the conversation itself is in the inbox
+    const openCounterpart = (counterpartId) => {
+        const room = rooms.find(r => r.counterpartId === counterpartId)
+        if (room) handleRoomClick(room)
     }
 
     if (rooms.length === 0) {
@@ -35,36 +39,53 @@ export const ChatInboxTab = () => {
 
     return (
         <div className="space-y-4">
-            <div className="flex flex-col gap-3">
-                {rooms.map(room => {
-                    const isSender = room.senderId === user.userId
-                    const otherUserName = isSender ? room.recipientName : room.senderName
-                    
-                    return (
-                        <div 
-                            key={room.id}
-                            onClick={() => handleRoomClick(room)}
-                            className="bg-surface p-6 rounded-[24px] border border-border-warm hover:shadow-lg hover:shadow-brand-500/5 transition-all cursor-pointer group flex items-center gap-4"
-                        >
-                            <div className="w-14 h-14 bg-brand-50 rounded-full flex items-center justify-center text-brand group-hover:bg-brand group-hover:text-white transition-colors">
-                                <User size={24} />
-                            </div>
-                            <div className="flex-1">
-                                <h4 className="text-lg font-bold text-title group-hover:text-brand transition-colors">
-                                    {otherUserName}
-                                </h4>
-                                <div className="flex items-center gap-2 mt-1 text-xs text-muted">
-                                    <Clock size={12} />
-                                    <span>Active conversation</span>
+            <ChatSearch userId={user.userId} onOpen={openCounterpart}>
+                <div className="flex flex-col gap-3">
+                    {rooms.map(room => {
+                        const preview = room.lastMessage
+                            ? `${room.lastMessageSenderId === user.userId ? 'You: ' : ''}${room.lastMessage}`
+                            : 'Active conversation'
+
+                        return (
+                            <div 
+                                key={room.chatId}
+                                onClick={() => handleRoomClick(room)}
+                                className="bg-surface p-6 rounded-[24px] border border-border-warm hover:shadow-lg hover:shadow-brand-500/5 transition-all cursor-pointer group flex items-center gap-4"
+                            >
+                                <div className="relative w-14 h-14 bg-brand-50 rounded-full flex items-center justify-center text-brand group-hover:bg-brand group-hover:text-white transition-colors">
+                                    <User size={24} />
+                                    {isOnline(room.counterpartId) && (
+                                        <span className="absolute bottom-0.5 right-0.5 w-3.5 h-3.5 rounded-full bg-green-500 border-2 border-surface" />
+                                    )}
                                 </div>
+                                <div className="flex-1 min-w-0">
+                                    <h4 className="text-lg font-bold text-title group-hover:text-brand transition-colors">
+                                        {room.counterpartName}
+                                    </h4>
+                                    <div className="flex items-center gap-2 mt-1 text-xs text-muted">
+                                        <Clock size={12} />
+                                        <span className="truncate">{preview}</span>
+                                    </div>
+                                </div>
+                                {room.unreadCount > 0 ? (
+                                    <div className="min-w-8 h-8 px-2 rounded-full bg-brand text-white text-xs font-bold flex items-center justify-center">
+                                        {room.unreadCount}
+                                    </div>
+                                ) : (
+                                    <div className="w-8 h-8 rounded-full bg-surface-hover flex items-center justify-center text-muted group-hover:text-brand">
+                                        <MessageSquare size={16} />
+                                    </div>
+                                )}
                             </div>
-                            <div className="w-8 h-8 rounded-full bg-surface-hover flex items-center justify-center text-muted group-hover:text-brand">
-                                <MessageSquare size={16} />
-                            </div>
-                        </div>
-                    )
-                })}
-            </div>
+                        )
+                    })}
+                    {hasMoreRooms && (
+                        <button onClick={loadMoreRooms} className="text-xs font-bold text-brand hover:underline">
+                            Show older conversations
+                        </button>
+                    )}
+                </div>
+            </ChatSearch>
         </div>
     )
 }
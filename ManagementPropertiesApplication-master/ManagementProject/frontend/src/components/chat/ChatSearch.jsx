@@ -0,0 +1,101 @@
+import { useState, useEffect } from 'react'
+import { Search, X } from 'lucide-react'
+import { chatAPI } from '../../api/services'
+
+const SEARCH_PAGE = 20
+
+// The server wraps matches in control characters; render them as <mark> without touching HTML
+const Snippet = ({ result }) => {
+    const parts = result.snippet.split(result.highlightStart)
+    return (
+        <span>
+            {parts.map((part, i) => {
+                if (i === 0) return <span key={i}>{part}</span>
+                const [match, rest] = part.split(result.highlightEnd)
+                return (
+                    <span key={i}>
+                        <mark className="bg-brand-50 text-brand font-semibold rounded px-0.5">{match}</mark>
+                        {rest}
+                    </span>
+                )
+            })}
+        </span>
+    )
+}
+
+export const ChatSearch = ({ userId, onOpen, children }) => {
+    const [query, setQuery] = useState('')
+    const [results, setResults] = useState([])
+    const [page, setPage] = useState({ page: 0, last: true })
+    const [loading, setLoading] = useState(false)
+
+    const search = async (q, pageNo) => {
+        setLoading(true)
+        try {
+            const { data } = await chatAPI.search({ q, page: pageNo, size: SEARCH_PAGE })
+            setResults(prev => pageNo === 0 ? data.content : [...prev, ...data.content])
+            setPage({ page: pageNo, last: data.last })
+        } catch (err) {
+            console.error("Search failed", err)
+        } finally {
+            setLoading(false)
+        }
+    }
+
+    // Debounced, so typing an address does not fire a request per keystroke
+    useEffect(() => {
+        const q = query.trim()
+        if (!q) {
+            setResults([])
+            return
+        }
+        const timer = setTimeout(() => search(q, 0), 300)
+        return () => clearTimeout(timer)
+    }, [query])
+
+    return (
+        <div className="space-y-3">
+            <div className="relative">
+                <Search size={16} className="absolute left-4 top-1/2 -translate-y-1/2 text-muted" />
+                <input
+                    type="text"
+                    value={query}
+                    onChange={e => setQuery(e.target.value)}
+                    placeholder="Search messages — addresses, dates, prices"
+                    className="w-full bg-surface border border-border-warm rounded-full pl-10 pr-10 py-2.5 text-sm text-title focus:outline-none focus:ring-2 focus:ring-brand/30"
+                />
+                {query && (
+                    <button onClick={() => setQuery('')} className="absolute right-3 top-1/2 -translate-y-1/2 text-muted hover:text-brand">
+                        <X size={16} />
+                    </button>
+                )}
+            </div>
+
+            {!query.trim() ? children : (
+                <div className="flex flex-col gap-2">
+                    {results.length === 0 && !loading && (
+                        <p className="text-sm text-muted text-center py-6">No messages match “{query.trim()}”</p>
+                    )}
+                    {results.map(result => (
+                        <div
+                            key={result.id}
+                            onClick={() => onOpen(result.senderId === userId ? result.recipientId : result.senderId)}
+                            className="bg-surface p-4 rounded-2xl border border-border-warm hover:shadow-md cursor-pointer"
+                        >
+                            <div className="flex justify-between text-xs text-muted mb-1">
+                                <span className="font-bold text-title">{result.senderName}</span>
+                                <span>{new Date(result.timestamp).toLocaleDateString()}</span>
+                            </div>
+                            <p className="text-sm text-title break-words"><Snippet result={result} /></p>
+                        </div>
+                    ))}
+                    {!page.last && (
+                        <button onClick={() => search(query.trim(), page.page + 1)} className="text-xs font-bold text-brand hover:underline">
+                            More results
+                        </button>
+                    )}
+                </div>
+            )}
+        </div>
+    )
+}
@@ -9,7 +9,8 @@ export const ChatWindow = () => {
     const { 
         activeChat, setActiveChat, 
         messages, sendMessage, 
-        connected, rooms,
+        connected, rooms, isOnline,
+        hasMore, loadOlder,
         isLauncherOpen, setIsLauncherOpen 
     } = useChat()
     
@@ -84,7 +85,9 @@ export const ChatWindow = () => {
                     </button>
                     <div className="flex flex-col gap-2">
                         <span className="font-bold text-sm leading-tight truncate w-32">{activeChat.recipientName}</span>
-                        <span className="text-[10px] opacity-80 uppercase tracking-tighter">Online</span>
+                        <span className="text-[10px] opacity-80 uppercase tracking-tighter">
+                            {isOnline(activeChat.recipientId) ? 'Online' : 'Offline'}
+                        </span>
                     </div>
                 </div>
                 <div className="flex items-center gap-1">
@@ -97,6 +100,14 @@ export const ChatWindow = () => {
                 ref={scrollRef}
                 className="flex-1 overflow-y-auto p-4 space-y-4 bg-surface text-title scroll-smooth custom-scrollbar"
             >
+                {hasMore[activeChat.roomId] && (
+                    <button
+                        onClick={() => loadOlder(user.userId, activeChat.recipientId)}
+                        className="block mx-auto text-[11px] font-bold text-brand hover:underline"
+                    >
+                        Load earlier messages
+                    </button>
+                )}
                 {chatMessages.length === 0 && (
                     <div className="text-center py-10 opacity-40">
                         <MessageSquare size={32} className="mx-auto mb-2 opacity-20" />
@@ -115,6 +126,8 @@ export const ChatWindow = () => {
                                 {m.content}
                                 <div className={`text-[9px] mt-1 font-bold opacity-60 ${isMe ? 'text-right' : 'text-left'}`}>
                                     {new Date(m.timestamp).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' })}
+                                    {isMe && m.status === 'DELIVERED' && ' ✓'}
+                                    {isMe && m.status === 'READ' && ' ✓✓'}
                                 </div>
                             </div>
                         </div>
@@ -1,12 +1,12 @@
 import React from 'react';
 import { MapPin, BedDouble, Users, Star, Building2 } from 'lucide-react';
-import { resolveImageUrl, formatCurrency } from '../../utils/formatters';
+import { imageVariantUrl, formatCurrency } from '../../utils/formatters';
 
 /**
  * A compact property card used in profiles and listings.
  */
 export const PropertyMiniCard = ({ property: p, onClick }) => {
-    const imgSrc = resolveImageUrl(p.mainImageUrl);
+    const imgSrc = imageVariantUrl(p.mainImage, 'card', p.mainImageUrl);
     const showStars = p.reviewCount > 0 && p.averageRating;
 
     return (
@@ -1,9 +1,11 @@
 import { useState, useEffect } from 'react'
 import { createPortal } from 'react-dom'
 import { ChevronLeft, ChevronRight, X, LayoutGrid } from 'lucide-react'
+import { imageVariantUrl } from '../../utils/formatters'
 
 export const PropertyGallery = ({ property }) => {
-    const images = property?.imageUrls || (property?.mainImageUrl ? [property.mainImageUrl] : [])
+    const urls = property?.imageUrls || (property?.mainImageUrl ? [property.mainImageUrl] : [])
+    const images = property?.images?.length ? property.images : urls.map(url => ({ original: url }))
     const [activeImage, setActiveImage] = useState(0)
     const [isRibbonOpen, setIsRibbonOpen] = useState(false)
 
@@ -37,17 +39,17 @@ export const PropertyGallery = ({ property }) => {
                         className="col-span-2 row-span-2 relative cursor-pointer overflow-hidden rounded-[36px] shadow-sm transition-all hover:shadow-2xl group/img"
                         onClick={() => { setActiveImage(0); setIsRibbonOpen(true) }}
                    >
-                        <img src={images[0]} className="w-full h-full object-cover transition-transform duration-1000 group-hover/img:scale-105" alt="Main" />
+                        <img src={imageVariantUrl(images[0], 'full', images[0].original)} className="w-full h-full object-cover transition-transform duration-1000 group-hover/img:scale-105" alt="Main" />
                         <div className="absolute inset-0 bg-black/0 group-hover/img:bg-black/5 transition-colors" />
                    </div>
 
-                   {images.slice(1, 5).map((url, i) => (
+                   {images.slice(1, 5).map((image, i) => (
                         <div 
                             key={i} 
                             className="relative cursor-pointer overflow-hidden rounded-[24px] shadow-sm transition-all hover:shadow-2xl group/img"
                             onClick={() => { setActiveImage(i + 1); setIsRibbonOpen(true) }}
                         >
-                            <img src={url} className="w-full h-full object-cover transition-transform duration-1000 group-hover/img:scale-110" alt="Detail" />
+                            <img src={imageVariantUrl(image, 'card', image.original)} className="w-full h-full object-cover transition-transform duration-1000 group-hover/img:scale-110" alt="Detail" />
                             <div className="absolute inset-0 bg-black/0 group-hover/img:bg-black/10 transition-colors" />
                         </div>
                    ))}
@@ -107,7 +109,7 @@ export const PropertyGallery = ({ property }) => {
                                 transform: `translateX(calc(50vw - 22.5vw - (${activeImage} * (45vw + 4vw))))` 
                              }}
                         >
-                            {images.map((url, i) => (
+                            {images.map((image, i) => (
                                 <div 
                                     key={i}
                                     className="flex-shrink-0 w-[45vw] h-[55vh] flex items-center justify-center cursor-pointer transition-opacity duration-700"
@@ -118,7 +120,7 @@ export const PropertyGallery = ({ property }) => {
                                             i === activeImage ? 'scale-100' : 'scale-75'
                                     }`}>
                                         <img 
-                                            src={url} 
+                                            src={imageVariantUrl(image, 'full', image.original)} 
                                             className="w-full h-full object-cover" 
                                             alt={`Slide ${i}`} 
                                         />
@@ -1,7 +1,7 @@
 import React, { useState, useCallback, useEffect, useRef } from 'react';
 import { GoogleMap, OverlayViewF, InfoWindowF, useLoadScript } from '@react-google-maps/api';
 import { MapPin, Navigation, Star, Loader2 } from 'lucide-react';
-import { resolveImageUrl, formatCurrency } from '../../utils/formatters';
+import { imageVariantUrl, formatCurrency } from '../../utils/formatters';
 import { useNavigate } from 'react-router-dom';
 
 const GOOGLE_MAPS_API_KEY = import.meta.env.VITE_GOOGLE_MAPS_API_KEY;
@@ -163,7 +163,7 @@ export const PropertySearchMap = ({ properties, searchedBounds }) => {
                                 <div className="bg-surface rounded-full p-0.5 shadow-lg border border-border group-hover:shadow-xl transition-all duration-300 group-hover:-translate-y-1 group-hover:border-brand">
                                     <div className="relative w-10 h-10 rounded-full overflow-hidden">
                                         <img
-                                            src={resolveImageUrl(p.mainImageUrl)}
+                                            src={imageVariantUrl(p.mainImage, 'thumbnail', p.mainImageUrl)}
                                             className="w-full h-full object-cover"
                                             alt={p.title}
                                             draggable={false}
@@ -193,7 +193,7 @@ export const PropertySearchMap = ({ properties, searchedBounds }) => {
                         >
                             <div className="relative aspect-[16/10] overflow-hidden rounded-lg mb-2">
                                 <img
-                                    src={resolveImageUrl(selectedProperty.mainImageUrl)}
+                                    src={imageVariantUrl(selectedProperty.mainImage, 'card', selectedProperty.mainImageUrl)}
                                     className="w-full h-full object-cover group-hover:scale-110 transition-transform duration-500"
                                     alt={selectedProperty.title}
                                 />
@@ -1,7 +1,7 @@
 import { createContext, useContext, useState, useEffect } from 'react'
 import { useLocation, useNavigate } from 'react-router-dom'
 import { authAPI } from '../api/services'
-import api from "../api/axios.js"
+import api, { storeSession, clearSession } from "../api/axios.js"
 
 const AuthContext = createContext(null)
 
@@ -41,8 +41,7 @@ export const AuthProvider = ({ children }) => {
         setLoading(true)
         try {
             const { data } = await authAPI.login({ email, password })
-            localStorage.setItem('token', data.token)
-            localStorage.setItem('user', JSON.stringify(data))
+            storeSession(data)
             setToken(data.token)
             setUser(data)
             return data
@@ -55,8 +54,7 @@ export const AuthProvider = ({ children }) => {
         setLoading(true)
         try {
             const { data } = await authAPI.register(formData)
-            localStorage.setItem('token', data.token)
-            localStorage.setItem('user', JSON.stringify(data))
+            storeSession(data)
             setToken(data.token)
             setUser(data)
             return data
@@ -66,8 +64,10 @@ export const AuthProvider = ({ children }) => {
     }
 
     const logout = () => {
-        localStorage.removeItem('token')
-        localStorage.removeItem('user')
+        // Revokes the refresh token and the current access token; the session ends here either way
+        const refreshToken = localStorage.getItem('refreshToken')
+        if (refreshToken) authAPI.logout({ refreshToken }, localStorage.getItem('token')).catch(() => {})
+        clearSession()
         setToken(null)
         setUser(null)
         navigate("/login", { replace: true }) // 🚫 prevents forward navigation
@@ -4,17 +4,31 @@ import SockJS from 'sockjs-client'
 import { useAuth } from './AuthContext'
 import toast from 'react-hot-toast'
 import { chatAPI } from '../api/services'
+import api from '../api/axios'
 
 const ChatContext = createContext(null)
+const HISTORY_PAGE = 50
+const INBOX_PAGE = 20
+const SYNC_PAGE = 200
+const STATUS_RANK = { SENDING: 0, RECEIVED: 1, DELIVERED: 2, READ: 3 }
 
 export const ChatProvider = ({ children }) => {
     const { user, token } = useAuth()
     const [messages, setMessages] = useState({}) // roomId -> [messages]
+    const [hasMore, setHasMore] = useState({})   // roomId -> older messages left on the server
     const [activeChat, setActiveChat] = useState(null)
-    const [rooms, setRooms] = useState([])
+    const [rooms, setRooms] = useState([])       // inbox entries, most recent first
+    const [inboxPage, setInboxPage] = useState({ page: 0, last: true })
     const [connected, setConnected] = useState(false)
+    const [online, setOnline] = useState(() => new Set()) // counterpart ids that are online
     const [isLauncherOpen, setIsLauncherOpen] = useState(false)
     const stompClient = useRef(null)
+    const activeChatRef = useRef(null) // read from STOMP callbacks, which outlive renders
+    const lastSeenId = useRef(0)       // highest message id we hold; message ids are global
+
+    useEffect(() => {
+        activeChatRef.current = activeChat
+    }, [activeChat])
 
     useEffect(() => {
         if (user && token) {
@@ -30,11 +44,15 @@ export const ChatProvider = ({ children }) => {
         const wsUrl = import.meta.env.VITE_API_URL 
             ? import.meta.env.VITE_API_URL.replace('/api', '/ws') 
             : '/ws'
-        const socket = new SockJS(wsUrl)
         stompClient.current = new Client({
-            webSocketFactory: () => socket,
-            connectHeaders: {
-                Authorization: `Bearer ${token}`
+            // A fresh socket per attempt: a closed SockJS instance cannot be reopened
+            webSocketFactory: () => new SockJS(wsUrl),
+            // Access tokens are short-lived: every (re)connect presents a current one
+            beforeConnect: async () => {
+                await api.get('/auth/validate').catch(() => {})   // refreshes an expired token
+                stompClient.current.connectHeaders = {
+                    Authorization: `Bearer ${localStorage.getItem('token')}`
+                }
             },
             onConnect: () => {
                 setConnected(true)
@@ -43,6 +61,15 @@ export const ChatProvider = ({ children }) => {
                     const payload = JSON.parse(message.body)
                     onMessageReceived(payload)
                 })
+                stompClient.current.subscribe(`/user/${user.userId}/queue/receipts`, (message) => {
+                    onReceipt(JSON.parse(message.body))
+                })
+                stompClient.current.subscribe(`/user/${user.userId}/queue/presence`, (message) => {
+                    onPresence(JSON.parse(message.body))
+                })
+                loadPresence()
+                // After a reconnect, fetch only what arrived while we were away
+                if (lastSeenId.current > 0) catchUp()
             },
             onStompError: (frame) => {
                 console.error('Broker reported error: ' + frame.headers['message'])
@@ -57,32 +84,151 @@ export const ChatProvider = ({ children }) => {
             stompClient.current.deactivate()
             setConnected(false)
         }
+        lastSeenId.current = 0
+        setOnline(new Set())
+    }
+
+    const noteSeen = (list) => {
+        for (const m of list) if (m.id > lastSeenId.current) lastSeenId.current = m.id
+    }
+
+    // Pages through /chat/sync from our watermark and merges the missed messages in place
+    const catchUp = async () => {
+        try {
+            const missed = []
+            let cursor = lastSeenId.current
+            for (;;) {
+                const { data } = await chatAPI.sync({ after: cursor, limit: SYNC_PAGE })
+                missed.push(...data.messages)
+                cursor = data.cursor
+                if (!data.hasMore) break
+            }
+            if (missed.length === 0) return
+            noteSeen(missed)
+            setMessages(prev => {
+                const next = { ...prev }
+                for (const msg of missed) {
+                    const list = next[msg.chatRoomId]
+                    if (!list || list.some(m => m.id === msg.id)) continue
+                    // Our own sends come back with their ids; swap them for the optimistic copies
+                    const pending = msg.senderId === user.userId
+                        ? list.findIndex(m => !m.id && m.content === msg.content)
+                        : -1
+                    next[msg.chatRoomId] = pending >= 0
+                        ? list.map((m, i) => i === pending ? msg : m)
+                        : [...list, msg]
+                }
+                return next
+            })
+
+            // One receipt per conversation covers everything missed in it
+            const latestIncoming = {}
+            for (const msg of missed) {
+                if (msg.senderId !== user.userId) latestIncoming[msg.chatRoomId] = msg
+            }
+            for (const msg of Object.values(latestIncoming)) {
+                const isOpen = activeChatRef.current?.roomId === msg.chatRoomId
+                sendReceipt(msg.senderId, msg.id, isOpen ? 'READ' : 'DELIVERED')
+            }
+            // Previews and unread counters come from the server rather than being replayed here
+            loadUserRooms(0)
+        } catch (err) {
+            console.error("Failed to catch up after reconnect", err)
+        }
+    }
+
+    // Snapshot on (re)connect; deltas on /queue/presence keep it current afterwards
+    const loadPresence = async () => {
+        try {
+            const { data } = await chatAPI.getPresence()
+            setOnline(new Set(data))
+        } catch (err) {
+            console.error("Failed to load presence", err)
+        }
+    }
+
+    const onPresence = ({ online: cameOnline, offline: wentOffline }) => {
+        setOnline(prev => {
+            const next = new Set(prev)
+            cameOnline.forEach(id => next.add(id))
+            wentOffline.forEach(id => next.delete(id))
+            return next
+        })
     }
 
-    const loadUserRooms = async () => {
+    const isOnline = (userId) => online.has(userId)
+
+    const loadUserRooms = async (page = 0) => {
         try {
-            const { data } = await chatAPI.getRooms(user.userId)
-            setRooms(data)
+            const { data } = await chatAPI.getInbox({ page, size: INBOX_PAGE })
+            // The newest conversation's last message is also our newest message overall
+            noteSeen(data.content.map(r => ({ id: r.lastMessageId })))
+            setRooms(prev => page === 0 ? data.content : [...prev, ...data.content])
+            setInboxPage({ page, last: data.last })
         } catch (err) {
             console.error("Failed to load rooms", err)
         }
     }
 
+    const loadMoreRooms = () => loadUserRooms(inboxPage.page + 1)
+
+    // Moves the room to the top with the new preview, or refetches if it is not loaded yet
+    const bumpRoom = (roomId, msg, incoming) => {
+        setRooms(prev => {
+            const room = prev.find(r => r.chatId === roomId)
+            if (!room) {
+                setTimeout(() => loadUserRooms(0), 500)
+                return prev
+            }
+            const updated = {
+                ...room,
+                lastMessage: msg.content,
+                lastMessageAt: msg.timestamp,
+                lastMessageSenderId: msg.senderId,
+                unreadCount: incoming ? room.unreadCount + 1 : room.unreadCount
+            }
+            return [updated, ...prev.filter(r => r.chatId !== roomId)]
+        })
+    }
+
+    // One acknowledgement covers every message from senderId up to upToId
+    const sendReceipt = (senderId, upToId, status) => {
+        if (!stompClient.current?.connected || !upToId) return
+        stompClient.current.publish({
+            destination: "/app/chat.receipt",
+            body: JSON.stringify({ readerId: user.userId, senderId, upToId, status })
+        })
+    }
+
+    // The recipient has received or read our messages up to receipt.upToId
+    const onReceipt = (receipt) => {
+        setMessages(prev => {
+            const list = prev[receipt.chatRoomId]
+            if (!list) return prev
+            return {
+                ...prev,
+                [receipt.chatRoomId]: list.map(m =>
+                    m.id && m.id <= receipt.upToId && m.senderId === user.userId
+                        && (STATUS_RANK[m.status] ?? 0) < STATUS_RANK[receipt.status]
+                        ? { ...m, status: receipt.status }
+                        : m)
+            }
+        })
+    }
+
     const onMessageReceived = (msg) => {
         const roomId = msg.chatRoomId
+        const isOpen = activeChatRef.current?.roomId === roomId
+        noteSeen([msg])
         setMessages(prev => ({
             ...prev,
             [roomId]: [...(prev[roomId] || []), msg]
         }))
         
-        setRooms(prev => {
-            if (!prev.some(r => r.chatId === roomId)) {
-                setTimeout(loadUserRooms, 500)
-            }
-            return prev
-        })
+        bumpRoom(roomId, msg, !isOpen)
+        sendReceipt(msg.senderId, msg.id, isOpen ? 'READ' : 'DELIVERED')
 
-        if (activeChat?.roomId !== roomId) {
+        if (!isOpen) {
             toast.success(`New message from ${msg.senderName}`, {
                 icon: '💬',
                 position: 'bottom-right'
@@ -125,39 +271,62 @@ export const ChatProvider = ({ children }) => {
             }
 
             setRooms(prev => {
-                if (prev.some(r => r.chatId === tempRoomId)) return prev
-                return [...prev, {
-                    id: Date.now(),
+                const room = prev.find(r => r.chatId === tempRoomId) || {
                     chatId: tempRoomId,
-                    senderId: user.userId,
-                    senderName: `${user.firstName} ${user.lastName}`,
-                    recipientId: recipientId,
-                    recipientName: activeChat?.recipientName || 'New User'
-                }]
+                    counterpartId: recipientId,
+                    counterpartName: activeChat?.recipientName || 'New User',
+                    unreadCount: 0
+                }
+                const updated = { ...room, lastMessage: content, lastMessageAt: new Date().toISOString(), lastMessageSenderId: user.userId }
+                return [updated, ...prev.filter(r => r.chatId !== tempRoomId)]
             })
         }
     }
 
     const loadHistory = async (senderId, recipientId) => {
         try {
-            const { data } = await chatAPI.getMessages(senderId, recipientId)
+            const { data } = await chatAPI.getMessages(senderId, recipientId, { limit: HISTORY_PAGE })
             const roomId = [Math.min(senderId, recipientId), Math.max(senderId, recipientId)].join('_')
+            noteSeen(data)
             setMessages(prev => ({ ...prev, [roomId]: data }))
+            setRooms(prev => prev.map(r => r.chatId === roomId ? { ...r, unreadCount: 0 } : r))
+            const lastIncoming = [...data].reverse().find(m => m.senderId === recipientId)
+            if (lastIncoming && lastIncoming.status !== 'READ') sendReceipt(recipientId, lastIncoming.id, 'READ')
+            setHasMore(prev => ({ ...prev, [roomId]: data.length === HISTORY_PAGE }))
         } catch (err) {
             console.error("Failed to load history", err)
         }
     }
 
+    // Fetches the page just before the oldest message we already hold
+    const loadOlder = async (senderId, recipientId) => {
+        const roomId = [Math.min(senderId, recipientId), Math.max(senderId, recipientId)].join('_')
+        const oldest = (messages[roomId] || []).find(m => m.id)
+        if (!oldest) return
+        try {
+            const { data } = await chatAPI.getMessages(senderId, recipientId, { before: oldest.id, limit: HISTORY_PAGE })
+            setMessages(prev => ({ ...prev, [roomId]: [...data, ...(prev[roomId] || [])] }))
+            setHasMore(prev => ({ ...prev, [roomId]: data.length === HISTORY_PAGE }))
+        } catch (err) {
+            console.error("Failed to load older messages", err)
+        }
+    }
+
     const value = {
         messages,
         activeChat,
         setActiveChat,
         rooms,
+        hasMoreRooms: !inboxPage.last,
+        loadMoreRooms,
         connected,
+        isOnline,
         isLauncherOpen,
         setIsLauncherOpen,
         sendMessage,
-        loadHistory
+        loadHistory,
+        loadOlder,
+        hasMore
     }
 
     return (
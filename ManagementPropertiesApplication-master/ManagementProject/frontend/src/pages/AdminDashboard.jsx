@@ -101,6 +101,16 @@ export default function AdminDashboard() {
         }
     }
 
+    const handleToggleActive = async (id, active) => {
+        try {
+            const { data: freshUser } = await userAPI.setActive(id, active)
+            setUsers(prev => prev.map(u => u.id === id ? freshUser : u))
+            toast.success(freshUser.active ? 'User activated' : 'User deactivated')
+        } catch {
+            toast.error('Failed to change account status')
+        }
+    }
+
     const handleViewUser = async (id) => {
         try {
             const { data } = await userAPI.getById(id)
@@ -283,6 +293,7 @@ export default function AdminDashboard() {
                             onDeleteUser={handleDeleteUser} 
                             onRoleChange={handleRoleChange} 
                             onToggleVerify={handleToggleVerify}
+                            onToggleActive={handleToggleActive}
                             onViewUser={handleViewUser}
                         />
                     )}
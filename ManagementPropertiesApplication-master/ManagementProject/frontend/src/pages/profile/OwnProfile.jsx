@@ -10,7 +10,7 @@ import { Badge } from '../../components/ui/Badge'
 
 export function OwnProfile({ authUser }) {
     const navigate = useNavigate()
-    const [form, setForm]         = useState({ firstName: '', lastName: '', email: '', phone: '' })
+    const [form, setForm]         = useState({ firstName: '', lastName: '', email: '', phone: '', notificationDelivery: 'IMMEDIATE' })
     const [loading, setLoading]   = useState(true)
     const [saving, setSaving]     = useState(false)
     const [editing, setEditing]   = useState(false)
@@ -25,7 +25,8 @@ export function OwnProfile({ authUser }) {
                     firstName: data.firstName || '',
                     lastName: data.lastName || '',
                     email: data.email || '',
-                    phone: data.phone || ''
+                    phone: data.phone || '',
+                    notificationDelivery: data.notificationDelivery || 'IMMEDIATE'
                 })
             })
             .catch(console.error)
@@ -141,6 +142,17 @@ export function OwnProfile({ authUser }) {
                                                    value={form.phone}
                                                    onChange={e => setForm({ ...form, phone: e.target.value })} />
                                         </div>
+                                        {(authUser?.role === 'ROLE_AGENT' || authUser?.role === 'ROLE_ADMIN') && (
+                                            <div className="space-y-2.5">
+                                                <label className="text-[11px] font-black text-muted uppercase tracking-[0.2em] px-1">Booking Emails</label>
+                                                <select className="input !rounded-2xl !bg-brand-50/30 dark:!bg-brand-900/10 !border-border-warm focus:!bg-white"
+                                                        value={form.notificationDelivery}
+                                                        onChange={e => setForm({ ...form, notificationDelivery: e.target.value })}>
+                                                    <option value="IMMEDIATE">Send each notification immediately</option>
+                                                    <option value="DIGEST">Bundle into a periodic digest</option>
+                                                </select>
+                                            </div>
+                                        )}
                                     </div>
                                     <div className="pt-4 flex justify-end">
                                         <button type="submit" className="bg-brand hover:bg-brand-700 text-white px-10 py-4 rounded-[1.5rem] font-black uppercase tracking-widest text-xs flex items-center justify-center gap-3 shadow-xl shadow-brand/30 transition-all active:scale-95" disabled={saving}>
@@ -17,6 +17,16 @@ export const resolveImageUrl = (path, placeholder = '/placeholder-house.png') =>
     return `${API_BASE_URL}${path.startsWith('/') ? '' : '/'}${path}`;
 };
 
+/**
+ * Picks a resized variant ('thumbnail', 'card' or 'full') of a property image,
+ * preferring WebP when the server produced one. Falls back to the given URL for
+ * responses from before variants existed.
+ */
+export const imageVariantUrl = (image, size, fallback, placeholder = '/placeholder-house.png') => {
+    const path = image?.[`${size}Webp`] || image?.[size] || fallback;
+    return resolveImageUrl(path, placeholder);
+};
+
 /**
  * Formats a number as USD currency.
  */
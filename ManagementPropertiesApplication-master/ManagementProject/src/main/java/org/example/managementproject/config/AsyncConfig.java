@@ -1,11 +1,91 @@
 package org.example.managementproject.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.RejectedExecutionHandler;
+
+/**
+ * One bounded executor per workload, so a slow SMTP server, a geocoding API or a burst
+ * of password hashing can only exhaust its own pool. Plain {@code @Async} methods run on {@code taskExecutor};
+ * everything else asks for its executor by name.
+ */
 @Configuration
 @EnableAsync
+@EnableConfigurationProperties(AsyncProperties.class)
+@RequiredArgsConstructor
 public class AsyncConfig {
-    // @Async annotation on EmailService methods will now work
-    // Emails send in background thread — won't slow down API responses
-}
\ No newline at end of file
+
+    private final AsyncProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // Default target for @Async without a qualifier
+    @Bean
+    public ThreadPoolTaskExecutor taskExecutor() {
+        return executor("default", properties.getDefaults());
+    }
+
+    // Workers that drain the email outbox — one SMTP connection per worker at most
+    @Bean
+    public ThreadPoolTaskExecutor mailExecutor() {
+        return executor("mail", properties.getMail());
+    }
+
+    // Calls to the Google Geocoding API
+    @Bean
+    public ThreadPoolTaskExecutor geocodingExecutor() {
+        return executor("geocoding", properties.getGeocoding());
+    }
+
+    // CPU- and disk-bound work on uploaded images
+    @Bean
+    public ThreadPoolTaskExecutor imageExecutor() {
+        return executor("image", properties.getImage());
+    }
+
+    // BCrypt for logins, registrations and password resets: CPU-bound, so a fixed share of the cores
+    @Bean
+    public ThreadPoolTaskExecutor authExecutor() {
+        return executor("auth", properties.getAuth());
+    }
+
+    private ThreadPoolTaskExecutor executor(String name, AsyncProperties.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(pool.getMaxSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setKeepAliveSeconds((int) pool.getKeepAlive().toSeconds());
+        executor.setThreadNamePrefix(name + "-");
+        if (pool.getVirtual() != null ? pool.getVirtual() : properties.isVirtual()) {
+            // Same bounds and queue, but each worker unmounts from its carrier while blocked on I/O
+            executor.setThreadFactory(Thread.ofVirtual().name(name + "-v", 0).factory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        Counter rejected = Counter.builder("async.executor.rejected")
+                .tag("name", name)
+                .description("Tasks refused because the pool and its queue were full")
+                .register(meterRegistry);
+        RejectedExecutionHandler policy = pool.getRejection().handler();
+        executor.setRejectedExecutionHandler((task, threadPool) -> {
+            rejected.increment();
+            policy.rejectedExecution(task, threadPool);
+        });
+
+        Gauge.builder("async.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("async.executor.queued", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .tag("name", name)
+                .register(meterRegistry);
+        return executor;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.managementproject.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Sizing for the named executors in {@link AsyncConfig}, bound from {@code app.async.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.async")
+public class AsyncProperties {
+
+    /** Run every executor on Java 21 virtual threads unless the executor overrides it. */
+    private boolean virtual = false;
+
+    private Pool defaults  = new Pool(4, 8, 200, Rejection.CALLER_RUNS);
+    private Pool mail      = new Pool(2, 2, 2, Rejection.ABORT);
+    private Pool geocoding = new Pool(2, 4, 100, Rejection.CALLER_RUNS);
+    private Pool image     = new Pool(2, 2, 50, Rejection.ABORT);
+    private Pool auth      = new Pool(2, 2, 64, Rejection.ABORT);
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int coreSize;
+        private int maxSize;
+        private int queueCapacity;
+        private Duration keepAlive = Duration.ofSeconds(60);
+        private Rejection rejection;
+        /** Overrides {@link AsyncProperties#virtual} for this executor when set. */
+        private Boolean virtual;
+
+        public Pool() {
+        }
+
+        Pool(int coreSize, int maxSize, int queueCapacity, Rejection rejection) {
+            this.coreSize = coreSize;
+            this.maxSize = maxSize;
+            this.queueCapacity = queueCapacity;
+            this.rejection = rejection;
+        }
+    }
+
+    /** What happens to a task submitted while the pool and its queue are full. */
+    public enum Rejection {
+        /** Throw {@link org.springframework.core.task.TaskRejectedException} to the submitter. */
+        ABORT,
+        /** Run the task on the submitting thread, which slows the producer down. */
+        CALLER_RUNS,
+        /** Drop the new task silently. */
+        DISCARD,
+        /** Drop the oldest queued task and retry the submission. */
+        DISCARD_OLDEST;
+
+        RejectedExecutionHandler handler() {
+            return switch (this) {
+                case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+                case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+                case DISCARD -> new ThreadPoolExecutor.DiscardPolicy();
+                case DISCARD_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            };
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.managementproject.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * One-off schema changes that {@code ddl-auto: update} cannot make on an existing database,
+ * such as widening an enum check constraint or backfilling a new column. Runs after
+ * Hibernate has updated the schema and before the web server starts. Each migration runs
+ * once, in its own transaction, and is recorded in {@code schema_migrations}; an advisory
+ * lock keeps nodes that start together from racing.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class DatabaseMigrations {
+
+    private static final long LOCK_KEY = 0x4d_49_47_52;   // "MIGR"
+
+    record Migration(String id, List<String> statements) {}
+
+    static final List<Migration> MIGRATIONS = List.of(
+            // Hibernate only writes the enum check constraint when it creates the table
+            new Migration("chat-message-status-read", List.of(
+                    "ALTER TABLE chat_messages DROP CONSTRAINT IF EXISTS chat_messages_status_check",
+                    "ALTER TABLE chat_messages ADD CONSTRAINT chat_messages_status_check "
+                            + "CHECK (status IN ('RECEIVED', 'DELIVERED', 'READ'))")),
+            // 'simple' keeps numbers, street names and dates as they were typed instead of stemming them
+            new Migration("chat-message-content-search", List.of(
+                    "ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS content_tsv TSVECTOR "
+                            + "GENERATED ALWAYS AS (to_tsvector('simple', coalesce(content, ''))) STORED",
+                    "CREATE INDEX IF NOT EXISTS idx_chat_messages_content_tsv ON chat_messages USING GIN (content_tsv)")),
+            // Mirrored sender/recipient rows become one row per pair. Hibernate has already added
+            // the new columns but could not add the unique constraints while duplicates existed.
+            new Migration("chat-room-canonical-pair", List.of("""
+                    DO $$
+                    BEGIN
+                        IF EXISTS (SELECT 1 FROM information_schema.columns
+                                   WHERE table_name = 'chat_rooms' AND column_name = 'sender_id') THEN
+                            DELETE FROM chat_rooms r USING chat_rooms k
+                            WHERE k.chat_id = r.chat_id AND k.id < r.id;
+                            UPDATE chat_rooms SET user_low_id  = LEAST(sender_id, recipient_id),
+                                                  user_high_id = GREATEST(sender_id, recipient_id);
+                            ALTER TABLE chat_rooms DROP COLUMN sender_id,
+                                                   DROP COLUMN recipient_id,
+                                                   DROP COLUMN unread_count;
+                        END IF;
+                    END $$""", """
+                    UPDATE chat_rooms r SET
+                        unread_low  = (SELECT COUNT(*) FROM chat_messages m
+                                       WHERE m.recipient_id = r.user_low_id AND m.chat_room_id = r.chat_id
+                                         AND m.status <> 'READ'),
+                        unread_high = (SELECT COUNT(*) FROM chat_messages m
+                                       WHERE m.recipient_id = r.user_high_id AND m.chat_room_id = r.chat_id
+                                         AND m.status <> 'READ')""",
+                    "ALTER TABLE chat_rooms ALTER COLUMN user_low_id SET NOT NULL, ALTER COLUMN user_high_id SET NOT NULL",
+                    """
+                    DO $$
+                    BEGIN
+                        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_chat_rooms_chat_id') THEN
+                            ALTER TABLE chat_rooms ADD CONSTRAINT uk_chat_rooms_chat_id UNIQUE (chat_id);
+                        END IF;
+                        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_chat_rooms_pair') THEN
+                            ALTER TABLE chat_rooms ADD CONSTRAINT uk_chat_rooms_pair UNIQUE (user_low_id, user_high_id);
+                        END IF;
+                    END $$""",
+                    "CREATE INDEX IF NOT EXISTS idx_chat_rooms_high_low ON chat_rooms (user_high_id, user_low_id)")),
+            // One reset token per user: keep the newest live one, then add the unique key Hibernate
+            // could not, and recreate the user foreign key so deleting a user removes its token
+            new Migration("password-reset-token-per-user", List.of(
+                    "DELETE FROM password_reset_tokens WHERE used OR expiry_date < now()",
+                    """
+                    DELETE FROM password_reset_tokens t USING password_reset_tokens k
+                    WHERE k.user_id = t.user_id AND k.id > t.id""",
+                    """
+                    DO $$
+                    DECLARE
+                        fk TEXT;
+                    BEGIN
+                        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_password_reset_tokens_user') THEN
+                            ALTER TABLE password_reset_tokens ADD CONSTRAINT uk_password_reset_tokens_user UNIQUE (user_id);
+                        END IF;
+                        FOR fk IN SELECT conname FROM pg_constraint
+                                  WHERE conrelid = 'password_reset_tokens'::regclass AND contype = 'f' LOOP
+                            EXECUTE format('ALTER TABLE password_reset_tokens DROP CONSTRAINT %I', fk);
+                        END LOOP;
+                        ALTER TABLE password_reset_tokens ADD CONSTRAINT fk_password_reset_tokens_user
+                            FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
+                    END $$""",
+                    "CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_expiry ON password_reset_tokens (expiry_date)")),
+            new Migration("email-outbox-status-sending", List.of(
+                    "ALTER TABLE email_outbox DROP CONSTRAINT IF EXISTS email_outbox_status_check",
+                    "ALTER TABLE email_outbox ADD CONSTRAINT email_outbox_status_check "
+                            + "CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'FAILED'))"))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    // Only injected so the schema exists before the migrations run
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void migrate() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS schema_migrations (
+                    id VARCHAR(100) PRIMARY KEY,
+                    applied_at TIMESTAMP NOT NULL DEFAULT now())""");
+        for (Migration migration : MIGRATIONS) {
+            transactionTemplate.executeWithoutResult(status -> apply(migration));
+        }
+    }
+
+    private void apply(Migration migration) {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_KEY);
+        Integer applied = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schema_migrations WHERE id = ?", Integer.class, migration.id());
+        if (applied != null && applied > 0) return;
+
+        migration.statements().forEach(jdbcTemplate::execute);
+        jdbcTemplate.update("INSERT INTO schema_migrations (id) VALUES (?)", migration.id());
+        log.info("Applied database migration {}", migration.id());
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.managementproject.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request limits and load shedding for {@code /api/**}, bound from {@code app.rate-limit.*}
+ * and applied by {@link org.example.managementproject.security.ApiRateLimitFilter}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** Buckets held in memory per limiter. */
+    private long maxKeys = 100_000;
+
+    /** Every API request, per caller. */
+    private Limit perUser = new Limit(300, Duration.ofMinutes(1));
+
+    /** Expensive routes, each with its own bucket per caller; the first match applies. */
+    private List<Route> routes = new ArrayList<>();
+
+    private Shedding shedding = new Shedding();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private int capacity;
+        private Duration period = Duration.ofMinutes(1);
+
+        public Limit() {
+        }
+
+        Limit(int capacity, Duration period) {
+            this.capacity = capacity;
+            this.period = period;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Route extends Limit {
+        private String name;
+        /** HTTP method to match, or every method when unset. */
+        private String method;
+        /** Ant-style servlet path; {@code *} matches one path segment. */
+        private String pattern;
+        /** Refuse this route while the connection pool is saturated. */
+        private boolean shed = true;
+        /** Bean name of the executor doing this route's work; refused while its queue is nearly full. */
+        private String executor;
+    }
+
+    @Getter
+    @Setter
+    public static class Shedding {
+        /** Milliseconds between samples of the connection pool. */
+        private long sampleInterval = 250;
+        /** Mean wait for a pooled connection over the last sample above which the pool counts as saturated. */
+        private Duration maxConnectionWait = Duration.ofMillis(100);
+        /** Threads waiting for a connection at which the pool counts as saturated. */
+        private int maxPendingConnections = 20;
+        /** Share of an executor's queue in use at which its routes are refused. */
+        private double maxQueueFill = 0.8;
+        /** Sent as {@code Retry-After} with every shed request. */
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.managementproject.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Enables @Scheduled jobs such as the email outbox dispatcher
+}
@@ -1,10 +1,17 @@
 package org.example.managementproject.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.example.managementproject.security.ApiRateLimitFilter;
 import org.example.managementproject.security.JwtAuthEntryPoint;
 import org.example.managementproject.security.JwtAuthenticationFilter;
+import org.example.managementproject.security.LoginThrottle;
+import org.example.managementproject.security.LoginThrottleFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -23,10 +30,12 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity               // enables @PreAuthorize on controllers
+@EnableConfigurationProperties(RateLimitProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final ApiRateLimitFilter apiRateLimitFilter;
     private final UserDetailsService userDetailsService;
     private final JwtAuthEntryPoint jwtAuthEntryPoint;
 
@@ -44,7 +53,7 @@ public class SecurityConfig {
                                 "/uploads/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
-                                "/ws/**",
+                                "/ws/**",               // STOMP authenticates on CONNECT instead
                                 "/error"
                         ).permitAll()
                         // Everything else requires authentication
@@ -58,10 +67,24 @@ public class SecurityConfig {
                 )
                 .authenticationProvider(authenticationProvider())
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(apiRateLimitFilter, JwtAuthenticationFilter.class)   // after, so callers are known by id
                 .headers(headers -> headers.cacheControl(cache -> cache.disable()));
         return http.build();
     }
 
+    // Ahead of every other servlet filter but ForwardedHeaderFilter (which sets the client
+    // address when the forwarding strategy is "framework"): a refused sign-in should cost
+    // Tomcat's parsing and little else
+    @Bean
+    public FilterRegistrationBean<LoginThrottleFilter> loginThrottleFilter(LoginThrottle loginThrottle,
+                                                                           ObjectMapper objectMapper) {
+        FilterRegistrationBean<LoginThrottleFilter> registration = new FilterRegistrationBean<>(
+                new LoginThrottleFilter(loginThrottle, objectMapper, corsConfigurationSource()));
+        registration.setUrlPatterns(LoginThrottleFilter.PATHS);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
     @Bean
     public org.springframework.web.cors.CorsConfigurationSource corsConfigurationSource() {
         org.springframework.web.cors.CorsConfiguration configuration = new org.springframework.web.cors.CorsConfiguration();
@@ -0,0 +1,55 @@
+package org.example.managementproject.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+
+/**
+ * Writes file resources with Tomcat's sendfile: instead of copying the file through the
+ * response stream, the request is tagged with the file and byte range, and once the
+ * response is committed the connector hands the file to the kernel, which sends it from
+ * the page cache without it passing through the JVM. Files below {@code minSize}, and
+ * requests the connector cannot sendfile (over TLS, or under MockMvc), are copied as
+ * before.
+ */
+public class SendfileResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+    static final String SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String START = "org.apache.tomcat.sendfile.start";
+    static final String END = "org.apache.tomcat.sendfile.end";
+
+    private final long minSize;
+
+    public SendfileResourceHttpMessageConverter(long minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+        if (!sendfile(resource, 0, resource.contentLength(), minSize)) {
+            super.writeContent(resource, outputMessage);
+        }
+    }
+
+    /**
+     * Hands {@code count} bytes of the resource from {@code position} to the connector,
+     * if it can take them. The caller must have set Content-Length and must not write a
+     * body.
+     */
+    static boolean sendfile(Resource resource, long position, long count, long minSize) throws IOException {
+        if (count < minSize || !resource.isFile()) return false;
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return false;
+        HttpServletRequest request = attributes.getRequest();
+        if (!Boolean.TRUE.equals(request.getAttribute(SUPPORTED))) return false;
+        request.setAttribute(FILENAME, resource.getFile().getCanonicalPath());
+        request.setAttribute(START, position);
+        request.setAttribute(END, position + count);
+        return true;
+    }
+}
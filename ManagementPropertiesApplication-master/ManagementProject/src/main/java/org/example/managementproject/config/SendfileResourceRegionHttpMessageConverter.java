@@ -0,0 +1,36 @@
+package org.example.managementproject.config;
+
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+
+import java.io.IOException;
+
+/**
+ * Single-range responses ({@code 206}) with sendfile, as in
+ * {@link SendfileResourceHttpMessageConverter}. Multi-range responses are multipart
+ * bodies and are still copied.
+ */
+public class SendfileResourceRegionHttpMessageConverter extends ResourceRegionHttpMessageConverter {
+
+    private final long minSize;
+
+    public SendfileResourceRegionHttpMessageConverter(long minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected void writeResourceRegion(ResourceRegion region, HttpOutputMessage outputMessage) throws IOException {
+        long length = region.getResource().contentLength();
+        long start = region.getPosition();
+        long end = Math.min(start + region.getCount() - 1, length - 1);
+        if (!SendfileResourceHttpMessageConverter.sendfile(region.getResource(), start, end - start + 1, minSize)) {
+            super.writeResourceRegion(region, outputMessage);
+            return;
+        }
+        HttpHeaders headers = outputMessage.getHeaders();
+        headers.add(HttpHeaders.CONTENT_RANGE, "bytes " + start + '-' + end + '/' + length);
+        headers.setContentLength(end - start + 1);
+    }
+}
@@ -3,32 +3,77 @@ package org.example.managementproject.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
+import java.io.IOException;
+import java.net.http.HttpClient;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
-public class WebConfig implements WebMvcConfigurer {
+public class WebConfig {
 
-    @Value("${app.upload.dir:uploads}")
-    private String uploadDir;
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        String path = Paths.get(uploadDir).toAbsolutePath().toString();
+    /**
+     * Serves {@code /uploads/**}. Upload and variant file names are random and never
+     * rewritten, so browsers may keep them for a year without revalidating. The ETag
+     * and Last-Modified still let a forced reload end in a 304, and Range requests are
+     * answered from the file. Mapped ahead of the {@code /**} static resources.
+     */
+    @Bean
+    public SimpleUrlHandlerMapping uploadsHandlerMapping(ResourceHttpRequestHandler uploadsResourceHandler) {
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of("/uploads/**", uploadsResourceHandler));
+        mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return mapping;
+    }
 
-        // Cross-platform file resource location (works on both Windows and Linux/Docker)
-        String location = "file:" + path + "/";
+    @Bean
+    public ResourceHttpRequestHandler uploadsResourceHandler(@Value("${app.upload.dir:uploads}") String uploadDir,
+                                                             @Value("${app.upload.cache-max-age:365d}") Duration maxAge,
+                                                             @Value("${app.upload.sendfile:true}") boolean sendfile,
+                                                             @Value("${app.upload.sendfile-min-size:48KB}") DataSize sendfileMinSize) {
+        ResourceHttpRequestHandler handler = new ResourceHttpRequestHandler();
+        handler.setLocations(List.of(new FileSystemResource(Paths.get(uploadDir).toAbsolutePath() + "/")));
+        handler.setCacheControl(CacheControl.maxAge(maxAge).cachePublic().immutable());
+        handler.setEtagGenerator(WebConfig::uploadEtag);
+        if (sendfile) {
+            handler.setResourceHttpMessageConverter(new SendfileResourceHttpMessageConverter(sendfileMinSize.toBytes()));
+            handler.setResourceRegionHttpMessageConverter(new SendfileResourceRegionHttpMessageConverter(sendfileMinSize.toBytes()));
+        }
+        return handler;
+    }
 
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations(location)
-                .setCachePeriod(0);
+    /** Modification time and length, as Tomcat's own file servlet does; no need to read the file. */
+    private static String uploadEtag(Resource resource) {
+        try {
+            return Long.toHexString(resource.lastModified()) + "-" + Long.toHexString(resource.contentLength());
+        } catch (IOException e) {
+            return null;
+        }
     }
 
+    /**
+     * Backed by {@link HttpClient} rather than {@code HttpURLConnection}: it blocks cheaply
+     * on virtual threads, and the timeouts stop a stalled Google API call from holding a
+     * request thread indefinitely.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(@Value("${app.google.maps.connect-timeout:5000}") long connectTimeout,
+                                     @Value("${app.google.maps.read-timeout:10000}") long readTimeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeout));
+        return new RestTemplate(requestFactory);
     }
 }
\ No newline at end of file
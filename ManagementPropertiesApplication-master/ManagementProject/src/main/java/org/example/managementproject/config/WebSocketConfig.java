@@ -1,7 +1,16 @@
 package org.example.managementproject.config;
 
+import org.example.managementproject.security.StompAuthChannelInterceptor;
+import org.example.managementproject.service.PresenceRegistry;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -10,17 +19,50 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Clients heartbeat every 10 s; PresenceRegistry times a session out after a few missed beats
+    private static final long[] HEARTBEAT = {10_000, 10_000};
+
+    private final TaskScheduler messageBrokerTaskScheduler;
+    private final PresenceRegistry presenceRegistry;
+    private final StompAuthChannelInterceptor stompAuthInterceptor;
+
+    // The first two are built from this configuration, hence lazy
+    public WebSocketConfig(@Lazy TaskScheduler messageBrokerTaskScheduler,
+                           @Lazy PresenceRegistry presenceRegistry,
+                           StompAuthChannelInterceptor stompAuthInterceptor) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+        this.presenceRegistry = presenceRegistry;
+        this.stompAuthInterceptor = stompAuthInterceptor;
+    }
+
+    // The simple broker only reaches sessions on this node; UserMessageRelay handles the others
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/user");
+        config.enableSimpleBroker("/user")
+                .setHeartbeatValue(HEARTBEAT)
+                .setTaskScheduler(messageBrokerTaskScheduler);
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
 
+    // The handshake is permitAll in SecurityConfig; StompAuthChannelInterceptor authenticates the CONNECT frame
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authentication first, so frames it rejects do not count as signs of life
+        registration.interceptors(stompAuthInterceptor, new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId != null) presenceRegistry.touch(sessionId);
+                return message;
+            }
+        });
+    }
 }
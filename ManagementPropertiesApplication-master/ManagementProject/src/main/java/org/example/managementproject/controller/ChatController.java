@@ -1,21 +1,36 @@
 package org.example.managementproject.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.managementproject.dto.request.ChatReceiptRequest;
+import org.example.managementproject.dto.request.ChatSyncRequest;
+import org.example.managementproject.dto.response.ChatInboxEntryResponse;
 import org.example.managementproject.dto.response.ChatMessageResponse;
+import org.example.managementproject.dto.response.ChatReceiptResponse;
 import org.example.managementproject.dto.response.ChatRoomResponse;
+import org.example.managementproject.dto.response.ChatSearchResultResponse;
+import org.example.managementproject.dto.response.ChatSyncResponse;
 import org.example.managementproject.model.ChatMessage;
 import org.example.managementproject.model.ChatRoom;
+import org.example.managementproject.model.User;
+import org.example.managementproject.model.exception.AccessDeniedException;
+import org.example.managementproject.security.StompPrincipal;
 import org.example.managementproject.service.ChatService;
+import org.example.managementproject.service.ChatWriteBehind;
+import org.example.managementproject.service.UserMessageRelay;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,10 +41,15 @@ import java.util.stream.Collectors;
 public class ChatController {
 
     private final ChatService chatService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatWriteBehind writeBehind;
+    private final UserMessageRelay messageRelay;
 
+    /** The sender is whoever authenticated the session; a different id in the payload is refused. */
     @MessageMapping("/chat")
-    public void processMessage(@Payload ChatMessage chatMessage) {
+    public void processMessage(@Payload ChatMessage chatMessage, Principal principal) {
+        Long claimedSender = chatMessage.getSender() != null ? chatMessage.getSender().getId() : null;
+        chatMessage.setSender(User.builder().id(actingAs(principal, claimedSender)).build());
+
         var chatId = chatService.getChatId(
                 chatMessage.getSender().getId(),
                 chatMessage.getRecipient().getId(),
@@ -38,21 +58,83 @@ public class ChatController {
         
         chatMessage.setChatRoomId(chatId);
         
-        ChatMessageResponse response = chatService.saveMessage(chatMessage);
+        // With write-behind on, the message goes out as soon as it has an id; the insert follows in a batch
+        ChatMessageResponse response = writeBehind.isEnabled()
+                ? chatService.queueMessage(chatMessage)
+                : chatService.saveMessage(chatMessage);
         
         // Notify recipient
-        messagingTemplate.convertAndSendToUser(
+        messageRelay.convertAndSendToUser(
                 String.valueOf(chatMessage.getRecipient().getId()),
                 "/queue/messages",
                 response
         );
     }
 
+    @MessageMapping("/chat.receipt")
+    public void processReceipt(@Payload ChatReceiptRequest receipt, Principal principal) {
+        receipt.setReaderId(actingAs(principal, receipt.getReaderId()));
+
+        ChatReceiptResponse response;
+        if (writeBehind.isEnabled()) {
+            // Queued behind the messages it covers, which may not be inserted yet
+            response = chatService.toReceiptResponse(receipt);
+            writeBehind.submitTask(() -> chatService.applyReceipt(receipt));
+        } else {
+            response = chatService.applyReceipt(receipt);
+        }
+
+        // Tell the original sender how far the recipient has got
+        messageRelay.convertAndSendToUser(
+                String.valueOf(receipt.getSenderId()),
+                "/queue/receipts",
+                response
+        );
+    }
+
+    /** The session's user id; a payload naming someone else is a spoofing attempt. */
+    private static long actingAs(Principal principal, Long claimedId) {
+        long userId = StompPrincipal.of(principal).userId();
+        if (claimedId != null && claimedId != userId) {
+            throw new AccessDeniedException("Cannot act as user " + claimedId);
+        }
+        return userId;
+    }
+
     @GetMapping("/messages/{senderId}/{recipientId}")
     public ResponseEntity<List<ChatMessageResponse>> findChatMessages(
             @PathVariable Long senderId,
-            @PathVariable Long recipientId) {
-        return ResponseEntity.ok(chatService.findChatMessages(senderId, recipientId));
+            @PathVariable Long recipientId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(chatService.findChatMessages(senderId, recipientId, before, limit));
+    }
+
+    @GetMapping("/inbox")
+    public ResponseEntity<Page<ChatInboxEntryResponse>> findInbox(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(chatService.findInbox(page, size));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Page<ChatSearchResultResponse>> searchMessages(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(chatService.searchMessages(q, page, size));
+    }
+
+    /** Reconnect catch-up: only the messages newer than the client's cursors, across all rooms. */
+    @PostMapping("/sync")
+    public ResponseEntity<ChatSyncResponse> sync(@RequestBody ChatSyncRequest request) {
+        return ResponseEntity.ok(chatService.sync(request));
+    }
+
+    /** Ids of the caller's chat counterparts that are online now; later changes arrive on /queue/presence. */
+    @GetMapping("/presence")
+    public ResponseEntity<List<Long>> findOnlineCounterparts() {
+        return ResponseEntity.ok(chatService.findOnlineCounterparts());
     }
 
     @GetMapping("/rooms/{userId}")
@@ -61,6 +61,14 @@ public class UserController {
         return ResponseEntity.ok(userService.toggleVerification(id));
     }
 
+    @PatchMapping("/{id}/active")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserResponse> setActive(
+            @PathVariable Long id,
+            @RequestParam boolean active) {
+        return ResponseEntity.ok(userService.setActive(id, active));
+    }
+
 
     @GetMapping("/{id}/public")
     public ResponseEntity<UserResponse> getPublicProfile(@PathVariable Long id) {
@@ -0,0 +1,25 @@
+package org.example.managementproject.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Sent by a recipient over STOMP: every message from {@code senderId} up to and including
+ * {@code upToId} has been delivered to, or read by, {@code readerId}.
+ */
+@Data
+public class ChatReceiptRequest {
+
+    @NotNull
+    private Long readerId;
+
+    @NotNull
+    private Long senderId;
+
+    @NotNull
+    private Long upToId;
+
+    /** DELIVERED or READ. */
+    @NotNull
+    private String status;
+}
@@ -0,0 +1,19 @@
+package org.example.managementproject.dto.request;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * What a reconnecting client has already seen: the highest message id across all its
+ * conversations, optionally raised per room by {@code rooms} (chat id to last seen id).
+ */
+@Data
+public class ChatSyncRequest {
+
+    private Long after;
+
+    private Map<String, Long> rooms;
+
+    private Integer limit;
+}
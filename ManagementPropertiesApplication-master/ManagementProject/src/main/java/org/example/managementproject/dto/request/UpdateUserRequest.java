@@ -2,6 +2,7 @@ package org.example.managementproject.dto.request;
 
 import jakarta.validation.constraints.Email;
 import lombok.Data;
+import org.example.managementproject.model.NotificationDelivery;
 
 @Data
 public class UpdateUserRequest {
@@ -12,4 +13,6 @@ public class UpdateUserRequest {
     private String email;
 
     private String phone;
+
+    private NotificationDelivery notificationDelivery;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package org.example.managementproject.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ChatInboxEntryResponse {
+    private String chatId;
+    private Long counterpartId;
+    private String counterpartName;
+    private Long lastMessageId;
+    private String lastMessage;
+    private Long lastMessageSenderId;
+    private LocalDateTime lastMessageAt;
+    private long unreadCount;
+}
@@ -0,0 +1,14 @@
+package org.example.managementproject.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** Pushed to the original sender on {@code /queue/receipts}. */
+@Data
+@Builder
+public class ChatReceiptResponse {
+    private String chatRoomId;
+    private Long readerId;
+    private Long upToId;
+    private String status;
+}
@@ -0,0 +1,26 @@
+package org.example.managementproject.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One matching message. {@code snippet} is plain text in which every matched word is
+ * wrapped in {@code highlightStart}/{@code highlightEnd}, so clients can render the
+ * highlight without interpreting the message as HTML.
+ */
+@Data
+@Builder
+public class ChatSearchResultResponse {
+    private Long id;
+    private String chatRoomId;
+    private Long senderId;
+    private String senderName;
+    private Long recipientId;
+    private LocalDateTime timestamp;
+    private String snippet;
+    private String highlightStart;
+    private String highlightEnd;
+    private double rank;
+}
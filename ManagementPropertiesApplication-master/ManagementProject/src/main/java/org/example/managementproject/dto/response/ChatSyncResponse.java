@@ -0,0 +1,18 @@
+package org.example.managementproject.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Missed messages, oldest first. While {@code hasMore} is set, repeat the request with
+ * {@code cursor} as the new {@code after} and the same per-room cursors.
+ */
+@Data
+@Builder
+public class ChatSyncResponse {
+    private List<ChatMessageResponse> messages;
+    private Long cursor;
+    private boolean hasMore;
+}
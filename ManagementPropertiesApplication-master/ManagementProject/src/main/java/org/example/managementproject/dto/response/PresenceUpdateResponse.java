@@ -0,0 +1,14 @@
+package org.example.managementproject.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/** Pushed on {@code /queue/presence}: counterparts that came online or went offline since the last tick. */
+@Data
+@Builder
+public class PresenceUpdateResponse {
+    private List<Long> online;
+    private List<Long> offline;
+}
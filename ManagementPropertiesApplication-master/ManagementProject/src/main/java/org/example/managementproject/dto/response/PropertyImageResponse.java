@@ -0,0 +1,22 @@
+package org.example.managementproject.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One property image at every generated size. Sizes not generated yet are the original,
+ * so clients can always use them; the WebP fields are null when no WebP copy exists.
+ */
+@Data
+@Builder
+public class PropertyImageResponse {
+    private Long id;
+    private boolean main;
+    private String original;
+    private String thumbnail;       // longest edge 320px
+    private String card;            // 800px
+    private String full;            // 1920px
+    private String thumbnailWebp;
+    private String cardWebp;
+    private String fullWebp;
+}
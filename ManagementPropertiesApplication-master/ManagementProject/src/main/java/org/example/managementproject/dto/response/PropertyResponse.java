@@ -23,6 +23,8 @@ public class PropertyResponse {
     private boolean available;
     private String mainImageUrl;
     private List<String> imageUrls;
+    private PropertyImageResponse mainImage;        // the same images at thumbnail, card and full size
+    private List<PropertyImageResponse> images;
     private String agentName;
     private Long agentId;
     private boolean agentVerified;
@@ -16,5 +16,6 @@ public class UserResponse {
     private String role;
     private boolean active;
     private boolean verified;
+    private String notificationDelivery;
     private LocalDateTime createdAt;
 }
\ No newline at end of file
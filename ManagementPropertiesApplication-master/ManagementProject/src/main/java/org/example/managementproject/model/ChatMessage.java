@@ -5,7 +5,11 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages",
+        indexes = {
+                @Index(name = "idx_chat_messages_room_id", columnList = "chat_room_id, id"),
+                @Index(name = "idx_chat_messages_unread", columnList = "recipient_id, chat_room_id, status")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -35,6 +39,8 @@ public class ChatMessage {
     private MessageStatus status;
 
     public enum MessageStatus {
-        RECEIVED, DELIVERED
+        RECEIVED, DELIVERED,
+        /** The recipient has seen the message; everything else counts as unread. */
+        READ
     }
 }
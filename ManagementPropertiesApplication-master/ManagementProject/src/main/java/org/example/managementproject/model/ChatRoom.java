@@ -2,9 +2,23 @@ package org.example.managementproject.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
+/**
+ * One row per conversation, whoever started it: the participants are stored by id order,
+ * so the pair (userLow, userHigh) and the chat id "{low}_{high}" are both unique.
+ * Each side has its own unread counter.
+ */
 @Entity
-@Table(name = "chat_rooms")
+@Table(name = "chat_rooms",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_chat_rooms_chat_id", columnNames = "chat_id"),
+                @UniqueConstraint(name = "uk_chat_rooms_pair", columnNames = {"user_low_id", "user_high_id"})
+        },
+        indexes = {
+                // The pair constraint serves lookups by the lower id; this one by the higher id
+                @Index(name = "idx_chat_rooms_high_low", columnList = "user_high_id, user_low_id")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,10 +32,22 @@ public class ChatRoom {
     private String chatId;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "sender_id")
-    private User sender;
+    @JoinColumn(name = "user_low_id")
+    private User userLow;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "recipient_id")
-    private User recipient;
+    @JoinColumn(name = "user_high_id")
+    private User userHigh;
+
+    /** Incoming messages that {@code userLow} has not read yet. */
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int unreadLow = 0;
+
+    /** Incoming messages that {@code userHigh} has not read yet. */
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int unreadHigh = 0;
 }
@@ -0,0 +1,41 @@
+package org.example.managementproject.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One buffered notification waiting to be folded into a recipient's next
+ * digest email by {@link org.example.managementproject.service.DigestService}.
+ */
+@Entity
+@Table(name = "email_digest_items",
+        indexes = @Index(name = "idx_email_digest_items_recipient", columnList = "recipient, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DigestItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String recipientName;
+
+    @Column(nullable = false)
+    private String category;    // section heading in the digest, e.g. "New booking requests"
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String summary;     // one plain-text line describing the event
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,8 @@
+package org.example.managementproject.model;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,   // claimed by a dispatcher worker until next_attempt_at, then claimable again
+    SENT,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package org.example.managementproject.model;
+
+public enum NotificationDelivery {
+    IMMEDIATE,  // one email per event
+    DIGEST      // buffered and sent as one summary email per digest window
+}
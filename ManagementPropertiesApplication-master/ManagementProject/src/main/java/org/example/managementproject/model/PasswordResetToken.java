@@ -3,11 +3,19 @@ package org.example.managementproject.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.time.LocalDateTime;
 
+/**
+ * The pending password reset of a user. There is at most one per user: a new request
+ * replaces the token of the previous one, and expired or used rows are purged.
+ */
 @Entity
-@Table(name = "password_reset_tokens")
+@Table(name = "password_reset_tokens",
+        uniqueConstraints = @UniqueConstraint(name = "uk_password_reset_tokens_user", columnNames = "user_id"),
+        indexes = @Index(name = "idx_password_reset_tokens_expiry", columnList = "expiry_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,7 +30,9 @@ public class PasswordResetToken {
     private String token;
 
     @ManyToOne(fetch = FetchType.EAGER)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_password_reset_tokens_user"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private User user;
 
     @Column(nullable = false)
@@ -30,4 +30,23 @@ public class PropertyImage {
     @Column(nullable = false)
     @Builder.Default
     private boolean isMain = false;
+
+    // Resized copies written by ImageVariantService after the upload commits; null until then
+    private String thumbnailUrl;
+    private String cardUrl;
+    private String fullUrl;
+
+    // The same sizes as WebP, when an ImageIO WebP writer is installed
+    private String thumbnailWebpUrl;
+    private String cardWebpUrl;
+    private String fullWebpUrl;
+
+    /** Every generated file of this image, for deleting them with the original. */
+    public List<String> variantUrls() {
+        List<String> urls = new ArrayList<>();
+        for (String url : new String[]{thumbnailUrl, cardUrl, fullUrl, thumbnailWebpUrl, cardWebpUrl, fullWebpUrl}) {
+            if (url != null && !url.equals(imageUrl)) urls.add(url);
+        }
+        return urls;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package org.example.managementproject.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the access-token revocation list: either a single token by its id
+ * ({@code jti}), or every token of a user below {@code minVersion}. Rows are only needed
+ * until the tokens they cover would have expired anyway.
+ */
+@Entity
+@Table(name = "token_revocations",
+        indexes = @Index(name = "idx_token_revocations_expires_at", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 36)
+    private String tokenId;
+
+    private Long userId;
+
+    private Integer minVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
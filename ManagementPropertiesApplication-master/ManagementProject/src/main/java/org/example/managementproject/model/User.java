@@ -2,6 +2,7 @@ package org.example.managementproject.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -46,6 +47,20 @@ public class User implements UserDetails {
     @Builder.Default
     private boolean verified = false;
 
+    /**
+     * Carried in every access token; raising it (role or email change, deactivation,
+     * password reset) revokes the tokens issued before.
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @Builder.Default
+    private int tokenVersion = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    @Builder.Default
+    private NotificationDelivery notificationDelivery = NotificationDelivery.IMMEDIATE;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "role_id", nullable = false)
     private Role role;
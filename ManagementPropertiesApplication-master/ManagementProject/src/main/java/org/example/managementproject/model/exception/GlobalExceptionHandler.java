@@ -1,12 +1,15 @@
 package org.example.managementproject.model.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,6 +22,12 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.NOT_FOUND, ex.getMessage());
     }
 
+    // A deleted upload, or a path nothing is mapped to
+    @ExceptionHandler(NoResourceFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNoResource(NoResourceFoundException ex) {
+        return build(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
         return build(HttpStatus.FORBIDDEN, ex.getMessage());
@@ -34,6 +43,16 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        return retryLater(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), ex.getRetryAfter());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex) {
+        return retryLater(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex.getRetryAfter());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidation(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -46,6 +65,10 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(org.springframework.security.core.AuthenticationException.class)
     public ResponseEntity<ErrorResponse> handleAuthError(org.springframework.security.core.AuthenticationException ex) {
+        // Refresh failures say so; login failures stay vague
+        if (ex instanceof org.springframework.security.authentication.CredentialsExpiredException) {
+            return build(HttpStatus.UNAUTHORIZED, ex.getMessage());
+        }
         return build(HttpStatus.UNAUTHORIZED, "Invalid email or password");
     }
 
@@ -55,6 +78,17 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.INTERNAL_SERVER_ERROR, "Server Error: " + ex.getMessage());
     }
 
+    private ResponseEntity<ErrorResponse> retryLater(HttpStatus status, String message, Duration retryAfter) {
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(retryAfter)))
+                .body(new ErrorResponse(status.value(), message, LocalDateTime.now(), null));
+    }
+
+    // Retry-After is in whole seconds, rounded up so clients never come back too early
+    public static long retryAfterSeconds(Duration retryAfter) {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+
     private ResponseEntity<ErrorResponse> build(HttpStatus status, String message) {
         return build(status, message, null);
     }
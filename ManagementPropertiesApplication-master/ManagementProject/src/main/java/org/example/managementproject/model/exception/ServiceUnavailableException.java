@@ -0,0 +1,16 @@
+package org.example.managementproject.model.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/** The server is shedding load; answered with 503 and {@code Retry-After}. */
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message, null, false, false);   // refused requests are routine; no stack trace to fill
+        this.retryAfter = retryAfter;
+    }
+}
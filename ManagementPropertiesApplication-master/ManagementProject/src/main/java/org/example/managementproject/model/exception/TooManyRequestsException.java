@@ -0,0 +1,16 @@
+package org.example.managementproject.model.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/** The caller exceeded a rate limit; answered with 429 and {@code Retry-After}. */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message, null, false, false);   // refused requests are routine; no stack trace to fill
+        this.retryAfter = retryAfter;
+    }
+}
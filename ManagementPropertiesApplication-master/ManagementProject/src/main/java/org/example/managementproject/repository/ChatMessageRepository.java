@@ -1,9 +1,137 @@
 package org.example.managementproject.repository;
 
 import org.example.managementproject.model.ChatMessage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    List<ChatMessage> findByChatRoomIdOrderByTimestampAsc(String chatRoomId);
+
+    String HISTORY_SELECT = """
+            SELECT m.id AS id, m.chatRoomId AS chatRoomId,
+                   s.id AS senderId, s.firstName AS senderFirstName, s.lastName AS senderLastName,
+                   m.recipient.id AS recipientId, m.content AS content,
+                   m.timestamp AS timestamp, m.status AS status
+            FROM ChatMessage m JOIN m.sender s
+            """;
+
+    // Newest page first; both walk idx_chat_messages_room_id backwards and stop after `page` rows
+    @Query(HISTORY_SELECT + "WHERE m.chatRoomId = :chatRoomId ORDER BY m.id DESC")
+    List<MessageView> findLatest(@Param("chatRoomId") String chatRoomId, Pageable page);
+
+    @Query(HISTORY_SELECT + "WHERE m.chatRoomId = :chatRoomId AND m.id < :before ORDER BY m.id DESC")
+    List<MessageView> findBefore(@Param("chatRoomId") String chatRoomId, @Param("before") Long before, Pageable page);
+
+    /**
+     * Catch-up after a reconnect: messages newer than the client's watermark across every
+     * conversation of {@code userId}, oldest first. {@code cursors} is a JSON object of
+     * per-room watermarks ({@code {"3_7": 120}}) that raise {@code after} for those rooms.
+     * Each room is one forward range probe on idx_chat_messages_room_id, so the cost follows
+     * the number of rooms and missed messages rather than the size of the history.
+     */
+    @Query(value = """
+            SELECT m.id            AS "id",
+                   m.chat_room_id  AS "chatRoomId",
+                   m.sender_id     AS "senderId",
+                   s.first_name    AS "senderFirstName",
+                   s.last_name     AS "senderLastName",
+                   m.recipient_id  AS "recipientId",
+                   m.content       AS "content",
+                   m.timestamp     AS "timestamp",
+                   m.status        AS "status"
+            FROM chat_rooms r
+            LEFT JOIN jsonb_each_text(CAST(:cursors AS JSONB)) c(chat_id, after_id) ON c.chat_id = r.chat_id
+            JOIN LATERAL (
+                SELECT * FROM chat_messages x
+                WHERE x.chat_room_id = r.chat_id
+                  AND x.id > GREATEST(:after, COALESCE(CAST(c.after_id AS BIGINT), 0))
+                ORDER BY x.id
+                LIMIT :limit
+            ) m ON TRUE
+            JOIN users s ON s.id = m.sender_id
+            WHERE r.user_low_id = :userId OR r.user_high_id = :userId
+            ORDER BY m.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<MessageView> findSince(@Param("userId") Long userId, @Param("after") long after,
+                                @Param("cursors") String cursors, @Param("limit") int limit);
+
+    /**
+     * Full-text search over the messages {@code userId} sent or received, best match first.
+     * Matching uses the GIN index on {@code content_tsv}; {@code ts_headline} only runs for
+     * the rows of the requested page. {@code highlight} holds ts_headline options such as the
+     * markers placed around matched words.
+     */
+    @Query(value = """
+            SELECT m.id            AS "id",
+                   m.chat_room_id  AS "chatRoomId",
+                   m.sender_id     AS "senderId",
+                   s.first_name    AS "senderFirstName",
+                   s.last_name     AS "senderLastName",
+                   m.recipient_id  AS "recipientId",
+                   m.timestamp     AS "timestamp",
+                   ts_headline('simple', m.content, q.query, :highlight) AS "snippet",
+                   CAST(ts_rank_cd(m.content_tsv, q.query) AS DOUBLE PRECISION) AS "rank"
+            FROM chat_messages m
+            CROSS JOIN websearch_to_tsquery('simple', :q) AS q(query)
+            JOIN users s ON s.id = m.sender_id
+            WHERE m.content_tsv @@ q.query
+              AND (m.sender_id = :userId OR m.recipient_id = :userId)
+            ORDER BY "rank" DESC, m.id DESC
+            """,
+            countQuery = """
+            SELECT COUNT(*) FROM chat_messages m
+            WHERE m.content_tsv @@ websearch_to_tsquery('simple', :q)
+              AND (m.sender_id = :userId OR m.recipient_id = :userId)
+            """,
+            nativeQuery = true)
+    Page<SearchHit> search(@Param("userId") Long userId, @Param("q") String q,
+                           @Param("highlight") String highlight, Pageable page);
+
+    /**
+     * Moves every incoming message of the room up to {@code upToId} that is still in one of
+     * the {@code from} states to {@code status} — a single range update per receipt.
+     *
+     * @return number of messages whose status changed
+     */
+    @Modifying
+    @Query("""
+            UPDATE ChatMessage m SET m.status = :status
+            WHERE m.chatRoomId = :chatRoomId AND m.recipient.id = :recipientId
+              AND m.id <= :upToId AND m.status IN :from""")
+    int advanceStatus(@Param("chatRoomId") String chatRoomId, @Param("recipientId") Long recipientId,
+                      @Param("upToId") Long upToId, @Param("status") ChatMessage.MessageStatus status,
+                      @Param("from") Collection<ChatMessage.MessageStatus> from);
+
+    /** Flat history row — the sender's name comes from the join, no User entities are loaded. */
+    interface MessageView {
+        Long getId();
+        String getChatRoomId();
+        Long getSenderId();
+        String getSenderFirstName();
+        String getSenderLastName();
+        Long getRecipientId();
+        String getContent();
+        LocalDateTime getTimestamp();
+        ChatMessage.MessageStatus getStatus();
+    }
+
+    interface SearchHit {
+        Long getId();
+        String getChatRoomId();
+        Long getSenderId();
+        String getSenderFirstName();
+        String getSenderLastName();
+        Long getRecipientId();
+        LocalDateTime getTimestamp();
+        String getSnippet();
+        Double getRank();
+    }
 }
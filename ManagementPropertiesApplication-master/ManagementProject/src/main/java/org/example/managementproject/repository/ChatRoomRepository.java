@@ -1,12 +1,116 @@
 package org.example.managementproject.repository;
 
 import org.example.managementproject.model.ChatRoom;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
-    Optional<ChatRoom> findBySenderIdAndRecipientId(Long senderId, Long recipientId);
-    List<ChatRoom> findBySenderIdOrRecipientId(Long senderId, Long recipientId);
-    List<ChatRoom> findBySenderId(Long senderId);
+
+    boolean existsByChatId(String chatId);
+
+    /**
+     * Creates the conversation unless it exists. Concurrent first messages from both sides
+     * race on the unique chat id, and the loser's insert is a no-op instead of a second row.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO chat_rooms (chat_id, user_low_id, user_high_id, unread_low, unread_high)
+            VALUES (:chatId, :userLow, :userHigh, 0, 0)
+            ON CONFLICT (chat_id) DO NOTHING""", nativeQuery = true)
+    int upsert(@Param("chatId") String chatId, @Param("userLow") Long userLow, @Param("userHigh") Long userHigh);
+
+    @Query("""
+            SELECT r FROM ChatRoom r JOIN FETCH r.userLow JOIN FETCH r.userHigh
+            WHERE r.userLow.id = :userId OR r.userHigh.id = :userId""")
+    List<ChatRoom> findByParticipant(@Param("userId") Long userId);
+
+    /**
+     * One row per conversation of {@code userId}: the counterpart, the latest message
+     * (one backwards index probe per room) and the caller's side of the unread counters.
+     * Most recently active conversations come first. The two participant indexes are
+     * combined with a bitmap OR. Aliases are quoted so PostgreSQL keeps their case for the
+     * projection.
+     */
+    @Query(value = """
+            SELECT r.chat_id            AS "chatId",
+                   u.id                 AS "counterpartId",
+                   u.first_name         AS "counterpartFirstName",
+                   u.last_name          AS "counterpartLastName",
+                   lm.id                AS "lastMessageId",
+                   LEFT(lm.content, 120) AS "lastMessage",
+                   lm.sender_id         AS "lastMessageSenderId",
+                   lm.timestamp         AS "lastMessageAt",
+                   CAST(CASE WHEN r.user_low_id = :userId THEN r.unread_low ELSE r.unread_high END AS BIGINT)
+                                        AS "unreadCount"
+            FROM chat_rooms r
+            JOIN users u ON u.id = CASE WHEN r.user_low_id = :userId THEN r.user_high_id ELSE r.user_low_id END
+            LEFT JOIN LATERAL (
+                SELECT m.id, m.content, m.sender_id, m.timestamp
+                FROM chat_messages m
+                WHERE m.chat_room_id = r.chat_id
+                ORDER BY m.id DESC
+                LIMIT 1
+            ) lm ON TRUE
+            WHERE r.user_low_id = :userId OR r.user_high_id = :userId
+            ORDER BY lm.id DESC NULLS LAST, r.id DESC
+            """,
+            countQuery = "SELECT COUNT(*) FROM chat_rooms r WHERE r.user_low_id = :userId OR r.user_high_id = :userId",
+            nativeQuery = true)
+    Page<InboxRow> findInbox(@Param("userId") Long userId, Pageable pageable);
+
+    // Each participant's unread counter lives on their side of the single row
+    @Modifying
+    @Query("""
+            UPDATE ChatRoom r
+            SET r.unreadLow  = CASE WHEN r.userLow.id  = :ownerId THEN r.unreadLow + 1  ELSE r.unreadLow END,
+                r.unreadHigh = CASE WHEN r.userHigh.id = :ownerId THEN r.unreadHigh + 1 ELSE r.unreadHigh END
+            WHERE r.chatId = :chatId""")
+    int incrementUnread(@Param("chatId") String chatId, @Param("ownerId") Long ownerId);
+
+    @Modifying
+    @Query("""
+            UPDATE ChatRoom r
+            SET r.unreadLow  = CASE WHEN r.userLow.id <> :ownerId THEN r.unreadLow
+                                    WHEN r.unreadLow > :count THEN r.unreadLow - :count ELSE 0 END,
+                r.unreadHigh = CASE WHEN r.userHigh.id <> :ownerId THEN r.unreadHigh
+                                    WHEN r.unreadHigh > :count THEN r.unreadHigh - :count ELSE 0 END
+            WHERE r.chatId = :chatId""")
+    int decrementUnread(@Param("chatId") String chatId, @Param("ownerId") Long ownerId, @Param("count") int count);
+
+    /** Who has a conversation with each of {@code userIds} — the audience for their presence changes. */
+    @Query(value = """
+            SELECT r.user_low_id AS "userId", r.user_high_id AS "counterpartId"
+            FROM chat_rooms r WHERE r.user_low_id IN (:userIds)
+            UNION
+            SELECT r.user_high_id, r.user_low_id
+            FROM chat_rooms r WHERE r.user_high_id IN (:userIds)
+            """, nativeQuery = true)
+    List<CounterpartRow> findCounterparts(@Param("userIds") Collection<Long> userIds);
+
+    interface InboxRow {
+        String getChatId();
+        Long getCounterpartId();
+        String getCounterpartFirstName();
+        String getCounterpartLastName();
+        Long getLastMessageId();
+        String getLastMessage();
+        Long getLastMessageSenderId();
+        LocalDateTime getLastMessageAt();
+        Long getUnreadCount();
+    }
+
+    interface CounterpartRow {
+        Long getUserId();
+        Long getCounterpartId();
+    }
 }
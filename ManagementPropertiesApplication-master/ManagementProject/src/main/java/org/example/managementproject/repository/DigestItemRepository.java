@@ -0,0 +1,23 @@
+package org.example.managementproject.repository;
+
+import org.example.managementproject.model.DigestItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface DigestItemRepository extends JpaRepository<DigestItem, Long> {
+
+    @Query("SELECT DISTINCT d.recipient FROM DigestItem d")
+    List<String> findRecipients();
+
+    // Locked so two nodes flushing at the same time cannot send the same digest twice
+    @Query(value = """
+            SELECT * FROM email_digest_items
+            WHERE recipient = :recipient
+            ORDER BY id
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<DigestItem> lockByRecipient(@Param("recipient") String recipient);
+}
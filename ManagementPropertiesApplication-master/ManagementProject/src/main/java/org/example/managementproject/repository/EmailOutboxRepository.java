@@ -0,0 +1,33 @@
+package org.example.managementproject.repository;
+
+import org.example.managementproject.model.EmailOutbox;
+import org.example.managementproject.model.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // SKIP LOCKED lets several dispatcher workers (or nodes) drain the outbox
+    // concurrently without ever claiming the same row twice. SENDING rows whose
+    // lease has run out belong to a worker that died mid-batch.
+    @Query(value = """
+            SELECT * FROM email_outbox
+            WHERE status IN ('PENDING', 'SENDING')
+              AND next_attempt_at <= :now
+            ORDER BY priority DESC, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EmailOutbox> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = 'SENT' AND e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,10 +2,34 @@ package org.example.managementproject.repository;
 
 import org.example.managementproject.model.PasswordResetToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
 
     Optional<PasswordResetToken> findByTokenAndUsedFalse(String token);
+
+    // One row per user: a new request overwrites the previous token, even under concurrent requests
+    @Modifying
+    @Query(value = """
+            INSERT INTO password_reset_tokens (user_id, token, expiry_date, used, created_at)
+            VALUES (:userId, :token, :expiryDate, false, :now)
+            ON CONFLICT (user_id) DO UPDATE SET token = EXCLUDED.token,
+                                                expiry_date = EXCLUDED.expiry_date,
+                                                used = false,
+                                                created_at = EXCLUDED.created_at""", nativeQuery = true)
+    void upsert(@Param("userId") Long userId, @Param("token") String token,
+                @Param("expiryDate") LocalDateTime expiryDate, @Param("now") LocalDateTime now);
+
+    // At most `limit` rows, so a large backlog is deleted in short transactions
+    @Modifying
+    @Query(value = """
+            DELETE FROM password_reset_tokens WHERE id IN (
+                SELECT id FROM password_reset_tokens WHERE expiry_date < :now OR used LIMIT :limit)""",
+            nativeQuery = true)
+    int deleteExpiredOrUsed(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
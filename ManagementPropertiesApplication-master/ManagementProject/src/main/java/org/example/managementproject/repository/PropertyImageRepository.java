@@ -2,7 +2,11 @@ package org.example.managementproject.repository;
 
 import org.example.managementproject.model.Property;
 import org.example.managementproject.model.PropertyImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,4 +14,19 @@ import java.util.Optional;
 public interface PropertyImageRepository extends JpaRepository<PropertyImage, Long> {
     List<PropertyImage> findByProperty(Property property);
     Optional<PropertyImage> findByPropertyAndIsMainTrue(Property property);
-}
\ No newline at end of file
+
+    // Images uploaded before variants existed, or whose generation was lost to a restart
+    @Query("SELECT i.id FROM PropertyImage i WHERE i.thumbnailUrl IS NULL ORDER BY i.id")
+    List<Long> findIdsWithoutVariants(Pageable pageable);
+
+    // Returns 0 if the image was deleted while its variants were being generated
+    @Modifying
+    @Query("""
+            UPDATE PropertyImage i SET i.thumbnailUrl = :thumbnail, i.cardUrl = :card, i.fullUrl = :full,
+                   i.thumbnailWebpUrl = :thumbnailWebp, i.cardWebpUrl = :cardWebp, i.fullWebpUrl = :fullWebp
+            WHERE i.id = :id""")
+    int updateVariants(@Param("id") Long id,
+                       @Param("thumbnail") String thumbnail, @Param("card") String card, @Param("full") String full,
+                       @Param("thumbnailWebp") String thumbnailWebp, @Param("cardWebp") String cardWebp,
+                       @Param("fullWebp") String fullWebp);
+}
@@ -0,0 +1,160 @@
+package org.example.managementproject.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.managementproject.config.RateLimitProperties;
+import org.example.managementproject.model.exception.GlobalExceptionHandler;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rate limits and load shedding for {@code /api/**}, run right after
+ * {@link JwtAuthenticationFilter} so callers are known by user id (anonymous ones by
+ * address). Every request takes a permit from the caller's bucket; requests to a
+ * configured route also take one from the caller's bucket for that route. Before that,
+ * a route is refused outright with 503 while the connection pool or the executor it
+ * depends on is saturated, so overload turns into quick refusals of the expensive work
+ * rather than slow answers for everyone.
+ */
+@Component
+public class ApiRateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final LoadShedder loadShedder;
+    private final ObjectMapper objectMapper;
+    private final Duration shedRetryAfter;
+    private final RateLimiter perUser;
+    private final Counter perUserThrottled;
+    private final List<Route> routes;
+
+    public ApiRateLimitFilter(RateLimitProperties properties, LoadShedder loadShedder,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.loadShedder = loadShedder;
+        this.objectMapper = objectMapper;
+        this.shedRetryAfter = properties.getShedding().getRetryAfter();
+        this.perUser = limiter(properties.getPerUser(), properties.getMaxKeys());
+        this.perUserThrottled = meterRegistry.counter("api.throttled", "route", "all");
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new Route(route, limiter(route, properties.getMaxKeys()), meterRegistry))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || !UrlPathHelper.defaultInstance.getPathWithinApplication(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String caller = caller(request);
+        Route route = match(request);
+
+        if (route != null) {
+            // Shed before taking permits, so refused requests don't use up the caller's budget
+            if (route.shed && loadShedder.databaseSaturated()) {
+                route.shedDatabase.increment();
+                refuse(response, HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, try again shortly", shedRetryAfter);
+                return;
+            }
+            if (route.executor != null && loadShedder.executorSaturated(route.executor)) {
+                route.shedExecutor.increment();
+                refuse(response, HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, try again shortly", shedRetryAfter);
+                return;
+            }
+            Duration wait = route.limiter.tryAcquire(caller);
+            if (!wait.isZero()) {
+                route.throttled.increment();
+                refuse(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, try again later", wait);
+                return;
+            }
+        }
+
+        Duration wait = perUser.tryAcquire(caller);
+        if (!wait.isZero()) {
+            perUserThrottled.increment();
+            refuse(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, try again later", wait);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Route match(HttpServletRequest request) {
+        for (Route route : routes) {
+            if (route.matcher.matches(request)) return route;
+        }
+        return null;
+    }
+
+    private static String caller(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && user.id() != null) {
+            return "user:" + user.id();
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private void refuse(HttpServletResponse response, HttpStatus status, String message, Duration retryAfter)
+            throws IOException {
+        refuse(objectMapper, response, status, message, retryAfter);
+    }
+
+    /** Answers with the JSON body {@link GlobalExceptionHandler} would have written, and Retry-After. */
+    static void refuse(ObjectMapper objectMapper, HttpServletResponse response, HttpStatus status,
+                       String message, Duration retryAfter) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(GlobalExceptionHandler.retryAfterSeconds(retryAfter)));
+        objectMapper.writeValue(response.getOutputStream(),
+                new GlobalExceptionHandler.ErrorResponse(status.value(), message, LocalDateTime.now(), null));
+    }
+
+    private static RateLimiter limiter(RateLimitProperties.Limit limit, long maxKeys) {
+        return new RateLimiter(limit.getCapacity(), limit.getPeriod(), maxKeys);
+    }
+
+    private static final class Route {
+        final RequestMatcher matcher;
+        final RateLimiter limiter;
+        final boolean shed;
+        final String executor;
+        final Counter throttled;
+        final Counter shedDatabase;
+        final Counter shedExecutor;
+
+        Route(RateLimitProperties.Route route, RateLimiter limiter, MeterRegistry meterRegistry) {
+            this.matcher = new AntPathRequestMatcher(route.getPattern(), route.getMethod(), true, UrlPathHelper.defaultInstance);
+            this.limiter = limiter;
+            this.shed = route.isShed();
+            this.executor = route.getExecutor();
+            this.throttled = meterRegistry.counter("api.throttled", "route", route.getName());
+            this.shedDatabase = meterRegistry.counter("api.shed", "route", route.getName(), "reason", "database");
+            this.shedExecutor = meterRegistry.counter("api.shed", "route", route.getName(), "reason", "executor");
+        }
+    }
+}
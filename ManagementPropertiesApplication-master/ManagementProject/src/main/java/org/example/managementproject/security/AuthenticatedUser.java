@@ -0,0 +1,42 @@
+package org.example.managementproject.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * The principal of an authenticated REST request: what authorization needs about the
+ * caller, without the {@link org.example.managementproject.model.User} entity behind it.
+ * Named by email, so {@code Authentication.getName()} means the same as before.
+ */
+public record AuthenticatedUser(Long id, String email, String role, boolean verified, boolean active)
+        implements Principal {
+
+    /**
+     * The caller as a verified access token describes them. Tokens are only issued to
+     * active users, and deactivation revokes them, so a token that passes
+     * {@link TokenRevocationList} belongs to an active account.
+     */
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        Number userId = claims.get(JwtService.USER_ID_CLAIM, Number.class);
+        List<?> roles = claims.get(JwtService.ROLES_CLAIM, List.class);
+        return new AuthenticatedUser(
+                userId != null ? userId.longValue() : null,
+                claims.getSubject(),
+                roles != null && !roles.isEmpty() ? String.valueOf(roles.get(0)) : null,
+                Boolean.TRUE.equals(claims.get(JwtService.VERIFIED_CLAIM, Boolean.class)),
+                true);
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return role == null ? List.of() : List.of(new SimpleGrantedAuthority(role));
+    }
+}
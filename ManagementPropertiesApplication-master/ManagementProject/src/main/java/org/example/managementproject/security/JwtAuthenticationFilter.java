@@ -1,5 +1,6 @@
 package org.example.managementproject.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,20 +9,24 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests from the bearer token alone: the token is parsed once (which
+ * also checks signature and expiry), checked against the in-memory
+ * {@link TokenRevocationList}, and its claims become the principal. Nothing on this path
+ * touches the database; logout and account changes take effect through revocation.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final TokenRevocationList revocationList;
 
     @Override
     protected void doFilterInternal(
@@ -37,33 +42,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        final String jwt = authHeader.substring(7);
-        final String userEmail;
+        final Claims claims;
 
         try {
-            userEmail = jwtService.extractUsername(jwt);
+            claims = jwtService.parse(authHeader.substring(7));
         } catch (Exception e) {
-            // Invalid token — let the request continue unauthenticated
+            // Invalid or expired token — let the request continue unauthenticated
             filterChain.doFilter(request, response);
             return;
         }
 
-        // If email found and user not yet authenticated
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+        if (claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && !revocationList.isRevoked(claims)) {
+            AuthenticatedUser principal = AuthenticatedUser.fromClaims(claims);
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities());
-
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,63 @@
 package org.example.managementproject.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.example.managementproject.model.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies access tokens. A token carries everything a request needs to be
+ * authorized — user id, role, verification flag — plus its own id and the user's token
+ * version, which {@link TokenRevocationList} checks. The signing key and parser are built once; every
+ * verification is a single parse that returns all claims, and tokens verified recently
+ * are remembered under their SHA-256 digest so a client's next requests skip the HMAC
+ * check and JSON decoding. A remembered token is still refused once it expires.
+ */
 @Service
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String secretKey;
-
-    @Value("${app.jwt.expiration}")
-    private long jwtExpiration;
+    /** The user's id, so requests can be authenticated without looking the email up. */
+    public static final String USER_ID_CLAIM = "uid";
+    /** {@link User#getTokenVersion()} at issue time. */
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+    public static final String ROLES_CLAIM = "roles";
+    public static final String VERIFIED_CLAIM = "verified";
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long jwtExpiration;
+    private final Cache<ByteBuffer, Claims> verifiedTokens;   // null when disabled
+
+    public JwtService(@Value("${app.jwt.secret}") String secretKey,
+                      @Value("${app.jwt.expiration}") long jwtExpiration,
+                      @Value("${app.jwt.verified-cache.max-size:10000}") long verifiedCacheSize,
+                      @Value("${app.jwt.verified-cache.ttl:5m}") Duration verifiedCacheTtl) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.jwtExpiration = jwtExpiration;
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Caffeine.newBuilder().maximumSize(verifiedCacheSize).expireAfterWrite(verifiedCacheTtl).build()
+                : null;
+    }
 
     // ─── Generate Token ───────────────────────────────────────────────────────
 
@@ -30,53 +66,67 @@ public class JwtService {
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+            claims.put(VERIFIED_CLAIM, user.isVerified());
+        }
         return Jwts.builder()
-                .claims(extraClaims)
+                .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
-                .claim("roles", userDetails.getAuthorities().stream()
+                .claim(ROLES_CLAIM, userDetails.getAuthorities().stream()
                         .map(auth -> auth.getAuthority())
                         .toList())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     // ─── Validate Token ───────────────────────────────────────────────────────
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+    /**
+     * Verifies signature and expiry and returns every claim, in one parse.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    public Claims parse(String token) {
+        if (verifiedTokens == null) return parser.parseSignedClaims(token).getPayload();
+
+        ByteBuffer key = digest(token);
+        Claims claims = verifiedTokens.getIfPresent(key);
+        if (claims != null && claims.getExpiration().getTime() > System.currentTimeMillis()) {
+            return claims;
+        }
+        // Not seen yet, or expired since: the parser decides, and throws for an expired token
+        verifiedTokens.invalidate(key);
+        claims = parser.parseSignedClaims(token).getPayload();
+        verifiedTokens.put(key, claims);
+        return claims;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return parse(token).getSubject().equals(userDetails.getUsername());
     }
 
     // ─── Extract Claims ───────────────────────────────────────────────────────
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return parse(token).getSubject();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        return claimsResolver.apply(extractAllClaims(token));
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return claimsResolver.apply(parse(token));
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /** The cache holds digests rather than the tokens themselves, so a heap dump leaks no credentials. */
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package org.example.managementproject.security;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.managementproject.config.RateLimitProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whether the resources behind the expensive routes can take more work. The connection
+ * pool is sampled on a schedule — threads waiting for a connection, and the mean time
+ * connections took to acquire since the previous sample — so requests only read a
+ * volatile flag. Executor queues are read directly; their size is a single atomic read.
+ */
+@Component
+public class LoadShedder {
+
+    private static final String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ThreadPoolTaskExecutor> executors;
+    private final RateLimitProperties.Shedding settings;
+
+    private volatile boolean databaseSaturated;
+    private long lastAcquireCount;
+    private double lastAcquireNanos;
+
+    public LoadShedder(DataSource dataSource, MeterRegistry meterRegistry,
+                       Map<String, ThreadPoolTaskExecutor> executors, RateLimitProperties properties) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.executors = executors;
+        this.settings = properties.getShedding();
+        Gauge.builder("api.shedding.database", this, shedder -> shedder.databaseSaturated ? 1 : 0)
+                .description("1 while routes that shed on connection pool pressure are refused")
+                .register(meterRegistry);
+    }
+
+    /** True while the last sample found the connection pool saturated. */
+    public boolean databaseSaturated() {
+        return databaseSaturated;
+    }
+
+    /** True while the queue of the named executor is at least {@code max-queue-fill} full. */
+    public boolean executorSaturated(String executorName) {
+        ThreadPoolTaskExecutor executor = executors.get(executorName);
+        if (executor == null) return false;
+        BlockingQueue<Runnable> queue = executor.getThreadPoolExecutor().getQueue();
+        int queued = queue.size();
+        int capacity = queued + queue.remainingCapacity();
+        return capacity > 0 && queued >= capacity * settings.getMaxQueueFill();
+    }
+
+    @Scheduled(fixedRateString = "${app.rate-limit.shedding.sample-interval:250}")
+    public synchronized void sample() {
+        long meanWaitNanos = 0;
+        Timer acquire = meterRegistry.find(ACQUIRE_TIMER).timer();
+        if (acquire != null) {
+            long count = acquire.count();
+            double totalNanos = acquire.totalTime(TimeUnit.NANOSECONDS);
+            if (count > lastAcquireCount) {
+                meanWaitNanos = (long) ((totalNanos - lastAcquireNanos) / (count - lastAcquireCount));
+            }
+            lastAcquireCount = count;
+            lastAcquireNanos = totalNanos;
+        }
+        databaseSaturated = meanWaitNanos > settings.getMaxConnectionWait().toNanos()
+                || pendingConnections() >= settings.getMaxPendingConnections();
+    }
+
+    private int pendingConnections() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) return 0;
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            return pool != null ? pool.getThreadsAwaitingConnection() : 0;   // null until the pool starts
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+}
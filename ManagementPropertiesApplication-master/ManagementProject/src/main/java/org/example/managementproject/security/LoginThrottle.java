@@ -0,0 +1,52 @@
+package org.example.managementproject.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.managementproject.model.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Rate limits for the endpoints that hash passwords. Client addresses bound how fast one
+ * source can guess or register, and are checked by {@link LoginThrottleFilter} before the
+ * request body is read; emails bound how fast any number of sources can guess one account,
+ * and are checked once the body is parsed but before any hashing.
+ */
+@Component
+public class LoginThrottle {
+
+    private final RateLimiter byAddress;
+    private final RateLimiter byEmail;
+    private final Counter addressThrottled;
+    private final Counter emailThrottled;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${app.security.login-rate.per-address:20}") int perAddress,
+                         @Value("${app.security.login-rate.per-email:5}") int perEmail,
+                         @Value("${app.security.login-rate.period:1m}") Duration period,
+                         @Value("${app.security.login-rate.max-keys:100000}") long maxKeys) {
+        this.byAddress = new RateLimiter(perAddress, period, maxKeys);
+        this.byEmail = new RateLimiter(perEmail, period, maxKeys);
+        this.addressThrottled = meterRegistry.counter("auth.login.throttled", "key", "address");
+        this.emailThrottled = meterRegistry.counter("auth.login.throttled", "key", "email");
+    }
+
+    /** A login attempt for {@code email}, from any address. */
+    public void checkLogin(String email) {
+        Duration wait = byEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT));
+        if (!wait.isZero()) {
+            emailThrottled.increment();
+            throw new TooManyRequestsException("Too many sign-in attempts for this account, try again later", wait);
+        }
+    }
+
+    /** A login or registration from {@code address}: zero if allowed, otherwise how long to wait. */
+    public Duration acquireAddress(String address) {
+        Duration wait = byAddress.tryAcquire(address);
+        if (!wait.isZero()) addressThrottled.increment();
+        return wait;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.managementproject.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * The per-address check of {@link LoginThrottle}, registered ahead of every other servlet
+ * filter (see {@code SecurityConfig}) so an address over its budget is refused before
+ * request observation, the security chain, body parsing, validation or an exception
+ * handler run. Spring Security's CORS filter is skipped too, so refusals apply the CORS
+ * configuration themselves and the frontend can still read them. The per-email check
+ * needs the body and stays in {@link org.example.managementproject.service.AuthService#login}.
+ */
+@RequiredArgsConstructor
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    public static final Set<String> PATHS = Set.of("/api/auth/login", "/api/auth/register");
+
+    private final LoginThrottle loginThrottle;
+    private final ObjectMapper objectMapper;
+    private final CorsConfigurationSource corsConfigurationSource;
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !PATHS.contains(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Duration wait = loginThrottle.acquireAddress(request.getRemoteAddr());
+        if (!wait.isZero()) {
+            CorsConfiguration cors = corsConfigurationSource.getCorsConfiguration(request);
+            // false when the origin is not allowed, and the processor has already answered
+            if (cors == null || corsProcessor.processRequest(cors, request, response)) {
+                ApiRateLimitFilter.refuse(objectMapper, response, HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many attempts, try again later", wait);
+            }
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.managementproject.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.managementproject.model.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on the bounded {@code authExecutor} instead of the request thread. However
+ * many logins arrive, only the pool's threads burn CPU on hashing and only pool plus queue
+ * requests wait for it; the rest are refused at once with 503, leaving request threads and
+ * cores for everything else.
+ */
+@Component
+public class PasswordHashing {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Duration timeout;
+    private final Timer hashTimer;
+    private final Counter timedOut;
+
+    public PasswordHashing(@Qualifier("authExecutor") ThreadPoolTaskExecutor executor,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.security.hashing.timeout:5s}") Duration timeout) {
+        this.executor = executor;
+        this.timeout = timeout;
+        this.hashTimer = Timer.builder("auth.password.hash")
+                .description("Time on the auth executor per hashing task")
+                .register(meterRegistry);
+        this.timedOut = meterRegistry.counter("auth.password.timeout");
+    }
+
+    /**
+     * Runs {@code work} (which hashes or verifies a password) on the auth executor and
+     * waits for it. Exceptions it throws, such as a failed authentication, are rethrown as is.
+     *
+     * @throws ServiceUnavailableException if the pool is saturated or the work times out
+     */
+    public <T> T run(Supplier<T> work) {
+        // Set when the caller gives up, so a queued task does not hash for nobody
+        AtomicBoolean abandoned = new AtomicBoolean();
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> abandoned.get() ? null : hashTimer.record(work), executor);
+        } catch (TaskRejectedException e) {
+            throw new ServiceUnavailableException("Sign-in is busy, try again shortly", RETRY_AFTER);
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            abandoned.set(true);
+            timedOut.increment();
+            throw new ServiceUnavailableException("Sign-in is busy, try again shortly", RETRY_AFTER);
+        } catch (InterruptedException e) {
+            abandoned.set(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Sign-in was interrupted", RETRY_AFTER);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.managementproject.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per key — {@code capacity} permits, refilled evenly over {@code period} —
+ * kept as a single {@link AtomicLong} each (the "theoretical arrival time" of the generic
+ * cell rate algorithm), so taking a permit is one compare-and-set and never blocks.
+ * A bucket idle for a whole period is full again, which is when it is evicted; the key
+ * count is bounded so a flood of distinct keys cannot exhaust memory.
+ */
+public final class RateLimiter {
+
+    private final long interval;    // nanos per permit
+    private final long burst;       // nanos of permits a full bucket holds
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(int capacity, Duration period, long maxKeys) {
+        this(capacity, period, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, Duration period, long maxKeys, LongSupplier nanoClock) {
+        this.interval = period.toNanos() / capacity;
+        this.burst = interval * capacity;
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(period)
+                .build();
+    }
+
+    /**
+     * Takes a permit for {@code key} if one is available.
+     *
+     * @return {@link Duration#ZERO} if the call may proceed, otherwise how long until the
+     *         next permit
+     */
+    public Duration tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + interval;
+            long excess = next - now - burst;
+            if (excess > 0) return Duration.ofNanos(excess);
+            if (arrival.compareAndSet(current, next)) return Duration.ZERO;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.managementproject.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.example.managementproject.model.exception.AccessDeniedException;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Authenticates STOMP sessions. The SockJS handshake under {@code /ws/**} cannot carry
+ * an Authorization header from a browser, so the token travels on the CONNECT frame
+ * instead: it is parsed and checked against the {@link TokenRevocationList} exactly once,
+ * and the resulting {@link StompPrincipal} is kept on the session. Later frames are
+ * authorized from that principal alone — no token parsing, no user lookup.
+ *
+ * <p>A rejected frame becomes a STOMP ERROR and, for CONNECT, closes the session.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final String USER_PREFIX = "/user/";
+    private static final String APP_PREFIX = "/app/";
+
+    private final JwtService jwtService;
+    private final TokenRevocationList revocationList;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) return message;   // heartbeats
+
+        switch (accessor.getCommand()) {
+            // Setting the user on the mutable CONNECT headers binds it to the session
+            case CONNECT, STOMP -> accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+            case SUBSCRIBE -> authorizeSubscription(accessor.getUser(), accessor.getDestination());
+            case SEND -> authorizeSend(accessor.getUser(), accessor.getDestination());
+            default -> { }
+        }
+        return message;
+    }
+
+    StompPrincipal authenticate(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new BadCredentialsException("CONNECT requires a bearer token");
+        }
+        Claims claims;
+        try {
+            // One parse checks the signature and the expiry
+            claims = jwtService.parse(authHeader.substring(7));
+        } catch (RuntimeException e) {
+            throw new BadCredentialsException("Invalid or expired token");
+        }
+        if (revocationList.isRevoked(claims)) {
+            throw new BadCredentialsException("Token has been revoked");
+        }
+        return new StompPrincipal(claims.get(JwtService.USER_ID_CLAIM, Number.class).longValue(), claims.getSubject());
+    }
+
+    /** Users may only listen on their own queues: {@code /user/{ownId}/...}. */
+    void authorizeSubscription(Principal user, String destination) {
+        StompPrincipal principal = StompPrincipal.of(user);
+        if (destination != null && destination.startsWith(USER_PREFIX + principal.getName() + "/")) {
+            return;
+        }
+        throw new AccessDeniedException("Cannot subscribe to " + destination);
+    }
+
+    /**
+     * Frames may only be sent to the application ({@code /app/...}), where the controllers
+     * check who is sending; a frame sent straight to a broker destination such as
+     * {@code /user/{id}/queue/messages} would reach that user with any sender on it.
+     */
+    void authorizeSend(Principal user, String destination) {
+        StompPrincipal.of(user);
+        if (destination != null && destination.startsWith(APP_PREFIX)) {
+            return;
+        }
+        throw new AccessDeniedException("Cannot send to " + destination);
+    }
+}
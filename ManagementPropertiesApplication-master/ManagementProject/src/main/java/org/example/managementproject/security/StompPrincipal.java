@@ -0,0 +1,26 @@
+package org.example.managementproject.security;
+
+import org.example.managementproject.model.exception.AccessDeniedException;
+
+import java.security.Principal;
+
+/**
+ * The user behind a STOMP session, resolved once from the bearer token on CONNECT and
+ * attached by Spring to every later frame of that session.
+ *
+ * <p>Named by user id, so user destinations ({@code /user/{id}/queue/...}) and
+ * {@code convertAndSendToUser(String.valueOf(id), ...)} line up with it.
+ */
+public record StompPrincipal(long userId, String email) implements Principal {
+
+    @Override
+    public String getName() {
+        return String.valueOf(userId);
+    }
+
+    /** The session's principal; frames only get this far after an authenticated CONNECT. */
+    public static StompPrincipal of(Principal principal) {
+        if (principal instanceof StompPrincipal stompPrincipal) return stompPrincipal;
+        throw new AccessDeniedException("STOMP session is not authenticated");
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.managementproject.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.managementproject.model.TokenRevocation;
+import org.example.managementproject.model.User;
+import org.example.managementproject.repository.TokenRevocationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access tokens that must stop working before they expire, checked on every request
+ * without a query. Two kinds of entry exist: one token by its id ({@code jti}, on logout),
+ * and all of a user's tokens below a {@link User#getTokenVersion() token version} (role or
+ * email change, deactivation, password reset, deletion).
+ *
+ * <p>Entries are rows in {@code token_revocations}, so every node sees them and they
+ * survive restarts; each node reloads the live rows every
+ * {@code app.jwt.revocation.refresh-interval} and applies its own revocations as soon as
+ * they commit. In memory a Bloom filter sits in front of the exact sets: almost every
+ * request is answered by a few bit probes, and only filter hits consult the sets. An
+ * entry is kept for one access-token lifetime, after which every token it covers has
+ * expired, so the list stays as small as the logout and role-change rate.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long USER_SALT = 0x9E3779B97F4A7C15L;
+    // Entries outlive the tokens they cover by this much, for clock drift between nodes
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    private final TokenRevocationRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration entryLifetime;
+    private final int expectedEntries;
+    private final Counter falsePositives;
+
+    private volatile Snapshot snapshot;
+
+    public TokenRevocationList(TokenRevocationRepository repository,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.jwt.expiration}") long accessTokenTtl,
+                               @Value("${app.jwt.revocation.expected-entries:10000}") int expectedEntries) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.entryLifetime = Duration.ofMillis(accessTokenTtl).plus(CLOCK_SKEW);
+        this.expectedEntries = expectedEntries;
+        this.snapshot = new Snapshot(expectedEntries);
+        this.falsePositives = meterRegistry.counter("auth.revocations.bloom.false-positives");
+        meterRegistry.gauge("auth.revocations", this, list -> list.snapshot.size());
+    }
+
+    // ─── Checking ─────────────────────────────────────────────────────────────
+
+    /**
+     * Whether a verified token may no longer be used. Tokens without a user id or version
+     * predate revocation and count as revoked: their holders sign in again.
+     */
+    public boolean isRevoked(Claims claims) {
+        Number userId = claims.get(JwtService.USER_ID_CLAIM, Number.class);
+        Number version = claims.get(JwtService.TOKEN_VERSION_CLAIM, Number.class);
+        if (userId == null || version == null) return true;
+        return isRevoked(userId.longValue(), version.intValue(), claims.getId());
+    }
+
+    boolean isRevoked(long userId, int tokenVersion, String tokenId) {
+        Snapshot current = snapshot;
+        long h1 = BloomFilter.mix(userId ^ USER_SALT);
+        if (current.bloom.mightContain(h1, BloomFilter.mix(h1))) {
+            Integer minVersion = current.users.get(userId);
+            if (minVersion == null) falsePositives.increment();
+            else if (tokenVersion < minVersion) return true;
+        }
+        UUID id = parseTokenId(tokenId);
+        if (id != null && current.bloom.mightContain(tokenHash1(id), tokenHash2(id))) {
+            if (current.tokens.contains(tokenId)) return true;
+            falsePositives.increment();
+        }
+        return false;
+    }
+
+    // ─── Revoking ─────────────────────────────────────────────────────────────
+
+    /** Revokes one access token, typically on logout. Joins the caller's transaction. */
+    public void revokeToken(Claims claims) {
+        if (claims.getId() == null) return;
+        repository.save(TokenRevocation.builder()
+                .tokenId(claims.getId())
+                .expiresAt(LocalDateTime.now().plus(entryLifetime))
+                .build());
+        afterCommit(() -> snapshot.addToken(claims.getId()));
+    }
+
+    /**
+     * Raises the user's token version and revokes every access token issued under the old
+     * one. The caller saves the user in the same transaction.
+     */
+    public void revokeAccessTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        revokeUser(user.getId(), user.getTokenVersion());
+    }
+
+    /** Revokes the user's access tokens below {@code minVersion}; {@code Integer.MAX_VALUE} revokes all. */
+    public void revokeUser(Long userId, int minVersion) {
+        repository.save(TokenRevocation.builder()
+                .userId(userId)
+                .minVersion(minVersion)
+                .expiresAt(LocalDateTime.now().plus(entryLifetime))
+                .build());
+        afterCommit(() -> snapshot.addUser(userId, minVersion));
+    }
+
+    // ─── Synchronizing ────────────────────────────────────────────────────────
+
+    /** Picks up revocations made on other nodes, and drops expired entries from memory. */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-interval:2000}")
+    public void reload() {
+        List<TokenRevocation> live = repository.findByExpiresAtAfter(LocalDateTime.now());
+        Snapshot next = new Snapshot(Math.max(expectedEntries, live.size() * 2));
+        for (TokenRevocation entry : live) {
+            if (entry.getTokenId() != null) next.addToken(entry.getTokenId());
+            if (entry.getUserId() != null && entry.getMinVersion() != null) {
+                next.addUser(entry.getUserId(), entry.getMinVersion());
+            }
+        }
+        snapshot = next;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval:60000}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (purged != null && purged > 0) log.debug("Purged {} expired token revocations", purged);
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────────────────────
+
+    // A rolled-back revocation must not lock anyone out on this node either
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static UUID parseTokenId(String tokenId) {
+        if (tokenId == null) return null;
+        try {
+            return UUID.fromString(tokenId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long tokenHash1(UUID id) {
+        return BloomFilter.mix(id.getMostSignificantBits());
+    }
+
+    private static long tokenHash2(UUID id) {
+        return BloomFilter.mix(id.getLeastSignificantBits());
+    }
+
+    /** Exact sets plus their filter; replaced wholesale on reload, added to in place. */
+    private static final class Snapshot {
+
+        final BloomFilter bloom;
+        final Set<String> tokens = ConcurrentHashMap.newKeySet();
+        final Map<Long, Integer> users = new ConcurrentHashMap<>();
+
+        Snapshot(int capacity) {
+            this.bloom = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        }
+
+        // The exact set is written first, so a filter hit always finds its entry
+        void addToken(String tokenId) {
+            UUID id = parseTokenId(tokenId);
+            if (id == null) return;
+            tokens.add(tokenId);
+            bloom.put(tokenHash1(id), tokenHash2(id));
+        }
+
+        void addUser(long userId, int minVersion) {
+            users.merge(userId, minVersion, Math::max);
+            long h1 = BloomFilter.mix(userId ^ USER_SALT);
+            bloom.put(h1, BloomFilter.mix(h1));
+        }
+
+        int size() {
+            return tokens.size() + users.size();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.managementproject.service;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.managementproject.dto.request.LoginRequest;
 import org.example.managementproject.dto.request.RegisterRequest;
 import org.example.managementproject.dto.response.AuthResponse;
@@ -11,16 +13,22 @@ import org.example.managementproject.repository.PasswordResetTokenRepository;
 import org.example.managementproject.repository.RoleRepository;
 import org.example.managementproject.repository.UserRepository;
 import org.example.managementproject.security.JwtService;
+import org.example.managementproject.security.LoginThrottle;
+import org.example.managementproject.security.PasswordHashing;
+import org.example.managementproject.security.TokenRevocationList;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -32,11 +40,21 @@ public class AuthService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList revocationList;
+    private final LoginThrottle loginThrottle;
+    private final PasswordHashing passwordHashing;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.frontend.url:http://localhost:3000}")
     private String frontendUrl;
 
-    @Transactional
+    @Value("${app.password-reset.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    // Not one transaction: the hash waits for the auth executor, and holding a pooled
+    // connection meanwhile would let a registration burst drain the pool. The unique
+    // email constraint still stops duplicates.
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new IllegalArgumentException("Email already registered: " + request.getEmail());
@@ -46,56 +64,79 @@ public class AuthService {
         Role role = roleRepository.findByName(roleName)
                 .orElseThrow(() -> new IllegalArgumentException("Role not found: " + roleName));
 
+        String passwordHash = passwordHashing.run(() -> passwordEncoder.encode(request.getPassword()));
         User user = User.builder()
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHash)
                 .role(role)
                 .active(true)
                 .build();
 
         userRepository.save(user);
 
-        String token = jwtService.generateToken(user);
-        return buildAuthResponse(user, token);
+        return issueTokens(user);
     }
 
+    /**
+     * Rate limits are checked before any hashing (per address already in
+     * {@link org.example.managementproject.security.LoginThrottleFilter}), and the BCrypt
+     * comparison runs on the bounded auth executor, so a credential-stuffing burst is
+     * refused cheaply instead of occupying request threads.
+     */
     public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+        loginThrottle.checkLogin(request.getEmail());
+        passwordHashing.run(() -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())));
 
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        String token = jwtService.generateToken(user);
-        return buildAuthResponse(user, token);
+        return issueTokens(user);
     }
+
     public boolean validateToken(String token) {
         try {
-            String username = jwtService.extractUsername(token);
-            User user = userRepository.findByEmail(username)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
-            return jwtService.isTokenValid(token, user);
+            return !revocationList.isRevoked(jwtService.parse(token));
         } catch (Exception e) {
             return false;
         }
     }
 
+    // ─── Refresh & Logout ────────────────────────────────────────────────────
+
+    /** A fresh access token, and the refresh token that replaces the one presented. */
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = rotation.user();
+        return buildAuthResponse(user, jwtService.generateToken(user), rotation.refreshToken());
+    }
+
+    /** Ends the refresh token's session and revokes the access token it was used with. */
+    @Transactional
+    public void logout(String refreshToken, String accessToken) {
+        if (refreshToken != null) refreshTokenService.revoke(refreshToken);
+        if (accessToken != null) {
+            try {
+                Claims claims = jwtService.parse(accessToken);
+                revocationList.revokeToken(claims);
+            } catch (Exception e) {
+                log.debug("Logout with an invalid or expired access token: {}", e.getMessage());
+            }
+        }
+    }
+
     // ─── Password Reset ──────────────────────────────────────────────────────
 
     @Transactional
     public void forgotPassword(String email) {
         userRepository.findByEmail(email).ifPresent(user -> {
             String token = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
 
-            PasswordResetToken resetToken = PasswordResetToken.builder()
-                    .token(token)
-                    .user(user)
-                    .expiryDate(LocalDateTime.now().plusMinutes(30))
-                    .build();
-
-            resetTokenRepository.save(resetToken);
+            // Replaces any earlier token, so only the newest link works
+            resetTokenRepository.upsert(user.getId(), token, now.plusMinutes(30), now);
 
             String resetLink = frontendUrl + "/reset-password?token=" + token;
             emailService.sendPasswordResetEmail(user.getEmail(), user.getFirstName(), resetLink);
@@ -103,26 +144,55 @@ public class AuthService {
         // Always return success to prevent email enumeration
     }
 
-    @Transactional
+    // Hashed on the auth executor before the transaction opens, as in register(); the token
+    // is checked first so a bad link costs no hashing, and again once the transaction is open
     public void resetPassword(String token, String newPassword) {
+        usableResetToken(token);
+        String passwordHash = passwordHashing.run(() -> passwordEncoder.encode(newPassword));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            PasswordResetToken resetToken = usableResetToken(token);
+            User user = resetToken.getUser();
+            user.setPassword(passwordHash);
+            // Whoever knew the old password is signed out everywhere
+            revocationList.revokeAccessTokens(user);
+            refreshTokenService.revokeAll(user.getId());
+            userRepository.save(user);
+
+            resetToken.setUsed(true);
+            resetTokenRepository.save(resetToken);
+        });
+    }
+
+    private PasswordResetToken usableResetToken(String token) {
         PasswordResetToken resetToken = resetTokenRepository.findByTokenAndUsedFalse(token)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid or expired reset token"));
-
         if (resetToken.isExpired()) {
             throw new IllegalArgumentException("Reset token has expired. Please request a new one.");
         }
+        return resetToken;
+    }
 
-        User user = resetToken.getUser();
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+    @Scheduled(cron = "${app.password-reset.purge-cron:0 45 * * * *}")
+    public void purgeResetTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> resetTokenRepository.deleteExpiredOrUsed(now, purgeBatchSize));
+            purged += chunk;
+        } while (chunk == purgeBatchSize);
+        log.info("Purged {} expired or used password reset tokens", purged);
+    }
 
-        resetToken.setUsed(true);
-        resetTokenRepository.save(resetToken);
+    private AuthResponse issueTokens(User user) {
+        return buildAuthResponse(user, jwtService.generateToken(user), refreshTokenService.issue(user));
     }
 
-    private AuthResponse buildAuthResponse(User user, String token) {
+    private AuthResponse buildAuthResponse(User user, String token, String refreshToken) {
         return AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshToken)
                 .type("Bearer")
                 .userId(user.getId())
                 .email(user.getEmail())
@@ -14,6 +14,7 @@ import org.example.managementproject.model.PropertyImage;
 import org.example.managementproject.model.User;
 import org.example.managementproject.repository.BookingRepository;
 import org.example.managementproject.repository.PropertyRepository;
+import org.example.managementproject.security.AuthenticatedUser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -65,7 +66,7 @@ public class BookingService {
 
         Booking saved = bookingRepository.save(booking);
         
-        // Refetch with all details (User, Property, Agent) to avoid LazyInitializationException in Async email thread
+        // Refetch with all details (User, Property, Agent) so the emails render without extra lazy loads
         Booking fullBooking = bookingRepository.findWithDetailById(saved.getId())
                 .orElse(saved);
 
@@ -107,7 +108,7 @@ public class BookingService {
         booking.setStatus(BookingStatus.CANCELLED);
         Booking saved = bookingRepository.save(booking);
         
-        // Refetch with all details to avoid LazyInitializationException in Async email thread
+        // Refetch with all details so the email renders without extra lazy loads
         Booking fullBooking = bookingRepository.findWithDetailById(saved.getId()).orElse(saved);
         emailService.sendBookingCancelled(fullBooking);
         return toResponse(saved);
@@ -120,7 +121,7 @@ public class BookingService {
         booking.setStatus(BookingStatus.CONFIRMED);
         Booking saved = bookingRepository.save(booking);
 
-        // Refetch with all details to avoid LazyInitializationException in Async email thread
+        // Refetch with all details so the email renders without extra lazy loads
         Booking fullBooking = bookingRepository.findWithDetailById(saved.getId()).orElse(saved);
         emailService.sendBookingConfirmed(fullBooking);
         return toResponse(saved);
@@ -128,9 +129,8 @@ public class BookingService {
 
     @Transactional(readOnly = true)
     public Page<BookingResponse> getBookingsForAgent(Pageable pageable) {
-        User currentUser = userService.getAuthenticatedUser();
         return bookingRepository
-                .findByAgentId(currentUser.getId(), pageable)
+                .findByAgentId(userService.getAuthenticatedUserId(), pageable)
                 .map(this::toResponse);
     }
 
@@ -141,7 +141,7 @@ public class BookingService {
         booking.setStatus(BookingStatus.REJECTED);
         Booking saved = bookingRepository.save(booking);
 
-        // Refetch with all details to avoid LazyInitializationException in Async email thread
+        // Refetch with all details so the email renders without extra lazy loads
         Booking fullBooking = bookingRepository.findWithDetailById(saved.getId()).orElse(saved);
         emailService.sendBookingRejected(fullBooking);
         return toResponse(saved);
@@ -172,18 +172,18 @@ public class BookingService {
     }
 
     private void checkAccessToBooking(Booking booking) {
-        User currentUser = userService.getAuthenticatedUser();
-        boolean isAdmin         = currentUser.getRole().getName().equals("ROLE_ADMIN");
-        boolean isOwner         = booking.getUser().getId().equals(currentUser.getId());
-        boolean isPropertyAgent = booking.getProperty().getAgent().getId().equals(currentUser.getId());
+        AuthenticatedUser currentUser = userService.getAuthenticatedPrincipal();
+        boolean isAdmin         = "ROLE_ADMIN".equals(currentUser.role());
+        boolean isOwner         = booking.getUser().getId().equals(currentUser.id());
+        boolean isPropertyAgent = booking.getProperty().getAgent().getId().equals(currentUser.id());
         if (!isAdmin && !isOwner && !isPropertyAgent)
             throw new AccessDeniedException("Access denied to this booking");
     }
 
     private void checkAgentOrAdminAccess(Booking booking) {
-        User currentUser = userService.getAuthenticatedUser();
-        boolean isAdmin         = currentUser.getRole().getName().equals("ROLE_ADMIN");
-        boolean isPropertyAgent = booking.getProperty().getAgent().getId().equals(currentUser.getId());
+        AuthenticatedUser currentUser = userService.getAuthenticatedPrincipal();
+        boolean isAdmin         = "ROLE_ADMIN".equals(currentUser.role());
+        boolean isPropertyAgent = booking.getProperty().getAgent().getId().equals(currentUser.id());
         if (!isAdmin && !isPropertyAgent)
             throw new AccessDeniedException("Only the property agent or admin can perform this action");
     }
@@ -204,14 +204,19 @@ public class BookingService {
                 .specialRequests(booking.getSpecialRequests())
                 .mainImageUrl(booking.getProperty().getImages().stream()
                         .filter(PropertyImage::isMain)
-                        .map(PropertyImage::getImageUrl)
+                        .map(BookingService::cardImageUrl)
                         .findFirst()
                         .orElseGet(() -> booking.getProperty().getImages().isEmpty() 
                                 ? null 
-                                : booking.getProperty().getImages().get(0).getImageUrl()))
+                                : cardImageUrl(booking.getProperty().getImages().get(0))))
                 .agentId(booking.getProperty().getAgent().getId())
                 .agentName(booking.getProperty().getAgent().getFirstName() + " " + booking.getProperty().getAgent().getLastName())
                 .createdAt(booking.getCreatedAt())
                 .build();
     }
-}
\ No newline at end of file
+
+    // Booking cards show the card-sized copy once it exists
+    private static String cardImageUrl(PropertyImage image) {
+        return image.getCardUrl() != null ? image.getCardUrl() : image.getImageUrl();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.managementproject.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.managementproject.model.exception.ResourceNotFoundException;
+import org.example.managementproject.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Bounded in-memory lookups for the STOMP chat path, so a message costs one insert
+ * instead of a chat-room lookup plus two user loads. Display names are evicted on
+ * {@link UserChangedEvent}; the TTL bounds staleness for changes made on other nodes.
+ */
+@Component
+public class ChatLookupCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, String> displayNames;
+    private final Cache<String, Boolean> knownRooms;
+
+    public ChatLookupCache(UserRepository userRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.chat.cache.max-size:10000}") long maxSize,
+                           @Value("${app.chat.cache.ttl:30m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.displayNames = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.knownRooms = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, displayNames, "chat.displayNames");
+        CaffeineCacheMetrics.monitor(meterRegistry, knownRooms, "chat.rooms");
+    }
+
+    /** "First Last" for the user, loading it once per TTL. */
+    public String displayName(Long userId) {
+        return displayNames.get(userId, id -> userRepository.findDisplayNameById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id)));
+    }
+
+    /** Whether the chat rooms for this chat id are known to exist. */
+    public boolean isKnownRoom(String chatId) {
+        return knownRooms.getIfPresent(chatId) != null;
+    }
+
+    public void rememberRoom(String chatId) {
+        knownRooms.put(chatId, Boolean.TRUE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        displayNames.invalidate(event.userId());
+    }
+}
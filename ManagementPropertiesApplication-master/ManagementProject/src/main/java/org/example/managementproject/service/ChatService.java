@@ -1,119 +1,324 @@
 package org.example.managementproject.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.example.managementproject.dto.request.ChatReceiptRequest;
+import org.example.managementproject.dto.request.ChatSyncRequest;
+import org.example.managementproject.dto.response.ChatInboxEntryResponse;
 import org.example.managementproject.dto.response.ChatMessageResponse;
+import org.example.managementproject.dto.response.ChatReceiptResponse;
 import org.example.managementproject.dto.response.ChatRoomResponse;
+import org.example.managementproject.dto.response.ChatSearchResultResponse;
+import org.example.managementproject.dto.response.ChatSyncResponse;
 import org.example.managementproject.model.ChatMessage;
 import org.example.managementproject.model.ChatRoom;
 import org.example.managementproject.model.User;
 import org.example.managementproject.repository.ChatMessageRepository;
+import org.example.managementproject.repository.ChatMessageRepository.MessageView;
+import org.example.managementproject.repository.ChatMessageRepository.SearchHit;
 import org.example.managementproject.repository.ChatRoomRepository;
+import org.example.managementproject.repository.ChatRoomRepository.InboxRow;
 import org.example.managementproject.repository.UserRepository;
+import org.example.managementproject.service.ChatWriteBehind.PendingMessage;
+import org.example.managementproject.model.exception.BadRequestException;
 import org.example.managementproject.model.exception.ResourceNotFoundException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ChatService {
 
+    static final int MAX_PAGE_SIZE = 200;
+    static final int MAX_QUERY_LENGTH = 200;
+
+    // Control characters cannot be typed into a message, so they mark matches unambiguously
+    static final String HIGHLIGHT_START = "\u0002";
+    static final String HIGHLIGHT_END = "\u0003";
+    private static final String HEADLINE_OPTIONS = "StartSel=" + HIGHLIGHT_START + ", StopSel=" + HIGHLIGHT_END
+            + ", MaxWords=20, MinWords=8, MaxFragments=2, FragmentDelimiter=\" ... \"";
+
     private final ChatMessageRepository chatMessageRepository;
     private final ChatRoomRepository chatRoomRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
+    private final ChatLookupCache lookupCache;
+    private final ChatWriteBehind writeBehind;
+    private final PresenceRegistry presenceRegistry;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Stores a message with a single insert plus the recipient's unread counter bump:
+     * sender and recipient are attached as references rather than loaded, and the
+     * sender's display name for the outgoing frame comes from {@link ChatLookupCache}.
+     */
     @Transactional
     public ChatMessageResponse saveMessage(ChatMessage chatMessage) {
+        Long senderId = chatMessage.getSender().getId();
+        Long recipientId = chatMessage.getRecipient().getId();
+        String senderName = lookupCache.displayName(senderId);
+
         chatMessage.setTimestamp(LocalDateTime.now());
         chatMessage.setStatus(ChatMessage.MessageStatus.RECEIVED);
-        
-        // Ensure sender/recipient are loaded for the response
-        User sender = userRepository.findById(chatMessage.getSender().getId()).orElseThrow();
-        User recipient = userRepository.findById(chatMessage.getRecipient().getId()).orElseThrow();
-        chatMessage.setSender(sender);
-        chatMessage.setRecipient(recipient);
-        
+        chatMessage.setSender(userRepository.getReferenceById(senderId));
+        chatMessage.setRecipient(userRepository.getReferenceById(recipientId));
+
         ChatMessage saved = chatMessageRepository.save(chatMessage);
-        return toMessageResponse(saved);
+        chatRoomRepository.incrementUnread(saved.getChatRoomId(), recipientId);
+        return ChatMessageResponse.builder()
+                .id(saved.getId())
+                .chatRoomId(saved.getChatRoomId())
+                .senderId(senderId)
+                .senderName(senderName)
+                .recipientId(recipientId)
+                .content(saved.getContent())
+                .timestamp(saved.getTimestamp())
+                .status(saved.getStatus().name())
+                .build();
     }
 
-    private ChatMessageResponse toMessageResponse(ChatMessage msg) {
+    /**
+     * Write-behind variant of {@link #saveMessage}: reserves an id and hands the row to
+     * {@link ChatWriteBehind}, so the caller can push the message before it is inserted.
+     * Deliberately not transactional — this path must not hold a pooled connection.
+     */
+    public ChatMessageResponse queueMessage(ChatMessage chatMessage) {
+        Long senderId = chatMessage.getSender().getId();
+        Long recipientId = chatMessage.getRecipient().getId();
+        PendingMessage pending = new PendingMessage(writeBehind.nextId(), chatMessage.getChatRoomId(),
+                senderId, recipientId, chatMessage.getContent(), LocalDateTime.now(),
+                ChatMessage.MessageStatus.RECEIVED.name());
+        String senderName = lookupCache.displayName(senderId);
+
+        writeBehind.submit(pending);
         return ChatMessageResponse.builder()
-                .id(msg.getId())
-                .chatRoomId(msg.getChatRoomId())
-                .senderId(msg.getSender().getId())
-                .senderName(msg.getSender().getFirstName() + " " + msg.getSender().getLastName())
-                .recipientId(msg.getRecipient().getId())
-                .content(msg.getContent())
-                .timestamp(msg.getTimestamp())
-                .status(msg.getStatus().name())
+                .id(pending.id())
+                .chatRoomId(pending.chatRoomId())
+                .senderId(senderId)
+                .senderName(senderName)
+                .recipientId(recipientId)
+                .content(pending.content())
+                .timestamp(pending.timestamp())
+                .status(pending.status())
                 .build();
     }
 
+    // ─── Receipts ─────────────────────────────────────────────────────────────
+
+    /**
+     * Applies a delivered/read acknowledgement as one range update over the conversation.
+     * Statuses only move forward, and the reader's unread counter drops by exactly the
+     * number of messages that became READ, so repeated or overlapping receipts are harmless.
+     */
+    @Transactional
+    public ChatReceiptResponse applyReceipt(ChatReceiptRequest receipt) {
+        ChatReceiptResponse response = toReceiptResponse(receipt);
+        ChatMessage.MessageStatus status = ChatMessage.MessageStatus.valueOf(response.getStatus());
+        Set<ChatMessage.MessageStatus> from = status == ChatMessage.MessageStatus.READ
+                ? EnumSet.of(ChatMessage.MessageStatus.RECEIVED, ChatMessage.MessageStatus.DELIVERED)
+                : EnumSet.of(ChatMessage.MessageStatus.RECEIVED);
+
+        int changed = chatMessageRepository.advanceStatus(
+                response.getChatRoomId(), receipt.getReaderId(), receipt.getUpToId(), status, from);
+        if (status == ChatMessage.MessageStatus.READ && changed > 0) {
+            chatRoomRepository.decrementUnread(response.getChatRoomId(), receipt.getReaderId(), changed);
+        }
+        return response;
+    }
+
+    /** Validates a receipt and describes it for the original sender, without touching the database. */
+    public ChatReceiptResponse toReceiptResponse(ChatReceiptRequest receipt) {
+        ChatMessage.MessageStatus status = ChatMessage.MessageStatus.valueOf(receipt.getStatus());
+        if (status == ChatMessage.MessageStatus.RECEIVED) {
+            throw new IllegalArgumentException("A receipt must be DELIVERED or READ");
+        }
+        return ChatReceiptResponse.builder()
+                .chatRoomId(chatIdFor(receipt.getReaderId(), receipt.getSenderId()))
+                .readerId(receipt.getReaderId())
+                .upToId(receipt.getUpToId())
+                .status(status.name())
+                .build();
+    }
+
+    private ChatMessageResponse toMessageResponse(MessageView row) {
+        return ChatMessageResponse.builder()
+                .id(row.getId())
+                .chatRoomId(row.getChatRoomId())
+                .senderId(row.getSenderId())
+                .senderName(row.getSenderFirstName() + " " + row.getSenderLastName())
+                .recipientId(row.getRecipientId())
+                .content(row.getContent())
+                .timestamp(row.getTimestamp())
+                .status(row.getStatus().name())
+                .build();
+    }
+
+    /**
+     * Returns up to {@code limit} messages older than {@code before} (or the newest ones
+     * when {@code before} is null), oldest first. Pass the first id of a page as the next
+     * {@code before} to scroll further back.
+     */
     @Transactional(readOnly = true)
-    public List<ChatMessageResponse> findChatMessages(Long senderId, Long recipientId) {
-        Optional<String> chatId = getChatId(senderId, recipientId, false);
-        return chatId.map(chatMessageRepository::findByChatRoomIdOrderByTimestampAsc)
-                .map(msgs -> msgs.stream()
-                        .map(this::toMessageResponse)
-                        .collect(Collectors.toList()))
-                .orElse(List.of());
+    public List<ChatMessageResponse> findChatMessages(Long senderId, Long recipientId, Long before, int limit) {
+        String chatId = chatIdFor(senderId, recipientId);
+        Pageable page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<MessageView> newestFirst = before == null
+                ? chatMessageRepository.findLatest(chatId, page)
+                : chatMessageRepository.findBefore(chatId, before, page);
+
+        List<ChatMessageResponse> messages = new ArrayList<>(newestFirst.size());
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            messages.add(toMessageResponse(newestFirst.get(i)));
+        }
+        return messages;
+    }
+
+    /**
+     * Everything the caller missed while disconnected, across all of their conversations
+     * in one query. Message ids are global, so a single watermark is enough; per-room
+     * cursors only skip rooms the client already caught up on through history loads.
+     */
+    @Transactional(readOnly = true)
+    public ChatSyncResponse sync(ChatSyncRequest request) {
+        Long userId = userService.getAuthenticatedUserId();
+        long after = request.getAfter() != null ? Math.max(request.getAfter(), 0) : 0;
+        int limit = request.getLimit() != null ? Math.max(1, Math.min(request.getLimit(), MAX_PAGE_SIZE)) : MAX_PAGE_SIZE;
+        Map<String, Long> rooms = request.getRooms() != null ? request.getRooms() : Map.of();
+
+        String cursors;
+        try {
+            cursors = objectMapper.writeValueAsString(rooms);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid room cursors", e);
+        }
+
+        // One row past the page tells us whether another round trip is needed
+        List<MessageView> rows = chatMessageRepository.findSince(userId, after, cursors, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<ChatMessageResponse> messages = rows.stream()
+                .limit(limit)
+                .map(this::toMessageResponse)
+                .collect(Collectors.toList());
+        return ChatSyncResponse.builder()
+                .messages(messages)
+                .cursor(messages.isEmpty() ? after : messages.get(messages.size() - 1).getId())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Ranked full-text search over every conversation of the caller. Supports web-search
+     * syntax: quoted phrases, {@code or} and {@code -excluded} words.
+     */
+    @Transactional(readOnly = true)
+    public Page<ChatSearchResultResponse> searchMessages(String query, int page, int size) {
+        if (query == null || query.isBlank()) throw new BadRequestException("Search query must not be empty");
+        if (query.length() > MAX_QUERY_LENGTH) throw new BadRequestException("Search query is too long");
+
+        Long userId = userService.getAuthenticatedUserId();
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return chatMessageRepository.search(userId, query.strip(), HEADLINE_OPTIONS, pageable)
+                .map(this::toSearchResult);
+    }
+
+    private ChatSearchResultResponse toSearchResult(SearchHit hit) {
+        return ChatSearchResultResponse.builder()
+                .id(hit.getId())
+                .chatRoomId(hit.getChatRoomId())
+                .senderId(hit.getSenderId())
+                .senderName(hit.getSenderFirstName() + " " + hit.getSenderLastName())
+                .recipientId(hit.getRecipientId())
+                .timestamp(hit.getTimestamp())
+                .snippet(hit.getSnippet())
+                .highlightStart(HIGHLIGHT_START)
+                .highlightEnd(HIGHLIGHT_END)
+                .rank(hit.getRank() != null ? hit.getRank() : 0)
+                .build();
     }
 
     @Transactional(readOnly = true)
     public List<ChatRoomResponse> findUserChatRooms(Long userId) {
-        return chatRoomRepository.findBySenderId(userId)
+        return chatRoomRepository.findByParticipant(userId)
                 .stream()
-                .map(this::toRoomResponse)
+                .map(room -> toRoomResponse(room, userId))
                 .collect(Collectors.toList());
     }
 
-    private ChatRoomResponse toRoomResponse(ChatRoom room) {
+    /** The caller's conversations, most recently active first, with preview and unread count. */
+    @Transactional(readOnly = true)
+    public Page<ChatInboxEntryResponse> findInbox(int page, int size) {
+        Long userId = userService.getAuthenticatedUserId();
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return chatRoomRepository.findInbox(userId, pageable).map(this::toInboxEntry);
+    }
+
+    /** The caller's counterparts who are online right now, on any node. */
+    public List<Long> findOnlineCounterparts() {
+        return presenceRegistry.onlineCounterparts(userService.getAuthenticatedUserId());
+    }
+
+    private ChatInboxEntryResponse toInboxEntry(InboxRow row) {
+        return ChatInboxEntryResponse.builder()
+                .chatId(row.getChatId())
+                .counterpartId(row.getCounterpartId())
+                .counterpartName(row.getCounterpartFirstName() + " " + row.getCounterpartLastName())
+                .lastMessageId(row.getLastMessageId())
+                .lastMessage(row.getLastMessage())
+                .lastMessageSenderId(row.getLastMessageSenderId())
+                .lastMessageAt(row.getLastMessageAt())
+                .unreadCount(row.getUnreadCount() != null ? row.getUnreadCount() : 0)
+                .build();
+    }
+
+    /** Describes the room from {@code userId}'s side: they are the sender, the other participant the recipient. */
+    private ChatRoomResponse toRoomResponse(ChatRoom room, Long userId) {
+        boolean low = room.getUserLow().getId().equals(userId);
+        User me = low ? room.getUserLow() : room.getUserHigh();
+        User other = low ? room.getUserHigh() : room.getUserLow();
         return ChatRoomResponse.builder()
                 .id(room.getId())
                 .chatId(room.getChatId())
-                .senderId(room.getSender().getId())
-                .senderName(room.getSender().getFirstName() + " " + room.getSender().getLastName())
-                .recipientId(room.getRecipient().getId())
-                .recipientName(room.getRecipient().getFirstName() + " " + room.getRecipient().getLastName())
+                .senderId(me.getId())
+                .senderName(me.getFirstName() + " " + me.getLastName())
+                .recipientId(other.getId())
+                .recipientName(other.getFirstName() + " " + other.getLastName())
                 .build();
     }
 
+    /**
+     * Resolves the conversation between two users, creating its single row on first
+     * contact. Creation is an idempotent upsert, so two users opening the chat at the
+     * same moment still end up with one room.
+     */
     public Optional<String> getChatId(Long senderId, Long recipientId, boolean createIfNotExist) {
-        return chatRoomRepository.findBySenderIdAndRecipientId(senderId, recipientId)
-                .map(ChatRoom::getChatId)
-                .or(() -> {
-                    if (!createIfNotExist) return Optional.empty();
-                    
-                    String chatId = String.format("%d_%d", 
-                        Math.min(senderId, recipientId), 
-                        Math.max(senderId, recipientId));
-
-                    User sender = userRepository.findById(senderId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Sender not found"));
-                    User recipient = userRepository.findById(recipientId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Recipient not found"));
-
-                    ChatRoom senderRecipient = ChatRoom.builder()
-                            .chatId(chatId)
-                            .sender(sender)
-                            .recipient(recipient)
-                            .build();
-
-                    ChatRoom recipientSender = ChatRoom.builder()
-                            .chatId(chatId)
-                            .sender(recipient)
-                            .recipient(sender)
-                            .build();
-
-                    chatRoomRepository.save(senderRecipient);
-                    chatRoomRepository.save(recipientSender);
-
-                    return Optional.of(chatId);
-                });
+        String chatId = chatIdFor(senderId, recipientId);
+        if (lookupCache.isKnownRoom(chatId)) return Optional.of(chatId);
+
+        if (!chatRoomRepository.existsByChatId(chatId)) {
+            if (!createIfNotExist) return Optional.empty();
+            if (!userRepository.existsById(senderId)) throw new ResourceNotFoundException("Sender not found");
+            if (!userRepository.existsById(recipientId)) throw new ResourceNotFoundException("Recipient not found");
+            chatRoomRepository.upsert(chatId, Math.min(senderId, recipientId), Math.max(senderId, recipientId));
+        }
+        lookupCache.rememberRoom(chatId);
+        return Optional.of(chatId);
+    }
+
+    /** Both directions of a conversation share one id: "{lower user id}_{higher user id}". */
+    private static String chatIdFor(Long userA, Long userB) {
+        return Math.min(userA, userB) + "_" + Math.max(userA, userB);
     }
 }
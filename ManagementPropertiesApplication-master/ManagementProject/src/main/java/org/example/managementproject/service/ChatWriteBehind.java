@@ -0,0 +1,418 @@
+package org.example.managementproject.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind pipeline for chat messages ({@code app.chat.write-behind.enabled}).
+ * Ids are handed out from blocks reserved on the {@code chat_messages} sequence, so a
+ * message can be pushed to the recipient before its row exists; a single flusher thread
+ * then inserts queued messages in JDBC batches, one short transaction per batch instead
+ * of one per message.
+ *
+ * <p>Work that must observe those rows, such as read receipts, is queued with
+ * {@link #submitTask} and runs on the flusher once everything queued before it is written.
+ * Each insert batch bumps the recipients' unread counters in the same transaction.
+ *
+ * <p>When the queue is full, {@link #submit} waits up to {@code offer-timeout} and then
+ * inserts the message on the caller's thread, so a backed-up database slows senders down
+ * rather than dropping messages. On shutdown the queue is flushed; anything that still
+ * cannot be written is appended to a spool file and replayed on the next start.
+ *
+ * <p>A batch that fails while the database is unreachable or busy is retried as it is.
+ * Any other failure is the fault of some row in it, such as a sender deleted meanwhile,
+ * so the batch is written again one message at a time and the rows that still fail are
+ * appended to a dead-letter file instead of holding up everything queued behind them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatWriteBehind implements SmartLifecycle {
+
+    static final String INSERT_SQL = """
+            INSERT INTO chat_messages (id, chat_room_id, sender_id, recipient_id, content, timestamp, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO NOTHING""";
+
+    static final String INCREMENT_UNREAD_SQL = """
+            UPDATE chat_rooms
+            SET unread_low  = unread_low  + CASE WHEN user_low_id  = ? THEN ? ELSE 0 END,
+                unread_high = unread_high + CASE WHEN user_high_id = ? THEN ? ELSE 0 END
+            WHERE chat_id = ?""";
+
+    private static final String RESERVE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('chat_messages', 'id')) FROM generate_series(1, ?)";
+
+    sealed interface Entry permits PendingMessage, Task {}
+
+    /** A message that has its id but may not have its row yet. */
+    public record PendingMessage(long id, String chatRoomId, long senderId, long recipientId,
+                                 String content, LocalDateTime timestamp, String status) implements Entry {}
+
+    record Task(Runnable action) implements Entry {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.chat.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.chat.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.chat.write-behind.flush-interval:5ms}")
+    private Duration flushInterval;
+
+    @Value("${app.chat.write-behind.offer-timeout:50ms}")
+    private Duration offerTimeout;
+
+    @Value("${app.chat.write-behind.id-block-size:200}")
+    private int idBlockSize;
+
+    @Value("${app.chat.write-behind.spool-file:chat-write-behind.spool}")
+    private Path spoolFile;
+
+    @Value("${app.chat.write-behind.dead-letter-file:chat-write-behind.dead}")
+    private Path deadLetterFile;
+
+    private BlockingQueue<Entry> queue;
+    private final Deque<Long> reservedIds = new ArrayDeque<>();
+    // Not synchronized: on Java 21 a virtual thread waiting for a monitor pins its carrier,
+    // and the holder may be in a database round trip
+    private final ReentrantLock reservedIdsLock = new ReentrantLock();
+    private volatile boolean running;
+    private Thread flusher;
+
+    private Counter flushedCounter;
+    private Counter overflowCounter;
+    private Counter spooledCounter;
+    private Counter deadLetteredCounter;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        flushedCounter  = meterRegistry.counter("chat.writebehind.flushed");
+        overflowCounter = meterRegistry.counter("chat.writebehind.overflow");
+        spooledCounter  = meterRegistry.counter("chat.writebehind.spooled");
+        deadLetteredCounter = meterRegistry.counter("chat.writebehind.deadlettered");
+        batchTimer      = meterRegistry.timer("chat.writebehind.batch");
+        Gauge.builder("chat.writebehind.queued", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ─── Producers ────────────────────────────────────────────────────────────
+
+    /** Next message id, reserving another block from the sequence when the current one runs out. */
+    public long nextId() {
+        reservedIdsLock.lock();
+        try {
+            if (reservedIds.isEmpty()) {
+                reservedIds.addAll(jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, idBlockSize));
+            }
+            return reservedIds.removeFirst();
+        } finally {
+            reservedIdsLock.unlock();
+        }
+    }
+
+    /**
+     * Queues the message for the next batch. Falls back to a direct insert when the pipeline
+     * is stopped or the queue stays full for longer than the offer timeout.
+     */
+    public void submit(PendingMessage message) {
+        if (!offer(message)) {
+            overflowCounter.increment();
+            insert(List.of(message));
+        }
+    }
+
+    /**
+     * Runs {@code action} on the flusher after every message queued before it is written.
+     * Falls back to running it on the caller, like {@link #submit}.
+     */
+    public void submitTask(Runnable action) {
+        if (!offer(new Task(action))) {
+            overflowCounter.increment();
+            action.run();
+        }
+    }
+
+    private boolean offer(Entry entry) {
+        if (!running) return false;
+        try {
+            return queue.offer(entry, offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ─── Flushing ─────────────────────────────────────────────────────────────
+
+    private void flushLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    Entry first = queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                // stop() interrupts a waiting poll; the loop condition decides whether to exit
+            } catch (DataAccessException | TransactionException e) {
+                // Only transient errors get here (see write); keep what is left of the batch and
+                // retry, meanwhile the full queue pushes back on senders
+                log.warn("Chat write-behind batch of {} failed, retrying: {}", batch.size(), e.getMessage());
+                if (!running) break;
+                sleepQuietly(Duration.ofSeconds(1));
+            }
+        }
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) flushOrSpool(batch);
+    }
+
+    /**
+     * Inserts each run of consecutive messages as one batch and runs tasks in queue order,
+     * removing entries from {@code entries} as they complete so a retry never repeats them.
+     * Throws only for transient errors; a run that fails otherwise is written row by row.
+     */
+    private void write(List<Entry> entries) {
+        while (!entries.isEmpty()) {
+            int end = 0;
+            while (end < entries.size() && entries.get(end) instanceof PendingMessage) end++;
+            if (end > 0) {
+                List<Entry> run = entries.subList(0, end);
+                try {
+                    insert(run.stream().map(PendingMessage.class::cast).toList());
+                } catch (DataAccessException | TransactionException e) {
+                    if (isTransient(e)) throw e;
+                    log.warn("Chat write-behind batch of {} failed, writing it row by row: {}", run.size(), e.getMessage());
+                    insertEach(run);
+                }
+                run.clear();
+            } else {
+                Task task = (Task) entries.remove(0);
+                try {
+                    task.action().run();
+                } catch (RuntimeException e) {
+                    log.error("Chat write-behind task failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Inserts messages one at a time, setting aside those that fail for a non-transient reason. */
+    private void insertEach(List<Entry> run) {
+        while (!run.isEmpty()) {
+            PendingMessage message = (PendingMessage) run.get(0);
+            try {
+                insert(List.of(message));
+            } catch (DataAccessException | TransactionException e) {
+                if (isTransient(e)) throw e;   // the rows still in run are retried with the batch
+                deadLetter(message, e);
+            }
+            run.remove(0);
+        }
+    }
+
+    /** The database is unreachable or busy, rather than the rows at fault: retrying can succeed. */
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException   // lost or refused connections
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    void insert(List<PendingMessage> batch) {
+        Map<List<Object>, Integer> unread = new LinkedHashMap<>();
+        for (PendingMessage message : batch) {
+            unread.merge(List.of(message.chatRoomId(), message.recipientId()), 1, Integer::sum);
+        }
+        batchTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batchSize, (ps, message) -> {
+                ps.setLong(1, message.id());
+                ps.setString(2, message.chatRoomId());
+                ps.setLong(3, message.senderId());
+                ps.setLong(4, message.recipientId());
+                ps.setString(5, message.content());
+                ps.setTimestamp(6, Timestamp.valueOf(message.timestamp()));
+                ps.setString(7, message.status());
+            });
+            // The recipient's room row carries their unread count
+            jdbcTemplate.batchUpdate(INCREMENT_UNREAD_SQL, unread.entrySet(), batchSize, (ps, entry) -> {
+                long recipientId = (Long) entry.getKey().get(1);
+                ps.setLong(1, recipientId);
+                ps.setInt(2, entry.getValue());
+                ps.setLong(3, recipientId);
+                ps.setInt(4, entry.getValue());
+                ps.setString(5, (String) entry.getKey().get(0));
+            });
+        }));
+        flushedCounter.increment(batch.size());
+    }
+
+    // ─── Spool ────────────────────────────────────────────────────────────────
+
+    private void flushOrSpool(List<Entry> remaining) {
+        try {
+            write(remaining);
+        } catch (DataAccessException | TransactionException e) {
+            List<PendingMessage> messages = remaining.stream()
+                    .filter(PendingMessage.class::isInstance).map(PendingMessage.class::cast).toList();
+            log.error("Cannot write {} chat messages on shutdown, spooling to {} ({} queued tasks dropped): {}",
+                    messages.size(), spoolFile, remaining.size() - messages.size(), e.getMessage());
+            spool(messages);
+        }
+    }
+
+    void spool(List<PendingMessage> messages) {
+        try {
+            append(spoolFile, messages);
+            spooledCounter.increment(messages.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spool chat messages to " + spoolFile, e);
+        }
+    }
+
+    /** Keeps a message no retry will write, for someone to look at; it is never replayed. */
+    private void deadLetter(PendingMessage message, RuntimeException cause) {
+        deadLetteredCounter.increment();
+        try {
+            append(deadLetterFile, List.of(message));
+            log.error("Chat message {} in room {} cannot be written, set aside in {}: {}",
+                    message.id(), message.chatRoomId(), deadLetterFile, cause.getMessage());
+        } catch (IOException e) {
+            log.error("Chat message {} cannot be written ({}) nor set aside in {} ({}), dropping it: {}",
+                    message.id(), cause.getMessage(), deadLetterFile, e.getMessage(), message);
+        }
+    }
+
+    private void append(Path file, List<PendingMessage> messages) throws IOException {
+        List<String> lines = new ArrayList<>(messages.size());
+        for (PendingMessage message : messages) {
+            try {
+                lines.add(objectMapper.writeValueAsString(message));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize chat message " + message.id(), e);
+            }
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+    }
+
+    /** Inserts messages left in the spool file by a previous shutdown, then removes the file. */
+    void replaySpool() {
+        if (!Files.exists(spoolFile)) return;
+        try {
+            List<PendingMessage> messages = new ArrayList<>();
+            for (String line : Files.readAllLines(spoolFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) messages.add(objectMapper.readValue(line, PendingMessage.class));
+            }
+            insert(messages);
+            Files.delete(spoolFile);
+            log.info("Replayed {} spooled chat messages from {}", messages.size(), spoolFile);
+        } catch (IOException | DataAccessException e) {
+            // Inserts are idempotent, so leaving the file for the next start is safe
+            log.error("Cannot replay chat spool {}: {}", spoolFile, e.getMessage());
+        }
+    }
+
+    // ─── Lifecycle ────────────────────────────────────────────────────────────
+
+    @Override
+    public void start() {
+        replaySpool();
+        if (!enabled) return;
+        running = true;
+        flusher = Thread.ofPlatform().name("chat-write-behind").daemon().start(this::flushLoop);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) return;
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(Duration.ofSeconds(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything submitted while the flusher was finishing
+        List<Entry> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        if (!leftover.isEmpty()) flushOrSpool(leftover);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server and the STOMP broker, so no new messages arrive during the
+     * final flush. Strictly below the server's own phase ({@code DEFAULT_PHASE - 2048}):
+     * lifecycles sharing a phase stop in no guaranteed order.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
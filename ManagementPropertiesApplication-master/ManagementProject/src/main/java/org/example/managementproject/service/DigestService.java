@@ -0,0 +1,49 @@
+package org.example.managementproject.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.managementproject.model.DigestItem;
+import org.example.managementproject.repository.DigestItemRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Flushes buffered notifications once per digest window: every recipient with
+ * pending {@link DigestItem}s gets a single summary email queued in the outbox.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DigestService {
+
+    private final DigestItemRepository digestItemRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${app.mail.digest.window:3600000}",
+               initialDelayString = "${app.mail.digest.window:3600000}")
+    public void flush() {
+        int sent = 0;
+        for (String recipient : digestItemRepository.findRecipients()) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> flushRecipient(recipient)))) sent++;
+            } catch (RuntimeException e) {
+                log.error("Failed to flush digest for {}: {}", recipient, e.getMessage());
+            }
+        }
+        if (sent > 0) log.info("Queued {} digest emails", sent);
+    }
+
+    /** Must run inside a transaction — the items stay locked until the digest is queued. */
+    boolean flushRecipient(String recipient) {
+        List<DigestItem> items = digestItemRepository.lockByRecipient(recipient);
+        if (items.isEmpty()) return false; // another node is flushing this recipient
+
+        emailService.sendDigest(recipient, items.get(items.size() - 1).getRecipientName(), items);
+        digestItemRepository.deleteAllInBatch(items);
+        return true;
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.managementproject.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.managementproject.model.EmailOutbox;
+import org.example.managementproject.model.EmailOutboxStatus;
+import org.example.managementproject.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains the {@code email_outbox} table. Each worker claims a batch of due rows in a
+ * short transaction, marking them {@code SENDING} with a lease, sends the whole batch
+ * over a single SMTP connection with no transaction open, and records the outcome in a
+ * second short transaction. No connection or row lock is held while SMTP is talking,
+ * and a worker that dies mid-batch leaves rows that are claimed again once the lease
+ * runs out.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailDispatcher {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor mailExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.mail.from}")
+    private String fromEmail;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.concurrency:2}")
+    private int concurrency;
+
+    @Value("${app.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.backoff:30000}")
+    private long backoffMillis;
+
+    @Value("${app.mail.outbox.max-backoff:3600000}")
+    private long maxBackoffMillis;
+
+    // Longer than a batch can take with the SMTP timeouts, so rows are never sent twice
+    @Value("${app.mail.outbox.lease:600000}")
+    private long leaseMillis;
+
+    @Value("${app.mail.outbox.retention:604800000}")
+    private long retentionMillis;
+
+    private Semaphore workers;
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void init() {
+        workers = new Semaphore(concurrency);
+        sentCounter    = meterRegistry.counter("email.outbox.sent");
+        retriedCounter = meterRegistry.counter("email.outbox.retried");
+        failedCounter  = meterRegistry.counter("email.outbox.failed");
+        batchTimer     = meterRegistry.timer("email.outbox.batch");
+        Gauge.builder("email.outbox.pending", outboxRepository,
+                        repo -> repo.countByStatus(EmailOutboxStatus.PENDING))
+                .register(meterRegistry);
+    }
+
+    // ─── Scheduling ───────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:2000}")
+    public void poll() {
+        // Top up to `concurrency` workers; busy workers keep draining until the outbox is empty
+        for (int idle = workers.availablePermits(); idle > 0 && workers.tryAcquire(); idle--) {
+            try {
+                mailExecutor.execute(this::drainUntilEmpty);
+            } catch (RuntimeException e) {
+                workers.release();
+                log.warn("Mail executor rejected outbox worker: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMillis));
+        Integer purged = transactionTemplate.execute(status -> outboxRepository.deleteSentBefore(cutoff));
+        log.info("Purged {} sent emails from the outbox", purged);
+    }
+
+    private void drainUntilEmpty() {
+        try {
+            while (drainBatch() > 0) {
+                // keep going while there is due mail
+            }
+        } catch (RuntimeException e) {
+            log.error("Email outbox worker failed: {}", e.getMessage());
+        } finally {
+            workers.release();
+        }
+    }
+
+    // ─── Batch processing ─────────────────────────────────────────────────────
+
+    /**
+     * Claims and delivers one batch of due emails.
+     *
+     * @return number of outbox rows processed (sent, rescheduled or failed)
+     */
+    int drainBatch() {
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) return 0;
+        batchTimer.record(() -> sendBatch(batch));
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.saveAll(batch));
+        return batch.size();
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = outboxRepository.lockNextBatch(now, batchSize);
+        LocalDateTime leaseEnd = now.plus(Duration.ofMillis(leaseMillis));
+        for (EmailOutbox email : batch) {
+            email.setStatus(EmailOutboxStatus.SENDING);
+            email.setNextAttemptAt(leaseEnd);
+        }
+        outboxRepository.saveAll(batch);
+        return batch;
+    }
+
+    void sendBatch(List<EmailOutbox> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<MimeMessage, EmailOutbox> messages = new LinkedHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                // A message we cannot even build will never succeed — fail it right away
+                email.setAttempts(email.getAttempts() + 1);
+                markFailed(email, e);
+            }
+        }
+        if (messages.isEmpty()) return;
+
+        Map<Object, Exception> failures = Map.of();
+        try {
+            // JavaMailSenderImpl sends the whole array over one connected Transport
+            mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages().isEmpty() ? allFailed(messages, e) : e.getFailedMessages();
+        } catch (MailException e) {
+            failures = allFailed(messages, e);
+        }
+
+        for (Map.Entry<MimeMessage, EmailOutbox> entry : messages.entrySet()) {
+            EmailOutbox email = entry.getValue();
+            email.setAttempts(email.getAttempts() + 1);
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                email.setStatus(EmailOutboxStatus.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sentCounter.increment();
+            } else if (email.getAttempts() >= maxAttempts) {
+                markFailed(email, failure);
+            } else {
+                email.setStatus(EmailOutboxStatus.PENDING);
+                email.setNextAttemptAt(now.plus(Duration.ofMillis(backoffFor(email.getAttempts()))));
+                email.setLastError(failure.getMessage());
+                retriedCounter.increment();
+                log.warn("Email {} to {} failed (attempt {}), retrying at {}: {}",
+                        email.getId(), email.getRecipient(), email.getAttempts(),
+                        email.getNextAttemptAt(), failure.getMessage());
+            }
+        }
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────────────────────
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true); // true = HTML
+        return message;
+    }
+
+    /** Exponential backoff: base, 2×base, 4×base … capped at max-backoff. */
+    private long backoffFor(int attempts) {
+        long delay = backoffMillis << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffMillis);
+    }
+
+    private void markFailed(EmailOutbox email, Exception e) {
+        email.setStatus(EmailOutboxStatus.FAILED);
+        email.setLastError(e.getMessage());
+        failedCounter.increment();
+        log.error("FAILED TO SEND EMAIL {} to {} after {} attempts: {}",
+                email.getId(), email.getRecipient(), email.getAttempts(), e.getMessage());
+    }
+
+    private static Map<Object, Exception> allFailed(Map<MimeMessage, EmailOutbox> messages, Exception e) {
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        messages.keySet().forEach(message -> failures.put(message, e));
+        return failures;
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.managementproject.service;
+
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.Template;
+import org.example.managementproject.model.Booking;
+import org.example.managementproject.model.DigestItem;
+import org.example.managementproject.model.Property;
+import org.example.managementproject.model.User;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Renders notification emails from the Mustache templates under {@code templates/email}.
+ * Every template and shared layout partial is read and compiled once when the bean is
+ * created, so sending an email is only a walk over the compiled tree — no parsing,
+ * no classpath lookups. Values are HTML-escaped by the compiler.
+ */
+@Component
+public class EmailTemplates {
+
+    private static final String LOCATION = "templates/email/";
+    private static final List<String> PARTIALS = List.of("layout/header", "layout/details", "layout/footer");
+
+    public record RenderedEmail(String subject, String body) {}
+
+    public record Theme(String accent, String headingColor, String panel, String border) {}
+
+    public record Detail(String label, String value) {}
+
+    public record Section(String title, List<Detail> details) {}
+
+    private static final Theme BLUE   = new Theme("#2563eb", "white", "#f9fafb", "#e5e7eb");
+    private static final Theme GREEN  = new Theme("#16a34a", "white", "#f9fafb", "#e5e7eb");
+    private static final Theme RED    = new Theme("#dc2626", "white", "#f9fafb", "#e5e7eb");
+    private static final Theme GRAY   = new Theme("#6b7280", "white", "#f9fafb", "#e5e7eb");
+    private static final Theme PURPLE = new Theme("#7c3aed", "white", "#f9fafb", "#e5e7eb");
+    private static final Theme AMBER  = new Theme("#fbbf24", "black", "#fdfaf3", "#fde68a");
+    private static final Theme TEAL   = new Theme("#0f766e", "white", "#f9fafb", "#e5e7eb");
+
+    enum Type {
+        BOOKING_CREATED("booking-created", BLUE, "Booking Request Received",
+                "You will receive another email once the agent confirms or rejects your booking."),
+        BOOKING_CONFIRMED("booking-confirmed", GREEN, "Booking Confirmed!",
+                "We look forward to hosting you. Have a great stay!"),
+        BOOKING_CANCELLED("booking-cancelled", RED, "Booking Cancelled",
+                "If you have any questions please contact support."),
+        BOOKING_REJECTED("booking-rejected", GRAY, "Booking Not Available",
+                "Please browse our other available properties and try again."),
+        NEW_BOOKING_AGENT("new-booking-agent", PURPLE, "New Booking Request",
+                "Please log in to confirm or reject this booking."),
+        PROPERTY_APPROVED("property-approved", GREEN, "Property Approved!",
+                "Guests can view and book your property. Good luck!"),
+        PROPERTY_PENDING("property-pending", AMBER, "Approval Required",
+                "Please log in to the Admin Dashboard to review the submission."),
+        PROPERTY_REJECTED("property-rejected", RED, "Property Not Approved",
+                "Please review our listing guidelines and resubmit with any necessary changes."),
+        PASSWORD_RESET("password-reset", BLUE, "Password Reset", null),
+        DIGEST("digest", TEAL, "Your Activity Digest",
+                "Log in to review and respond. You can switch to instant emails in your profile settings.");
+
+        private final String file;
+        private final Theme theme;
+        private final String heading;
+        private final String note;
+
+        Type(String file, Theme theme, String heading, String note) {
+            this.file = file;
+            this.theme = theme;
+            this.heading = heading;
+            this.note = note;
+        }
+    }
+
+    private final Map<Type, Template> compiled = new EnumMap<>(Type.class);
+
+    public EmailTemplates() {
+        Map<String, String> partials = new HashMap<>();
+        PARTIALS.forEach(name -> partials.put(name, read(name)));
+
+        Mustache.Compiler compiler = Mustache.compiler().withLoader(name -> {
+            String source = partials.get(name);
+            if (source == null) throw new IllegalStateException("Unknown email partial: " + name);
+            return new StringReader(source);
+        });
+        for (Type type : Type.values()) {
+            compiled.put(type, compiler.compile(read(type.file)));
+        }
+    }
+
+    // ─── Bookings ─────────────────────────────────────────────────────────────
+
+    public RenderedEmail bookingCreated(Booking booking) {
+        Property property = booking.getProperty();
+        return render(Type.BOOKING_CREATED, "Booking Request Received – " + property.getTitle(),
+                bookingContext(booking, booking.getUser(), "Booking Details", List.of(
+                        new Detail("Property", property.getTitle()),
+                        new Detail("Location", property.getCity() + ", " + property.getCountry()),
+                        new Detail("Check-in", String.valueOf(booking.getCheckInDate())),
+                        new Detail("Check-out", String.valueOf(booking.getCheckOutDate())),
+                        new Detail("Guests", String.valueOf(booking.getGuests())),
+                        new Detail("Total Price", money(booking.getTotalPrice())))));
+    }
+
+    public RenderedEmail bookingConfirmed(Booking booking) {
+        Property property = booking.getProperty();
+        return render(Type.BOOKING_CONFIRMED, "✅ Booking Confirmed – " + property.getTitle(),
+                bookingContext(booking, booking.getUser(), "Booking Details", List.of(
+                        new Detail("Property", property.getTitle()),
+                        new Detail("Location", property.getCity() + ", " + property.getCountry()),
+                        new Detail("Check-in", String.valueOf(booking.getCheckInDate())),
+                        new Detail("Check-out", String.valueOf(booking.getCheckOutDate())),
+                        new Detail("Total Price", money(booking.getTotalPrice())))));
+    }
+
+    public RenderedEmail bookingCancelled(Booking booking) {
+        return render(Type.BOOKING_CANCELLED, "❌ Booking Cancelled – " + booking.getProperty().getTitle(),
+                bookingContext(booking, booking.getUser(), null, stayDates(booking)));
+    }
+
+    public RenderedEmail bookingRejected(Booking booking) {
+        return render(Type.BOOKING_REJECTED, "Booking Update – " + booking.getProperty().getTitle(),
+                bookingContext(booking, booking.getUser(), null, stayDates(booking)));
+    }
+
+    public RenderedEmail newBookingToAgent(Booking booking) {
+        User guest = booking.getUser();
+        List<Detail> details = new ArrayList<>(List.of(
+                new Detail("Guest", guest.getFirstName() + " " + guest.getLastName()),
+                new Detail("Check-in", String.valueOf(booking.getCheckInDate())),
+                new Detail("Check-out", String.valueOf(booking.getCheckOutDate())),
+                new Detail("Guests", String.valueOf(booking.getGuests())),
+                new Detail("Total", money(booking.getTotalPrice()))));
+        if (booking.getSpecialRequests() != null) {
+            details.add(new Detail("Special Requests", booking.getSpecialRequests()));
+        }
+        return render(Type.NEW_BOOKING_AGENT, "New Booking Request – " + booking.getProperty().getTitle(),
+                bookingContext(booking, booking.getProperty().getAgent(), null, details));
+    }
+
+    // ─── Properties ───────────────────────────────────────────────────────────
+
+    public RenderedEmail propertyApproved(Property property) {
+        return render(Type.PROPERTY_APPROVED, "✅ Property Approved – " + property.getTitle(),
+                propertyContext(property, "Property Details", List.of(
+                        new Detail("Title", property.getTitle()),
+                        new Detail("Location", property.getCity() + ", " + property.getCountry()),
+                        new Detail("Price/Night", money(property.getPricePerNight())))));
+    }
+
+    public RenderedEmail propertyPending(Property property) {
+        Map<String, Object> context = propertyContext(property, "Property Submission", List.of(
+                new Detail("Title", property.getTitle()),
+                new Detail("Location", property.getCity() + ", " + property.getCountry())));
+        context.put("agentName", property.getAgent().getFirstName() + " " + property.getAgent().getLastName());
+        return render(Type.PROPERTY_PENDING, "🔔 New Property/Edit Awaiting Approval – " + property.getTitle(), context);
+    }
+
+    public RenderedEmail propertyRejected(Property property) {
+        return render(Type.PROPERTY_REJECTED, "❌ Property Rejected – " + property.getTitle(),
+                propertyContext(property, "Property Details", List.of(
+                        new Detail("Title", property.getTitle()),
+                        new Detail("Location", property.getCity() + ", " + property.getCountry()))));
+    }
+
+    // ─── Account ──────────────────────────────────────────────────────────────
+
+    public RenderedEmail passwordReset(String firstName, String resetLink) {
+        Map<String, Object> context = new HashMap<>();
+        context.put("firstName", firstName);
+        context.put("resetLink", resetLink);
+        return render(Type.PASSWORD_RESET, "🔑 Password Reset Request", context);
+    }
+
+    public RenderedEmail digest(String recipientName, List<DigestItem> items) {
+        Map<String, List<Detail>> byCategory = items.stream()
+                .collect(Collectors.groupingBy(DigestItem::getCategory, LinkedHashMap::new,
+                        Collectors.mapping(item -> new Detail(null, item.getSummary()), Collectors.toList())));
+        List<Section> sections = byCategory.entrySet().stream()
+                .map(e -> new Section(e.getKey() + " (" + e.getValue().size() + ")", e.getValue()))
+                .toList();
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("firstName", recipientName);
+        context.put("sections", sections);
+        String subject = "📬 Your PropManager digest – " + items.size()
+                + (items.size() == 1 ? " update" : " updates");
+        return render(Type.DIGEST, subject, context);
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────────────────────
+
+    private RenderedEmail render(Type type, String subject, Map<String, Object> context) {
+        context.put("theme", type.theme);
+        context.put("heading", type.heading);
+        if (type.note != null) context.put("note", type.note);
+        return new RenderedEmail(subject, compiled.get(type).execute(context));
+    }
+
+    private static Map<String, Object> bookingContext(Booking booking, User recipient,
+                                                      String title, List<Detail> details) {
+        Map<String, Object> context = new HashMap<>();
+        context.put("firstName", recipient.getFirstName());
+        context.put("propertyTitle", booking.getProperty().getTitle());
+        if (title != null) context.put("title", title);
+        context.put("details", details);
+        return context;
+    }
+
+    private static Map<String, Object> propertyContext(Property property, String title, List<Detail> details) {
+        Map<String, Object> context = new HashMap<>();
+        context.put("firstName", property.getAgent().getFirstName());
+        context.put("title", title);
+        context.put("details", details);
+        return context;
+    }
+
+    private static List<Detail> stayDates(Booking booking) {
+        return List.of(
+                new Detail("Check-in", String.valueOf(booking.getCheckInDate())),
+                new Detail("Check-out", String.valueOf(booking.getCheckOutDate())));
+    }
+
+    private static String money(Double amount) {
+        return "$%.2f".formatted(amount);
+    }
+
+    private static String read(String name) {
+        try (InputStream in = new ClassPathResource(LOCATION + name + ".mustache").getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load email template " + name, e);
+        }
+    }
+}
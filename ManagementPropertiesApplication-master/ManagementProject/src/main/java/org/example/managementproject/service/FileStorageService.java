@@ -49,12 +49,24 @@ public class FileStorageService {
 
     public void deleteFile(String fileUrl) {
         try {
-            if (fileUrl == null || !fileUrl.startsWith("/uploads/")) return;
-            String filename = fileUrl.substring("/uploads/".length());
-            Path filePath = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(filename);
+            Path filePath = resolve(fileUrl);
+            if (filePath == null) return;
             Files.deleteIfExists(filePath);
         } catch (IOException ex) {
 
         }
     }
-}
\ No newline at end of file
+
+    /** Where a URL returned by this service points on disk, or null for any other URL. */
+    public Path resolve(String fileUrl) {
+        if (fileUrl == null || !fileUrl.startsWith("/uploads/")) return null;
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path filePath = uploadPath.resolve(fileUrl.substring("/uploads/".length())).normalize();
+        return filePath.startsWith(uploadPath) ? filePath : null;
+    }
+
+    /** The URL of a file in the upload directory. */
+    public String urlOf(Path file) {
+        return "/uploads/" + file.getFileName();
+    }
+}
@@ -0,0 +1,352 @@
+package org.example.managementproject.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.managementproject.model.PropertyImage;
+import org.example.managementproject.repository.PropertyImageRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes resized copies of uploaded property images — a thumbnail for lists and map
+ * markers, a card size for search results and a full size for the gallery — as JPEG,
+ * and as WebP too when an ImageIO WebP writer is on the classpath. The work runs on the
+ * bounded {@code imageExecutor} once the upload has committed, and the URLs are recorded
+ * on the {@link PropertyImage}; until then, and for originals ImageIO cannot decode,
+ * clients fall back to the original. When the executor's queue is full the image is left
+ * to the backfill; uploads never render on the request thread.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private static final String JPEG = "image/jpeg";
+    private static final String WEBP = "image/webp";
+
+    /** Longest edge of each size. Largest first: each size is scaled down from the one before. */
+    public enum Size {
+        FULL("full", 1920),
+        CARD("card", 800),
+        THUMBNAIL("thumb", 320);
+
+        final String suffix;
+        final int maxEdge;
+
+        Size(String suffix, int maxEdge) {
+            this.suffix = suffix;
+            this.maxEdge = maxEdge;
+        }
+    }
+
+    private final PropertyImageRepository propertyImageRepository;
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolTaskExecutor imageExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final float jpegQuality;
+    private final float webpQuality;
+    private final int backfillBatchSize;
+    private final boolean webpAvailable;
+    private final Timer renderTimer;
+    private final Counter failures;
+
+    // Queued or running, so the backfill never schedules an image twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantService(PropertyImageRepository propertyImageRepository,
+                               FileStorageService fileStorageService,
+                               @Qualifier("imageExecutor") ThreadPoolTaskExecutor imageExecutor,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.images.jpeg-quality:0.8}") float jpegQuality,
+                               @Value("${app.images.webp-quality:0.75}") float webpQuality,
+                               @Value("${app.images.backfill-batch-size:20}") int backfillBatchSize) {
+        this.propertyImageRepository = propertyImageRepository;
+        this.fileStorageService = fileStorageService;
+        this.imageExecutor = imageExecutor;
+        // Its own transaction: generate() may be called from an after-commit callback, where
+        // joining the finished upload transaction would leave the update uncommitted
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.jpegQuality = jpegQuality;
+        this.webpQuality = webpQuality;
+        this.backfillBatchSize = backfillBatchSize;
+        this.webpAvailable = ImageIO.getImageWritersByMIMEType(WEBP).hasNext();
+        this.renderTimer = meterRegistry.timer("images.variants.render");
+        this.failures = meterRegistry.counter("images.variants.failed");
+        log.info("Image variants: JPEG{}", webpAvailable ? " and WebP" : " only (no ImageIO WebP writer installed)");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesUploaded(PropertyImagesUploadedEvent event) {
+        event.imageIds().forEach(this::submit);
+    }
+
+    // Images uploaded before variants existed, and generations lost to a restart or a write error.
+    // Takes at most half the free queue, so it never runs work on the scheduler thread.
+    @Scheduled(fixedDelayString = "${app.images.backfill-interval:300000}",
+            initialDelayString = "${app.images.backfill-initial-delay:60000}")
+    public void backfill() {
+        int room = Math.min(backfillBatchSize, imageExecutor.getThreadPoolExecutor().getQueue().remainingCapacity() / 2);
+        if (room == 0) return;
+        propertyImageRepository.findIdsWithoutVariants(PageRequest.of(0, room)).forEach(this::submit);
+    }
+
+    void submit(Long imageId) {
+        if (!inFlight.add(imageId)) return;
+        try {
+            imageExecutor.execute(() -> {
+                try {
+                    generate(imageId);
+                } finally {
+                    inFlight.remove(imageId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(imageId);
+            log.warn("Image executor full, variants of image {} left to the backfill", imageId);
+        }
+    }
+
+    void generate(Long imageId) {
+        PropertyImage image = propertyImageRepository.findById(imageId).orElse(null);
+        if (image == null || image.getThumbnailUrl() != null) return;
+
+        String originalUrl = image.getImageUrl();
+        Path original = fileStorageService.resolve(originalUrl);
+        Map<Size, String> jpeg = new EnumMap<>(Size.class);
+        Map<Size, String> webp = new EnumMap<>(Size.class);
+        List<String> written = new ArrayList<>();
+
+        Timer.Sample sample = Timer.start();
+        BufferedImage decoded = original != null ? decode(original) : null;
+        if (decoded == null) {
+            // Nothing to resize (external URL, or a format ImageIO cannot read): every size is the original
+            for (Size size : Size.values()) jpeg.put(size, originalUrl);
+        } else {
+            try {
+                render(decoded, original, jpeg, webp, written);
+            } catch (IOException e) {
+                failures.increment();
+                log.error("Cannot write variants of image {}: {}", imageId, e.getMessage());
+                written.forEach(fileStorageService::deleteFile);
+                return;
+            }
+        }
+
+        Integer updated = transactionTemplate.execute(status -> propertyImageRepository.updateVariants(imageId,
+                jpeg.get(Size.THUMBNAIL), jpeg.get(Size.CARD), jpeg.get(Size.FULL),
+                webp.get(Size.THUMBNAIL), webp.get(Size.CARD), webp.get(Size.FULL)));
+        sample.stop(renderTimer);
+        if (updated == null || updated == 0) {
+            written.forEach(fileStorageService::deleteFile);   // deleted while we were working
+        }
+    }
+
+    // ─── Rendering ────────────────────────────────────────────────────────────
+
+    private void render(BufferedImage source, Path original, Map<Size, String> jpeg, Map<Size, String> webp,
+                        List<String> written) throws IOException {
+        String fileName = original.getFileName().toString();
+        String baseName = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+
+        BufferedImage current = source;
+        for (Size size : Size.values()) {
+            current = downscale(current, size.maxEdge);
+            Path target = original.resolveSibling(baseName + "-" + size.suffix + ".jpg");
+            encode(current, JPEG, jpegQuality, target);
+            written.add(fileStorageService.urlOf(target));
+            jpeg.put(size, fileStorageService.urlOf(target));
+            if (webpAvailable) {
+                target = original.resolveSibling(baseName + "-" + size.suffix + ".webp");
+                encode(current, WEBP, webpQuality, target);
+                written.add(fileStorageService.urlOf(target));
+                webp.put(size, fileStorageService.urlOf(target));
+            }
+        }
+    }
+
+    /** The upright image, decoded at no more than twice the full size; null if ImageIO cannot read it. */
+    static BufferedImage decode(Path file) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, false);
+                // A 24-megapixel photo is decoded at a fraction of its pixels, which is most of the cost
+                int longestEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longestEdge / (Size.FULL.maxEdge * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return orient(image, exifOrientation(reader.getImageMetadata(0)));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot decode {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Scales so the longest edge is at most {@code maxEdge}, halving while that is still
+     * too large so bilinear filtering never skips source pixels. Always returns an opaque
+     * RGB image; transparency becomes white.
+     */
+    static BufferedImage downscale(BufferedImage source, int maxEdge) {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, null);
+        }
+        if (current.getWidth() != width || current.getHeight() != height
+                || current.getType() != BufferedImage.TYPE_INT_RGB) {
+            current = draw(current, width, height, null);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, AffineTransform transform) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            if (transform != null) {
+                g.drawImage(source, transform, null);
+            } else {
+                g.drawImage(source, 0, 0, width, height, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static void encode(BufferedImage image, String mimeType, float quality, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(mimeType).next();
+        try (OutputStream file = Files.newOutputStream(target);
+             MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(file)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && Arrays.asList(types).contains("Lossy")) param.setCompressionType("Lossy");
+                param.setCompressionQuality(quality);
+            }
+            if (param.canWriteProgressive()) {
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);   // smaller, and renders coarse-to-fine
+            }
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // ─── EXIF orientation ─────────────────────────────────────────────────────
+
+    /** Rotates or mirrors a decoded image so it displays as the camera meant (EXIF orientation 1–8). */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // Maps source to target pixels: x' = m00 x + m01 y + m02, y' = m10 x + m11 y + m12
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);     // mirrored
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);    // upside down
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);      // transposed
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);     // rotate 90° clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);     // rotate 90° counter-clockwise
+            default -> null;
+        };
+        if (transform == null) return image;
+        return orientation >= 5 ? draw(image, h, w, transform) : draw(image, w, h, transform);
+    }
+
+    private static int exifOrientation(IIOMetadata metadata) {
+        String format = "javax_imageio_jpeg_image_1.0";
+        if (metadata == null || !format.equals(metadata.getNativeMetadataFormatName())) return 1;
+        // The JPEG reader keeps APP1 (Exif) segments as "unknown" markers holding the raw bytes
+        for (Node node = metadata.getAsTree(format).getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (!"markerSequence".equals(node.getNodeName())) continue;
+            for (Node marker = node.getFirstChild(); marker != null; marker = marker.getNextSibling()) {
+                if ("unknown".equals(marker.getNodeName()) && marker instanceof IIOMetadataNode element
+                        && "225".equals(element.getAttribute("MarkerTag"))
+                        && element.getUserObject() instanceof byte[] data) {
+                    int orientation = exifOrientation(data);
+                    if (orientation != 0) return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /** Tag 0x0112 of IFD0 in an APP1 segment ("Exif\0\0" and a TIFF header), or 0 if absent. */
+    static int exifOrientation(byte[] app1) {
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') return 0;
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) return 0;
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) break;
+            if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                int value = tiff.getShort(entry + 8) & 0xFFFF;
+                return value >= 1 && value <= 8 ? value : 0;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.managementproject.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/** Single-node mode: there are no other nodes, so the local registry is the whole truth. */
+@Service
+@ConditionalOnProperty(name = "app.chat.relay.mode", havingValue = "local", matchIfMissing = true)
+public class LocalPresenceDirectory implements PresenceDirectory {
+
+    @Override
+    public void publish(Set<Long> online, Set<Long> offline) {
+    }
+
+    @Override
+    public Set<Long> onlineElsewhere(Collection<Long> userIds) {
+        return Set.of();
+    }
+
+    @Override
+    public Set<Long> reapDeadNodes() {
+        return Set.of();
+    }
+
+    @Override
+    public void leave() {
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.managementproject.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+/** Single-node mode: hands the message straight to the local simple broker. */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.chat.relay.mode", havingValue = "local", matchIfMissing = true)
+public class LocalUserMessageRelay implements UserMessageRelay {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Override
+    public void convertAndSendToUser(String user, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(user, destination, payload);
+    }
+}
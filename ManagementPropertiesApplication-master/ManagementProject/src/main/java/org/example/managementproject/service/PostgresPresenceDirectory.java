@@ -0,0 +1,105 @@
+package org.example.managementproject.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Multi-node mode: each node keeps the users it has sessions for in an unlogged table
+ * and renews a lease on its own row. A node that dies stops renewing, and whichever node
+ * next sees the lease expired deletes its rows and announces those users as offline.
+ */
+@Service
+@ConditionalOnProperty(name = "app.chat.relay.mode", havingValue = "postgres")
+public class PostgresPresenceDirectory implements PresenceDirectory {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration lease;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private long renewedAt;   // nanoTime; only touched from the registry's tick thread
+    private long reapedAt;
+
+    public PostgresPresenceDirectory(JdbcTemplate jdbcTemplate,
+                                     @Value("${app.chat.presence.node-lease:30s}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lease = lease;
+    }
+
+    @PostConstruct
+    void init() {
+        jdbcTemplate.execute("""
+                CREATE UNLOGGED TABLE IF NOT EXISTS presence_nodes (
+                    node_id VARCHAR(36) PRIMARY KEY,
+                    expires_at TIMESTAMP NOT NULL)""");
+        jdbcTemplate.execute("""
+                CREATE UNLOGGED TABLE IF NOT EXISTS presence_users (
+                    user_id BIGINT NOT NULL,
+                    node_id VARCHAR(36) NOT NULL,
+                    PRIMARY KEY (user_id, node_id))""");
+        renew();
+    }
+
+    @Override
+    public void publish(Set<Long> online, Set<Long> offline) {
+        // A third of the lease between renewals leaves room for two missed ticks
+        if (System.nanoTime() - renewedAt > lease.toNanos() / 3) renew();
+        if (!online.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO presence_users (user_id, node_id) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                    online.stream().map(id -> new Object[]{id, nodeId}).toList());
+        }
+        if (!offline.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM presence_users WHERE node_id = ? AND user_id = ANY(?)",
+                    nodeId, offline.toArray(Long[]::new));
+        }
+    }
+
+    @Override
+    public Set<Long> onlineElsewhere(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return Set.of();
+        return new HashSet<>(jdbcTemplate.queryForList("""
+                SELECT DISTINCT u.user_id FROM presence_users u
+                JOIN presence_nodes n ON n.node_id = u.node_id
+                WHERE u.user_id = ANY(?) AND u.node_id <> ? AND n.expires_at > now()""",
+                Long.class, userIds.toArray(Long[]::new), nodeId));
+    }
+
+    @Override
+    public Set<Long> reapDeadNodes() {
+        if (System.nanoTime() - reapedAt < lease.toNanos() / 3) return Set.of();
+        reapedAt = System.nanoTime();
+        // DELETE ... RETURNING hands each dead node to exactly one reaper
+        List<String> dead = jdbcTemplate.queryForList(
+                "DELETE FROM presence_nodes WHERE expires_at < now() RETURNING node_id", String.class);
+        if (dead.isEmpty()) return Set.of();
+        Set<Long> orphaned = new HashSet<>(jdbcTemplate.queryForList(
+                "DELETE FROM presence_users WHERE node_id = ANY(?) RETURNING user_id",
+                Long.class, (Object) dead.toArray(String[]::new)));
+        orphaned.removeAll(onlineElsewhere(orphaned));
+        return orphaned;
+    }
+
+    @Override
+    public void leave() {
+        jdbcTemplate.update("DELETE FROM presence_users WHERE node_id = ?", nodeId);
+        jdbcTemplate.update("DELETE FROM presence_nodes WHERE node_id = ?", nodeId);
+    }
+
+    private void renew() {
+        jdbcTemplate.update("""
+                INSERT INTO presence_nodes (node_id, expires_at) VALUES (?, now() + make_interval(secs => ?))
+                ON CONFLICT (node_id) DO UPDATE SET expires_at = EXCLUDED.expires_at""",
+                nodeId, (double) lease.toSeconds());
+        renewedAt = System.nanoTime();
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.managementproject.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Multi-node mode ({@code app.chat.relay.mode=postgres}): delivers to the local broker
+ * and publishes the message on a PostgreSQL {@code NOTIFY} channel. Every node keeps one
+ * dedicated connection that {@code LISTEN}s on the channel and replays messages from the
+ * other nodes into its own broker, so a recipient is reached whichever node holds the
+ * socket. Notifications are fire-and-forget: a node that is disconnected from the
+ * database misses them, and its clients catch up from the chat history.
+ *
+ * <p>{@code NOTIFY} payloads are capped at 8000 bytes; larger messages are parked in an
+ * unlogged table and only their id is announced.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.chat.relay.mode", havingValue = "postgres")
+public class PostgresUserMessageRelay implements UserMessageRelay, SmartLifecycle {
+
+    static final String CHANNEL = "stomp_user_relay";
+    private static final int MAX_NOTIFY_BYTES = 7900;
+    private static final String OVERSIZED_PREFIX = "#";
+
+    /** What travels between nodes; {@code node} lets the sender skip its own notifications. */
+    record Envelope(String node, String user, String destination, JsonNode payload) {}
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private Connection listenerConnection;
+    private Thread listener;
+
+    private Counter publishedCounter;
+    private Counter receivedCounter;
+
+    @PostConstruct
+    void init() {
+        publishedCounter = meterRegistry.counter("stomp.relay.published");
+        receivedCounter  = meterRegistry.counter("stomp.relay.received");
+    }
+
+    // ─── Publishing ───────────────────────────────────────────────────────────
+
+    @Override
+    public void convertAndSendToUser(String user, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(user, destination, payload);
+
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(
+                    new Envelope(nodeId, user, destination, objectMapper.valueToTree(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize relayed message for user " + user, e);
+        }
+        if (body.getBytes(StandardCharsets.UTF_8).length > MAX_NOTIFY_BYTES) {
+            Long id = jdbcTemplate.queryForObject(
+                    "INSERT INTO stomp_relay_payloads (body) VALUES (?) RETURNING id", Long.class, body);
+            body = OVERSIZED_PREFIX + id;
+        }
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, body);
+        publishedCounter.increment();
+    }
+
+    // Oversized payloads only need to outlive the notification round trip
+    @Scheduled(fixedDelayString = "${app.chat.relay.purge-interval:60000}")
+    public void purgeOversizedPayloads() {
+        jdbcTemplate.update("DELETE FROM stomp_relay_payloads WHERE created_at < now() - interval '5 minutes'");
+    }
+
+    // ─── Listening ────────────────────────────────────────────────────────────
+
+    private void listen() {
+        long backoff = 1000;
+        while (running) {
+            try {
+                if (listenerConnection == null) listenerConnection = openListener();
+                PGNotification[] notifications =
+                        listenerConnection.unwrap(PGConnection.class).getNotifications(1000);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) deliver(notification.getParameter());
+                }
+                backoff = 1000;
+            } catch (SQLException e) {
+                if (!running) break;
+                log.warn("STOMP relay listener lost its connection, reconnecting in {} ms: {}", backoff, e.getMessage());
+                closeListener();
+                sleepQuietly(Duration.ofMillis(backoff));
+                backoff = Math.min(backoff * 2, 30_000);
+            }
+        }
+        closeListener();
+    }
+
+    void deliver(String body) {
+        try {
+            if (body.startsWith(OVERSIZED_PREFIX)) {
+                body = jdbcTemplate.queryForObject("SELECT body FROM stomp_relay_payloads WHERE id = ?",
+                        String.class, Long.parseLong(body.substring(OVERSIZED_PREFIX.length())));
+            }
+            Envelope envelope = objectMapper.readValue(body, Envelope.class);
+            if (nodeId.equals(envelope.node())) return;   // already delivered locally
+            messagingTemplate.convertAndSendToUser(envelope.user(), envelope.destination(), envelope.payload());
+            receivedCounter.increment();
+        } catch (Exception e) {
+            log.error("Cannot deliver relayed STOMP message: {}", e.getMessage());
+        }
+    }
+
+    private Connection openListener() throws SQLException {
+        // A dedicated connection outside the pool: it is held for the lifetime of the node
+        Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        return connection;
+    }
+
+    private void closeListener() {
+        if (listenerConnection == null) return;
+        try {
+            listenerConnection.close();
+        } catch (SQLException e) {
+            log.debug("Closing STOMP relay listener: {}", e.getMessage());
+        }
+        listenerConnection = null;
+    }
+
+    // ─── Lifecycle ────────────────────────────────────────────────────────────
+
+    @Override
+    public void start() {
+        jdbcTemplate.execute("""
+                CREATE UNLOGGED TABLE IF NOT EXISTS stomp_relay_payloads (
+                    id BIGSERIAL PRIMARY KEY,
+                    body TEXT NOT NULL,
+                    created_at TIMESTAMP NOT NULL DEFAULT now())""");
+        try {
+            // LISTEN before the web server opens, so no message published after startup is missed
+            listenerConnection = openListener();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot LISTEN on " + CHANNEL, e);
+        }
+        running = true;
+        listener = Thread.ofPlatform().name("stomp-relay-listener").daemon().start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            listener.join(Duration.ofSeconds(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before the web server accepts connections and stops after it; the server
+     * itself is at {@code DEFAULT_PHASE - 2048}, and a shared phase has no order.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 3072;
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.managementproject.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Which users are online on the other backend nodes. {@link PresenceRegistry} owns the
+ * sessions of its own node and only reports user-level transitions here, never heartbeats,
+ * so replication costs a write when someone comes or goes. Selected with
+ * {@code app.chat.relay.mode}, like {@link UserMessageRelay}.
+ */
+public interface PresenceDirectory {
+
+    /** Records this node's transitions since the last call; also keeps the node's lease alive. */
+    void publish(Set<Long> online, Set<Long> offline);
+
+    /** The subset of {@code userIds} with at least one session on another live node. */
+    Set<Long> onlineElsewhere(Collection<Long> userIds);
+
+    /** Users that were online only on nodes whose lease ran out since the last call. */
+    Set<Long> reapDeadNodes();
+
+    /** Forgets this node, e.g. on shutdown. */
+    void leave();
+}
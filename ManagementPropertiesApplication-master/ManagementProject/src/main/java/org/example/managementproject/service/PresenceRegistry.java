@@ -0,0 +1,276 @@
+package org.example.managementproject.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.managementproject.dto.response.PresenceUpdateResponse;
+import org.example.managementproject.repository.ChatRoomRepository;
+import org.example.managementproject.repository.ChatRoomRepository.CounterpartRow;
+import org.example.managementproject.security.StompPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who is online, fed by STOMP CONNECT/DISCONNECT events and by every inbound frame,
+ * heartbeats included. A session that stays silent for {@code app.chat.presence.timeout}
+ * is dropped even if its DISCONNECT never arrives.
+ *
+ * <p>Timeouts run on a timing wheel with one slot per tick. A frame only moves the
+ * session's deadline forward; the session is re-slotted lazily when the wheel reaches
+ * its old slot, so the hot path is one map lookup and one volatile write.
+ *
+ * <p>User-level transitions are collected between ticks and pushed once per tick to the
+ * counterparts that are online, as one {@link PresenceUpdateResponse} per recipient.
+ * Other nodes learn about them through {@link PresenceDirectory}.
+ */
+@Slf4j
+@Service
+public class PresenceRegistry implements SmartLifecycle {
+
+    static final String DESTINATION = "/queue/presence";
+
+    /** Deadline in ticks; written by frames from any thread, read by the wheel. */
+    private static final class Session {
+        final long userId;
+        volatile long deadline;
+
+        Session(long userId, long deadline) {
+            this.userId = userId;
+            this.deadline = deadline;
+        }
+    }
+
+    private final ChatRoomRepository chatRoomRepository;
+    private final UserMessageRelay messageRelay;
+    private final PresenceDirectory directory;
+    private final int timeoutTicks;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> sessionsPerUser = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();   // user -> online, latest wins
+    private final Set<String>[] wheel;
+    private volatile long now;   // current tick; only advanced by tick()
+    private volatile boolean running;
+
+    private final Counter expiredCounter;
+    private final Counter pushedCounter;
+
+    @SuppressWarnings("unchecked")
+    public PresenceRegistry(ChatRoomRepository chatRoomRepository,
+                            UserMessageRelay messageRelay,
+                            PresenceDirectory directory,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.chat.presence.tick:1000}") long tickMillis,
+                            @Value("${app.chat.presence.timeout:30s}") Duration timeout) {
+        this.chatRoomRepository = chatRoomRepository;
+        this.messageRelay = messageRelay;
+        this.directory = directory;
+        this.timeoutTicks = (int) Math.max(1, timeout.toMillis() / tickMillis);
+        // One more slot than the timeout, so a fresh deadline never lands in the slot being expired
+        this.wheel = new Set[timeoutTicks + 1];
+        for (int i = 0; i < wheel.length; i++) wheel[i] = ConcurrentHashMap.newKeySet();
+
+        meterRegistry.gauge("presence.sessions", sessions, Map::size);
+        meterRegistry.gauge("presence.users", sessionsPerUser, Map::size);
+        this.expiredCounter = meterRegistry.counter("presence.expired");
+        this.pushedCounter = meterRegistry.counter("presence.pushed");
+    }
+
+    // ─── Session events ───────────────────────────────────────────────────────
+
+    /** Only authenticated sessions get this far; the principal was resolved once on CONNECT. */
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (event.getUser() instanceof StompPrincipal principal && sessionId != null) {
+            connected(sessionId, principal.userId());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnected(event.getSessionId());
+    }
+
+    void connected(String sessionId, long userId) {
+        Session session = new Session(userId, now + timeoutTicks);
+        Session previous = sessions.put(sessionId, session);
+        if (previous != null) release(previous.userId);
+        wheel[slot(session.deadline)].add(sessionId);
+        if (sessionsPerUser.merge(userId, 1, Integer::sum) == 1) pending.put(userId, Boolean.TRUE);
+    }
+
+    /** Any inbound frame from the session, heartbeats included, proves it is alive. */
+    public void touch(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session != null) session.deadline = now + timeoutTicks;
+    }
+
+    void disconnected(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) release(session.userId);
+    }
+
+    private void release(long userId) {
+        Integer left = sessionsPerUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+        if (left == null) pending.put(userId, Boolean.FALSE);
+    }
+
+    // ─── Queries ──────────────────────────────────────────────────────────────
+
+    public boolean isOnlineHere(Long userId) {
+        return sessionsPerUser.containsKey(userId);
+    }
+
+    /** The counterparts of {@code userId} that are online anywhere; the snapshot a client starts from. */
+    public List<Long> onlineCounterparts(Long userId) {
+        List<Long> counterparts = chatRoomRepository.findCounterparts(List.of(userId)).stream()
+                .map(CounterpartRow::getCounterpartId)
+                .toList();
+        return online(counterparts).stream().sorted().toList();
+    }
+
+    private Set<Long> online(Collection<Long> userIds) {
+        Set<Long> online = new HashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long id : userIds) {
+            if (isOnlineHere(id)) online.add(id);
+            else unknown.add(id);
+        }
+        online.addAll(directory.onlineElsewhere(unknown));
+        return online;
+    }
+
+    // ─── Timing wheel ─────────────────────────────────────────────────────────
+
+    @Scheduled(fixedRateString = "${app.chat.presence.tick:1000}")
+    public void scheduledTick() {
+        if (!running) return;
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.warn("Presence tick failed: {}", e.getMessage());
+        }
+    }
+
+    /** Advances the wheel by one slot, expires silent sessions and pushes the tick's changes. */
+    void tick() {
+        long tick = ++now;
+        Set<String> slot = wheel[slot(tick)];
+        for (String sessionId : slot) {
+            slot.remove(sessionId);
+            Session session = sessions.get(sessionId);
+            if (session == null) continue;                 // disconnected meanwhile
+            long deadline = session.deadline;
+            if (deadline > tick) {
+                wheel[slot(deadline)].add(sessionId);       // touched since it was slotted
+            } else if (sessions.remove(sessionId, session)) {
+                release(session.userId);
+                expiredCounter.increment();
+            }
+        }
+        flush();
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % wheel.length);
+    }
+
+    // ─── Deltas ───────────────────────────────────────────────────────────────
+
+    private void flush() {
+        Set<Long> cameOnline = new HashSet<>();
+        Set<Long> wentOffline = new HashSet<>();
+        for (Long userId : List.copyOf(pending.keySet())) {
+            Boolean online = pending.remove(userId);
+            if (online == null) continue;
+            // Re-check: the pending flag is a hint, the session count is the truth
+            if (online && isOnlineHere(userId)) cameOnline.add(userId);
+            else if (!online && !isOnlineHere(userId)) wentOffline.add(userId);
+        }
+        directory.publish(cameOnline, wentOffline);
+
+        Set<Long> orphaned = directory.reapDeadNodes();
+        orphaned.forEach(id -> { if (!isOnlineHere(id)) wentOffline.add(id); });
+        if (cameOnline.isEmpty() && wentOffline.isEmpty()) return;
+
+        // Counterparts already saw users who were online on another node, and still do
+        Set<Long> elsewhere = directory.onlineElsewhere(union(cameOnline, wentOffline));
+        cameOnline.removeAll(elsewhere);
+        wentOffline.removeAll(elsewhere);
+        if (cameOnline.isEmpty() && wentOffline.isEmpty()) return;
+        push(cameOnline, wentOffline);
+    }
+
+    private void push(Set<Long> cameOnline, Set<Long> wentOffline) {
+        Map<Long, List<Long>> onlineFor = new HashMap<>();
+        Map<Long, List<Long>> offlineFor = new HashMap<>();
+        for (CounterpartRow row : chatRoomRepository.findCounterparts(union(cameOnline, wentOffline))) {
+            Map<Long, List<Long>> target = cameOnline.contains(row.getUserId()) ? onlineFor : offlineFor;
+            target.computeIfAbsent(row.getCounterpartId(), id -> new ArrayList<>()).add(row.getUserId());
+        }
+
+        // Only online recipients get a frame; the rest read the snapshot when they connect
+        for (Long recipient : online(union(onlineFor.keySet(), offlineFor.keySet()))) {
+            messageRelay.convertAndSendToUser(String.valueOf(recipient), DESTINATION,
+                    PresenceUpdateResponse.builder()
+                            .online(onlineFor.getOrDefault(recipient, List.of()))
+                            .offline(offlineFor.getOrDefault(recipient, List.of()))
+                            .build());
+            pushedCounter.increment();
+        }
+    }
+
+    private static Set<Long> union(Set<Long> a, Set<Long> b) {
+        Set<Long> all = new HashSet<>(a);
+        all.addAll(b);
+        return all;
+    }
+
+    // ─── Lifecycle ────────────────────────────────────────────────────────────
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /** Announces this node's users as offline before the relay goes away. */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            sessions.keySet().forEach(this::disconnected);
+            flush();
+            directory.leave();
+        } catch (RuntimeException e) {
+            log.warn("Could not announce presence on shutdown: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Starts after the relay and directory are ready and stops before them. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1024;
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.managementproject.service;
+
+import java.util.List;
+
+/**
+ * Published by {@link PropertyService} for newly stored images, so
+ * {@link ImageVariantService} can resize them once the upload has committed.
+ */
+public record PropertyImagesUploadedEvent(List<Long> imageIds) {
+}
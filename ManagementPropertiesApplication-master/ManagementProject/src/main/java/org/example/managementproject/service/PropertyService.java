@@ -2,6 +2,7 @@ package org.example.managementproject.service;
 
 import lombok.RequiredArgsConstructor;
 import org.example.managementproject.dto.request.PropertyRequest;
+import org.example.managementproject.dto.response.PropertyImageResponse;
 import org.example.managementproject.dto.response.PropertyResponse;
 import org.example.managementproject.model.PropertyStatus;
 import org.example.managementproject.model.exception.AccessDeniedException;
@@ -13,6 +14,9 @@ import org.example.managementproject.repository.PropertyImageRepository;
 import org.example.managementproject.repository.PropertyRepository;
 import org.example.managementproject.repository.ReviewRepository;
 import org.example.managementproject.repository.specifications.PropertySpecification;
+import org.example.managementproject.security.AuthenticatedUser;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,6 +24,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,6 +38,8 @@ public class PropertyService {
     private final ReviewRepository reviewRepository;
     private final EmailService emailService;
     private final GeocodingService geocodingService;
+    private final TaskExecutor geocodingExecutor;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     @Transactional(readOnly = true)
@@ -91,9 +98,9 @@ public class PropertyService {
         Property property = findPropertyById(id);
         checkOwnershipOrAdmin(property);
 
-        User currentUser = userService.getAuthenticatedUser();
-        boolean isAdmin = currentUser.getRole().getName().equals("ROLE_ADMIN");
-        boolean isAgent = currentUser.getRole().getName().equals("ROLE_AGENT");
+        AuthenticatedUser currentUser = userService.getAuthenticatedPrincipal();
+        boolean isAdmin = "ROLE_ADMIN".equals(currentUser.role());
+        boolean isAgent = "ROLE_AGENT".equals(currentUser.role());
 
         // Check if sensitive fields changed
         boolean sensitiveFieldsChanged = 
@@ -174,6 +181,7 @@ public class PropertyService {
                 .findByPropertyAndIsMainTrue(property).isPresent();
 
         List<String> urls = new java.util.ArrayList<>();
+        List<Long> imageIds = new java.util.ArrayList<>();
 
         for (int i = 0; i < files.size(); i++) {
             String url = fileStorageService.storeFile(files.get(i));
@@ -182,10 +190,12 @@ public class PropertyService {
                     .imageUrl(url)
                     .isMain(!hasMain && i == 0)
                     .build();
-            propertyImageRepository.save(image);
+            imageIds.add(propertyImageRepository.save(image).getId());
             urls.add(url);
         }
 
+        // Resized after commit on the image executor; responses show the original until then
+        eventPublisher.publishEvent(new PropertyImagesUploadedEvent(imageIds));
         return urls;
     }
 
@@ -217,6 +227,7 @@ public class PropertyService {
                 .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
 
         fileStorageService.deleteFile(image.getImageUrl());
+        image.variantUrls().forEach(fileStorageService::deleteFile);
         propertyImageRepository.delete(image);
 
         // If deleted image was main, set first remaining as main
@@ -237,7 +248,10 @@ public class PropertyService {
 
         // Delete all images from disk
         propertyImageRepository.findByProperty(property)
-                .forEach(img -> fileStorageService.deleteFile(img.getImageUrl()));
+                .forEach(img -> {
+                    fileStorageService.deleteFile(img.getImageUrl());
+                    img.variantUrls().forEach(fileStorageService::deleteFile);
+                });
 
         propertyRepository.delete(property);
     }
@@ -317,9 +331,9 @@ public class PropertyService {
 
 
     private void checkOwnershipOrAdmin(Property property) {
-        User currentUser = userService.getAuthenticatedUser();
-        boolean isAdmin  = currentUser.getRole().getName().equals("ROLE_ADMIN");
-        boolean isOwner  = property.getAgent().getId().equals(currentUser.getId());
+        AuthenticatedUser currentUser = userService.getAuthenticatedPrincipal();
+        boolean isAdmin  = "ROLE_ADMIN".equals(currentUser.role());
+        boolean isOwner  = property.getAgent().getId().equals(currentUser.id());
         if (!isAdmin && !isOwner) {
             throw new AccessDeniedException("You do not have permission to modify this property");
         }
@@ -339,6 +353,14 @@ public class PropertyService {
                 .map(img -> "http://localhost:8080" + img.getImageUrl())
                 .collect(Collectors.toList());
 
+        List<PropertyImageResponse> imageResponses = images.stream()
+                .map(this::toImageResponse)
+                .toList();
+        PropertyImageResponse mainImage = imageResponses.stream()
+                .filter(PropertyImageResponse::isMain)
+                .findFirst()
+                .orElse(imageResponses.isEmpty() ? null : imageResponses.get(0));
+
         Double avgRating = reviewRepository.findAverageRatingByPropertyId(property.getId());
         long reviewCount = reviewRepository.countByPropertyId(property.getId());
 
@@ -357,6 +379,8 @@ public class PropertyService {
                 .available(property.isAvailable())
                 .mainImageUrl(mainImageUrl)
                 .imageUrls(imageUrls)
+                .mainImage(mainImage)
+                .images(imageResponses)
                 .agentId(property.getAgent().getId())
                 .agentName(property.getAgent().getFirstName() + " " + property.getAgent().getLastName())
                 .agentVerified(property.getAgent().isVerified())
@@ -368,6 +392,26 @@ public class PropertyService {
                 .longitude(property.getLongitude())
                 .build();
     }
+    private PropertyImageResponse toImageResponse(PropertyImage image) {
+        String original = absoluteUrl(image.getImageUrl());
+        return PropertyImageResponse.builder()
+                .id(image.getId())
+                .main(image.isMain())
+                .original(original)
+                .thumbnail(image.getThumbnailUrl() != null ? absoluteUrl(image.getThumbnailUrl()) : original)
+                .card(image.getCardUrl() != null ? absoluteUrl(image.getCardUrl()) : original)
+                .full(image.getFullUrl() != null ? absoluteUrl(image.getFullUrl()) : original)
+                .thumbnailWebp(absoluteUrl(image.getThumbnailWebpUrl()))
+                .cardWebp(absoluteUrl(image.getCardWebpUrl()))
+                .fullWebp(absoluteUrl(image.getFullWebpUrl()))
+                .build();
+    }
+
+    private static String absoluteUrl(String url) {
+        if (url == null) return null;
+        return url.startsWith("http") ? url : "http://localhost:8080" + url;
+    }
+
     /**
      * Retroactively geocode all existing properties that have no lat/lng.
      * Triggered via /properties/admin/geocode-all
@@ -378,10 +422,16 @@ public class PropertyService {
                 .filter(p -> p.getLatitude() == null || p.getLongitude() == null)
                 .collect(Collectors.toList());
 
+        // Run the API calls in parallel on the bounded geocoding pool; entities are only touched here
+        List<CompletableFuture<double[]>> lookups = ungeocoded.stream()
+                .map(p -> p.getAddress() + ", " + p.getCity() + ", " + p.getCountry())
+                .map(address -> CompletableFuture.supplyAsync(() -> geocodingService.geocode(address), geocodingExecutor))
+                .toList();
+
         int count = 0;
-        for (Property p : ungeocoded) {
-            String fullAddress = p.getAddress() + ", " + p.getCity() + ", " + p.getCountry();
-            double[] coords = geocodingService.geocode(fullAddress);
+        for (int i = 0; i < ungeocoded.size(); i++) {
+            Property p = ungeocoded.get(i);
+            double[] coords = lookups.get(i).join();
             if (coords != null) {
                 p.setLatitude(coords[0]);
                 p.setLongitude(coords[1]);
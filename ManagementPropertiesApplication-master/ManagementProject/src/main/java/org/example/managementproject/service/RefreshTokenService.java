@@ -0,0 +1,133 @@
+package org.example.managementproject.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.managementproject.model.RefreshToken;
+import org.example.managementproject.model.User;
+import org.example.managementproject.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Long-lived refresh tokens behind the short-lived access tokens. The client holds a
+ * random 256-bit token; the database holds only its SHA-256 hash. Every refresh rotates
+ * the token, and a rotated token presented again (after {@code reuse-grace}, which
+ * covers two tabs refreshing at once) revokes the whole family: either the client or a
+ * thief holds a copy, and neither can be trusted.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** The user behind a refresh, with the token that replaces the one presented. */
+    public record Rotation(User user, String refreshToken) {}
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration reuseGrace;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${app.jwt.refresh.ttl:14d}") Duration ttl,
+                               @Value("${app.jwt.refresh.reuse-grace:10s}") Duration reuseGrace) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.reuseGrace = reuseGrace;
+    }
+
+    /** Starts a new token family, on login or registration. */
+    @Transactional
+    public String issue(User user) {
+        return store(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one in the same family.
+     *
+     * @throws CredentialsExpiredException if the token is unknown, expired, already used
+     *                                     or belongs to a deactivated user
+     */
+    // The family revocation must commit even though the caller gets an error
+    @Transactional(noRollbackFor = CredentialsExpiredException.class)
+    public Rotation rotate(String rawToken) {
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new CredentialsExpiredException("Refresh token is invalid or expired"));
+
+        if (current.isExpired() || !current.getUser().isEnabled()) {
+            throw new CredentialsExpiredException("Refresh token is invalid or expired");
+        }
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            LocalDateTime usedAt = current.getUsedAt();
+            if (usedAt == null || usedAt.isAfter(now.minus(reuseGrace))) {
+                // Lost a race with a concurrent refresh of the same token
+                throw new CredentialsExpiredException("Refresh token was just rotated");
+            }
+            refreshTokenRepository.deleteFamily(current.getFamilyId());
+            log.warn("Refresh token reuse for user {}; revoked its token family", current.getUser().getId());
+            throw new CredentialsExpiredException("Refresh token is invalid or expired");
+        }
+        return new Rotation(current.getUser(), store(current.getUser(), current.getFamilyId()));
+    }
+
+    /** Ends the session the token belongs to; unknown tokens are ignored. */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.deleteFamily(token.getFamilyId()));
+    }
+
+    /** Ends every session of the user, on password reset or deactivation. */
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    // Used tokens are kept until they expire, for reuse detection
+    @Scheduled(cron = "${app.jwt.refresh.purge-cron:0 15 4 * * *}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status -> refreshTokenRepository.deleteExpired(LocalDateTime.now()));
+        log.info("Purged {} expired refresh tokens", purged);
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────────────────────
+
+    private String store(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .user(user)
+                .expiresAt(LocalDateTime.now().plus(ttl))
+                .build());
+        return rawToken;
+    }
+
+    static String hash(String rawToken) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.example.managementproject.model.Review;
 import org.example.managementproject.model.User;
 import org.example.managementproject.repository.PropertyRepository;
 import org.example.managementproject.repository.ReviewRepository;
+import org.example.managementproject.security.AuthenticatedUser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -77,9 +78,9 @@ public class ReviewService {
     public void deleteReview(Long id) {
         Review review = reviewRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
-        User currentUser = userService.getAuthenticatedUser();
-        boolean isAdmin = currentUser.getRole().getName().equals("ROLE_ADMIN");
-        boolean isOwner = review.getUser().getId().equals(currentUser.getId());
+        AuthenticatedUser currentUser = userService.getAuthenticatedPrincipal();
+        boolean isAdmin = "ROLE_ADMIN".equals(currentUser.role());
+        boolean isOwner = review.getUser().getId().equals(currentUser.id());
         if (!isAdmin && !isOwner)
             throw new AccessDeniedException("You do not have permission to delete this review");
         reviewRepository.delete(review);
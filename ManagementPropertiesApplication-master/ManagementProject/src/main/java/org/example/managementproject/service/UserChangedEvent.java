@@ -0,0 +1,8 @@
+package org.example.managementproject.service;
+
+/**
+ * Published by {@link UserService} whenever a user's profile, role or account is changed
+ * or deleted, so in-memory caches keyed by user id can drop their copy.
+ */
+public record UserChangedEvent(Long userId) {
+}
@@ -0,0 +1,12 @@
+package org.example.managementproject.service;
+
+/**
+ * Sends a message to every STOMP session of a user. The simple broker only knows the
+ * sessions connected to this JVM, so with more than one backend instance the message
+ * has to be relayed to the other nodes as well; {@code app.chat.relay.mode} picks how.
+ */
+public interface UserMessageRelay {
+
+    /** Same contract as {@code SimpMessagingTemplate#convertAndSendToUser}, but cluster-wide. */
+    void convertAndSendToUser(String user, String destination, Object payload);
+}
@@ -4,23 +4,36 @@ import lombok.RequiredArgsConstructor;
 import org.example.managementproject.dto.request.UpdateUserRequest;
 import org.example.managementproject.dto.response.UserResponse;
 import org.example.managementproject.model.exception.ResourceNotFoundException;
+import org.example.managementproject.model.NotificationDelivery;
 import org.example.managementproject.model.Role;
 import org.example.managementproject.model.User;
 import org.example.managementproject.repository.RoleRepository;
 import org.example.managementproject.repository.UserRepository;
+import org.example.managementproject.security.AuthenticatedUser;
+import org.example.managementproject.security.TokenRevocationList;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final String AUTHENTICATED_USER_ATTRIBUTE = UserService.class.getName() + ".authenticatedUser";
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TokenRevocationList revocationList;
+    private final RefreshTokenService refreshTokenService;
 
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
@@ -36,13 +49,16 @@ public class UserService {
     public UserResponse updateUser(Long id, UpdateUserRequest request) {
         User user = findUserById(id);
         applyUpdates(user, request);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         return toResponse(userRepository.save(user));
     }
 
     @Transactional
     public void deleteUser(Long id) {
         User user = findUserById(id);
-        userRepository.delete(user);
+        userRepository.delete(user);   // refresh tokens go with it (ON DELETE CASCADE)
+        revocationList.revokeUser(id, Integer.MAX_VALUE);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
     }
 
     @Transactional
@@ -52,6 +68,8 @@ public class UserService {
         Role role = roleRepository.findByName(fullRoleName)
                 .orElseThrow(() -> new IllegalArgumentException("Role not found: " + fullRoleName));
         user.setRole(role);
+        revocationList.revokeAccessTokens(user);   // the next refresh carries the new role
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         return toResponse(userRepository.save(user));
     }
 
@@ -63,6 +81,7 @@ public class UserService {
     public UserResponse updateCurrentUser(UpdateUserRequest request) {
         User user = getAuthenticatedUser();
         applyUpdates(user, request);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
         return toResponse(userRepository.save(user));
     }
 
@@ -73,6 +92,21 @@ public class UserService {
             throw new IllegalArgumentException("Only users with the AGENT role can be verified.");
         }
         user.setVerified(!user.isVerified());
+        revocationList.revokeAccessTokens(user);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
+        return toResponse(userRepository.save(user));
+    }
+
+    /** Deactivated users keep their data but their tokens stop working. */
+    @Transactional
+    public UserResponse setActive(Long id, boolean active) {
+        User user = findUserById(id);
+        user.setActive(active);
+        if (!active) {
+            revocationList.revokeAccessTokens(user);
+            refreshTokenService.revokeAll(id);
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         return toResponse(userRepository.save(user));
     }
 
@@ -82,14 +116,52 @@ public class UserService {
     private void applyUpdates(User user, UpdateUserRequest request) {
         if (request.getFirstName() != null) user.setFirstName(request.getFirstName());
         if (request.getLastName()  != null) user.setLastName(request.getLastName());
-        if (request.getEmail()     != null) user.setEmail(request.getEmail());
+        if (request.getEmail() != null && !request.getEmail().equals(user.getEmail())) {
+            user.setEmail(request.getEmail());
+            revocationList.revokeAccessTokens(user);   // tokens name the user by email
+        }
         if (request.getPhone()     != null) user.setPhone(request.getPhone());
+        if (request.getNotificationDelivery() != null) user.setNotificationDelivery(request.getNotificationDelivery());
+    }
+
+    /** The caller's id straight from the request principal, for callers that need nothing else. */
+    public Long getAuthenticatedUserId() {
+        return getAuthenticatedPrincipal().id();
+    }
+
+    /**
+     * Id, email, role and account flags of the caller, as the authentication filter resolved
+     * them; enough for ownership and role checks without touching the database.
+     */
+    public AuthenticatedUser getAuthenticatedPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+        User user = getAuthenticatedUser();
+        return new AuthenticatedUser(user.getId(), user.getEmail(),
+                user.getRole() != null ? user.getRole().getName() : null, user.isVerified(), user.isActive());
     }
 
+    /** The caller's entity, loaded at most once per HTTP request however many services ask for it. */
     public User getAuthenticatedUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Authenticated user not found"));
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) return loadAuthenticatedUser();   // STOMP, scheduled and async work
+
+        User user = (User) request.getAttribute(AUTHENTICATED_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (user == null) {
+            user = loadAuthenticatedUser();
+            request.setAttribute(AUTHENTICATED_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    private User loadAuthenticatedUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Optional<User> user = authentication.getPrincipal() instanceof AuthenticatedUser principal
+                ? userRepository.findById(principal.id())
+                : userRepository.findByEmail(authentication.getName());
+        return user.orElseThrow(() -> new ResourceNotFoundException("Authenticated user not found"));
     }
 
     private User findUserById(Long id) {
@@ -108,6 +180,8 @@ public class UserService {
                 .role(user.getRole() != null ? user.getRole().getName() : "ROLE_USER")
                 .active(user.isActive())
                 .verified(user.isVerified())
+                .notificationDelivery(user.getNotificationDelivery() != null
+                        ? user.getNotificationDelivery().name() : NotificationDelivery.IMMEDIATE.name())
                 .createdAt(user.getCreatedAt())
                 .build();
     }
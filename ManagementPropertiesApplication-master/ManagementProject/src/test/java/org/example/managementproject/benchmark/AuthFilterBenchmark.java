@@ -0,0 +1,109 @@
+package org.example.managementproject.benchmark;
+
+import org.example.managementproject.ManagementProjectApplication;
+import org.example.managementproject.model.User;
+import org.example.managementproject.repository.UserRepository;
+import org.example.managementproject.security.JwtAuthenticationFilter;
+import org.example.managementproject.security.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request, against the database configured in
+ * {@code application.yml}. {@code perRequestLookup} is the previous filter — validate the
+ * token, then load the user with its role on every request — and
+ * {@code claimsPrincipal} is {@link JwtAuthenticationFilter} as it is now: claims plus the
+ * in-memory revocation check. Run before and after touching the filter or {@link JwtService}:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main AuthFilterBenchmark
+ * </pre>
+ *
+ * The first user in the database is the caller; no data is written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthFilterBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private JwtAuthenticationFilter filter;
+    private JwtService jwtService;
+    private UserDetailsService userDetailsService;
+    private String authHeader;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ManagementProjectApplication.class)
+                .run("--server.port=0", "--logging.level.root=WARN");
+        filter = context.getBean(JwtAuthenticationFilter.class);
+        jwtService = context.getBean(JwtService.class);
+        userDetailsService = context.getBean(UserDetailsService.class);
+        User user = context.getBean(UserRepository.class).findAll().stream().findFirst()
+                .orElseThrow(() -> new IllegalStateException("The benchmark needs at least one user"));
+        authHeader = "Bearer " + jwtService.generateToken(user);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication perRequestLookup() {
+        SecurityContextHolder.clearContext();
+        String jwt = authHeader.substring(7);
+        String email = jwtService.extractUsername(jwt);
+        UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+        if (!jwtService.isTokenValid(jwt, userDetails)) throw new IllegalStateException("Token rejected");
+        Authentication authentication =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authentication;
+    }
+
+    @Benchmark
+    public Authentication claimsPrincipal() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", authHeader);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) throw new IllegalStateException("Token rejected");
+        return authentication;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,202 @@
+package org.example.managementproject.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sustained STOMP chat throughput on a single node. Registers {@code pairs * 2} throwaway
+ * users, connects each with its own token over the raw {@code /ws/websocket} endpoint and
+ * has one user of every pair send to the other as fast as a bounded in-flight window allows. Latency is
+ * measured from send to delivery on the recipient's subscription, so it covers the
+ * controller, the database insert and the broker hop.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     org.example.managementproject.benchmark.ChatThroughputBenchmark \
+ *     http://localhost:8080 50 60 16
+ * </pre>
+ *
+ * Arguments: base URL, sender/recipient pairs, duration in seconds and messages in
+ * flight per sender. All registrations come from one address, so start the server with
+ * {@code --app.security.login-rate.per-address=10000 --app.rate-limit.enabled=false} for
+ * more than ten pairs.
+ */
+public class ChatThroughputBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final String baseUrl;
+    private final int window;
+    private final Map<Long, Semaphore> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, String> tokens = new ConcurrentHashMap<>();
+    private final RequestLoadGenerator.Recorder delivered = new RequestLoadGenerator.Recorder();
+
+    ChatThroughputBenchmark(String baseUrl, int window) {
+        this.baseUrl = baseUrl;
+        this.window = window;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int pairs = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int window = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        ChatThroughputBenchmark benchmark = new ChatThroughputBenchmark(baseUrl, window);
+        List<long[]> userPairs = benchmark.registerPairs(pairs);
+        WebSocketStompClient stomp = new WebSocketStompClient(new StandardWebSocketClient());
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+        try {
+            benchmark.run(stomp, userPairs, Duration.ofSeconds(seconds));
+        } finally {
+            stomp.stop();
+        }
+    }
+
+    // ─── Setup ────────────────────────────────────────────────────────────────
+
+    List<long[]> registerPairs(int pairs) throws Exception {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<long[]> result = new ArrayList<>(pairs);
+        for (int i = 0; i < pairs; i++) {
+            result.add(new long[]{register(run, "s" + i), register(run, "r" + i)});
+        }
+        return result;
+    }
+
+    private long register(String run, String name) throws Exception {
+        Map<String, String> body = Map.of(
+                "firstName", "Bench", "lastName", name,
+                "email", "chatbench-" + run + "-" + name + "@example.com",
+                "password", "benchmark-password");
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Registration failed with HTTP " + response.statusCode());
+        }
+        JsonNode auth = MAPPER.readTree(response.body());
+        tokens.put(auth.path("userId").asLong(), auth.path("token").asText());
+        return auth.path("userId").asLong();
+    }
+
+    private StompSession connect(WebSocketStompClient stomp, long userId) throws Exception {
+        String url = baseUrl.replaceFirst("^http", "ws") + "/ws/websocket";
+        StompHeaders headers = new StompHeaders();
+        headers.add("Authorization", "Bearer " + tokens.get(userId));
+        StompSession session = stomp.connectAsync(url, new WebSocketHttpHeaders(), headers, new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+        session.subscribe("/user/" + userId + "/queue/messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return JsonNode.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                JsonNode message = (JsonNode) payload;
+                long sentAt = Long.parseLong(message.path("content").asText());
+                delivered.record(System.nanoTime() - sentAt, 200);
+                Semaphore permits = inFlight.get(message.path("senderId").asLong());
+                if (permits != null) permits.release();
+            }
+        });
+        return session;
+    }
+
+    // ─── Load ─────────────────────────────────────────────────────────────────
+
+    void run(WebSocketStompClient stomp, List<long[]> pairs, Duration duration) throws Exception {
+        List<StompSession> senders = new ArrayList<>(pairs.size());
+        for (long[] pair : pairs) {
+            inFlight.put(pair[0], new Semaphore(window));
+            senders.add(connect(stomp, pair[0]));
+            connect(stomp, pair[1]);
+        }
+
+        // Open every conversation with a single message first, so the load below measures
+        // steady-state sends rather than concurrent chat-room creation
+        for (int i = 0; i < pairs.size(); i++) {
+            inFlight.get(pairs.get(i)[0]).acquire();
+            send(senders.get(i), pairs.get(i)[0], pairs.get(i)[1]);
+        }
+        awaitDelivery(pairs);
+
+        // Warm-up fills the chat-room and display-name caches and lets the JIT settle
+        drive(senders, pairs, Duration.ofSeconds(5));
+        delivered.reset();
+
+        long start = System.nanoTime();
+        drive(senders, pairs, duration);
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("%d pairs, window %d, %.0fs%n", pairs.size(), window, elapsed);
+        delivered.print("message", elapsed);
+    }
+
+    private void drive(List<StompSession> senders, List<long[]> pairs, Duration duration)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < pairs.size(); i++) {
+                StompSession session = senders.get(i);
+                long senderId = pairs.get(i)[0];
+                long recipientId = pairs.get(i)[1];
+                Semaphore permits = inFlight.get(senderId);
+                pool.submit(() -> {
+                    while (running.get()) {
+                        if (!permits.tryAcquire(1, TimeUnit.SECONDS)) continue;
+                        send(session, senderId, recipientId);
+                    }
+                    return null;
+                });
+            }
+            TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+            running.set(false);
+        }
+        // Let in-flight messages land so they do not spill into the next phase
+        awaitDelivery(pairs);
+    }
+
+    private static void send(StompSession session, long senderId, long recipientId) {
+        session.send("/app/chat", Map.of(
+                "sender", Map.of("id", senderId),
+                "recipient", Map.of("id", recipientId),
+                "content", Long.toString(System.nanoTime())));
+    }
+
+    private void awaitDelivery(List<long[]> pairs) throws InterruptedException {
+        for (long[] pair : pairs) {
+            inFlight.get(pair[0]).tryAcquire(window, 10, TimeUnit.SECONDS);
+            inFlight.get(pair[0]).release(window);
+        }
+    }
+}
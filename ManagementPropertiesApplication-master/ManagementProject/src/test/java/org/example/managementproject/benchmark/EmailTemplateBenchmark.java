@@ -0,0 +1,123 @@
+package org.example.managementproject.benchmark;
+
+import org.example.managementproject.model.Booking;
+import org.example.managementproject.model.DigestItem;
+import org.example.managementproject.model.Property;
+import org.example.managementproject.model.User;
+import org.example.managementproject.service.EmailTemplates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Render throughput for every notification type. Run before and after touching
+ * anything under {@code templates/email} or {@link EmailTemplates}:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main EmailTemplateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private EmailTemplates templates;
+    private Booking booking;
+    private Property property;
+    private List<DigestItem> digestItems;
+
+    @Setup
+    public void setUp() {
+        templates = new EmailTemplates();
+        User agent = User.builder().firstName("Ana").lastName("Agent").email("agent@example.com").build();
+        User guest = User.builder().firstName("Gus").lastName("Guest").email("guest@example.com").build();
+        property = Property.builder().title("Sea View Villa").city("Split").country("Croatia")
+                .pricePerNight(150.0).agent(agent).build();
+        booking = Booking.builder().property(property).user(guest)
+                .checkInDate(LocalDate.of(2026, 7, 1)).checkOutDate(LocalDate.of(2026, 7, 4))
+                .guests(2).totalPrice(450.0).specialRequests("Late check-in, around 23:00").build();
+        digestItems = IntStream.range(0, 20)
+                .mapToObj(i -> DigestItem.builder()
+                        .recipient("agent@example.com").recipientName("Ana")
+                        .category(i % 2 == 0 ? "New booking requests" : "Listings awaiting approval")
+                        .summary("Guest " + i + " requested Sea View Villa from 2026-07-01 to 2026-07-04")
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public String bookingCreated() {
+        return templates.bookingCreated(booking).body();
+    }
+
+    @Benchmark
+    public String bookingConfirmed() {
+        return templates.bookingConfirmed(booking).body();
+    }
+
+    @Benchmark
+    public String bookingCancelled() {
+        return templates.bookingCancelled(booking).body();
+    }
+
+    @Benchmark
+    public String bookingRejected() {
+        return templates.bookingRejected(booking).body();
+    }
+
+    @Benchmark
+    public String newBookingToAgent() {
+        return templates.newBookingToAgent(booking).body();
+    }
+
+    @Benchmark
+    public String propertyApproved() {
+        return templates.propertyApproved(property).body();
+    }
+
+    @Benchmark
+    public String propertyPending() {
+        return templates.propertyPending(property).body();
+    }
+
+    @Benchmark
+    public String propertyRejected() {
+        return templates.propertyRejected(property).body();
+    }
+
+    @Benchmark
+    public String passwordReset() {
+        return templates.passwordReset("Gus", "http://localhost:3000/reset-password?token=abc").body();
+    }
+
+    @Benchmark
+    public String digest() {
+        return templates.digest("Ana", digestItems).body();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailTemplateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
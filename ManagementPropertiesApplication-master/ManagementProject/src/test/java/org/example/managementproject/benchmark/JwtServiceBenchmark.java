@@ -0,0 +1,91 @@
+package org.example.managementproject.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.example.managementproject.model.Role;
+import org.example.managementproject.model.User;
+import org.example.managementproject.security.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verification cost. {@code rebuildPerCall} is what {@link JwtService} used to do
+ * for every token — decode the secret, build a key and a parser, then parse three times
+ * (subject, subject again, expiry) — {@code singleParse} is one parse with the prebuilt
+ * parser and {@code verifiedCache} is a repeat of a recently verified token:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main JwtServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService uncached;
+    private JwtService cached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncached = new JwtService(SECRET, 3_600_000, 0, Duration.ZERO);
+        cached = new JwtService(SECRET, 3_600_000, 10_000, Duration.ofMinutes(5));
+        token = uncached.generateToken(User.builder().id(7L).email("agent@example.com")
+                .role(Role.builder().name("ROLE_AGENT").build()).build());
+    }
+
+    @Benchmark
+    public boolean rebuildPerCall() {
+        String subject = parseWithNewParser().getSubject();
+        return subject.equals(parseWithNewParser().getSubject())
+                && !parseWithNewParser().getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return uncached.parse(token);
+    }
+
+    @Benchmark
+    public Claims verifiedCache() {
+        return cached.parse(token);
+    }
+
+    private Claims parseWithNewParser() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.managementproject.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Search latency with and without a credential-stuffing burst. Search clients run
+ * throughout; halfway through, attackers start posting wrong passwords for random
+ * accounts as fast as they can. The attackers should mostly see 429 (rate limited) and
+ * 503 (hashing pool full) rather than 401.
+ *
+ * <p>Search latency does not stay flat on a single core. On one core shared by the server,
+ * PostgreSQL and this test (4 search clients, 100 attackers, 2000 properties), search
+ * p50/p99 went from about 265/500 ms quiet to 670-815/1440-1590 ms in the storm. The
+ * attackers are a closed loop: each refusal is answered with another attempt, so they
+ * take the core however cheap a refusal is. A refusal cost the server about 0.8 ms of
+ * CPU, kernel included, and cost this test about 0.6 ms to send. The 20 attempts an
+ * address may make per minute still cost a BCrypt hash each. Flat search latency needs
+ * the attackers on other machines and spare cores for the server.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     org.example.managementproject.benchmark.LoginStormLoadTest \
+ *     http://localhost:8080 guest@example.com password 50 200 30
+ * </pre>
+ *
+ * Arguments: base URL, login email and password for the search clients, search clients,
+ * attackers and seconds per phase. Every attacker shares this machine's address, so the
+ * per-address limit alone stops them; start the server with
+ * {@code --app.security.login-rate.per-address=1000000} to see what the hashing pool does
+ * on its own, as with a botnet. The search clients share one login, so also start it with
+ * {@code RATE_LIMIT_ENABLED=false}.
+ */
+public class LoginStormLoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private String token;
+
+    private final RequestLoadGenerator.Recorder searches = new RequestLoadGenerator.Recorder();
+    private final Map<Integer, LongAdder> loginStatuses = new ConcurrentHashMap<>();
+
+    LoginStormLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String email = args.length > 1 ? args[1] : "guest@example.com";
+        String password = args.length > 2 ? args[2] : "password";
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        int attackers = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+        int seconds = args.length > 5 ? Integer.parseInt(args[5]) : 30;
+
+        LoginStormLoadTest test = new LoginStormLoadTest(baseUrl);
+        test.login(email, password);
+        test.run(clients, attackers, Duration.ofSeconds(seconds));
+    }
+
+    void login(String email, String password) throws Exception {
+        HttpResponse<String> response = http.send(loginRequest(email, password), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with HTTP " + response.statusCode());
+        }
+        token = MAPPER.readTree(response.body()).path("token").asText();
+    }
+
+    void run(int clients, int attackers, Duration phase) throws InterruptedException {
+        drive(Math.max(1, clients / 10), 0, Duration.ofSeconds(5));   // warm-up
+        searches.reset();
+
+        drive(clients, 0, phase);
+        System.out.printf("%d search clients, %ds per phase%n", clients, phase.toSeconds());
+        searches.print("quiet", phase.toSeconds());
+
+        searches.reset();
+        drive(clients, attackers, phase);
+        searches.print("storm", phase.toSeconds());
+
+        long attempts = loginStatuses.values().stream().mapToLong(LongAdder::sum).sum();
+        System.out.printf("  %d login attempts by %d attackers (%.0f/s):", attempts, attackers,
+                attempts / (double) phase.toSeconds());
+        loginStatuses.forEach((status, count) -> System.out.printf("  %s %d", status == 0 ? "io" : status, count.sum()));
+        System.out.println();
+    }
+
+    private void drive(int clients, int attackers, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                pool.submit(() -> {
+                    while (System.nanoTime() < deadline) search();
+                });
+            }
+            for (int i = 0; i < attackers; i++) {
+                pool.submit(() -> {
+                    while (System.nanoTime() < deadline) attack();
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+    }
+
+    private void search() {
+        String path = "/api/properties?page=" + ThreadLocalRandom.current().nextInt(5) + "&size=12";
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            searches.record(System.nanoTime() - start, response.statusCode());
+        } catch (Exception e) {
+            searches.error();
+        }
+    }
+
+    private void attack() {
+        int status;
+        try {
+            status = http.send(loginRequest("victim-" + UUID.randomUUID() + "@example.com", "hunter2"),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            status = 0;
+        }
+        loginStatuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    private HttpRequest loginRequest(String email, String password) throws Exception {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        MAPPER.writeValueAsString(Map.of("email", email, "password", password))))
+                .build();
+    }
+}
@@ -0,0 +1,244 @@
+package org.example.managementproject.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator for comparing platform-thread and virtual-thread request
+ * handling. Each simulated client loops over a mixed workload, mostly property searches
+ * with a share of booking requests, and records per-request latency.
+ *
+ * <p>Start the application once with {@code VIRTUAL_THREADS=false} and once with
+ * {@code VIRTUAL_THREADS=true} against the same database, and run the generator with
+ * identical arguments each time:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     org.example.managementproject.benchmark.RequestLoadGenerator \
+ *     http://localhost:8080 guest@example.com password 400 60 0.2
+ * </pre>
+ *
+ * Arguments: base URL, login email, password, concurrent clients, duration in seconds
+ * and the booking share of the workload. Use more clients than Tomcat's 200 platform
+ * threads so the request pool, not the client, is what saturates first. Every client
+ * shares one login, so start the server with {@code RATE_LIMIT_ENABLED=false}.
+ *
+ * <p>On a single core shared by the application, PostgreSQL and the generator, virtual
+ * threads do not win: at 50 clients they served 9.5–12.0 requests/s with a p99 of 16–21 s
+ * against 14.4–16.3 requests/s and 6 s on platform threads, and at 400 clients both modes
+ * mostly timed out waiting for a connection. The CPU is the limit there, not the number of
+ * request threads, and the one carrier thread gets no more of the core than any other
+ * thread. The comparison needs spare cores and the database on another machine.
+ */
+public class RequestLoadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String[] CITIES = {"Skopje", "Ohrid", "Split", "Belgrade", "Sofia", ""};
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final double bookingShare;
+    private String token;
+    private List<Long> propertyIds = List.of();
+
+    private final Recorder searches = new Recorder();
+    private final Recorder bookings = new Recorder();
+
+    RequestLoadGenerator(String baseUrl, double bookingShare) {
+        this.baseUrl = baseUrl;
+        this.bookingShare = bookingShare;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String email = args.length > 1 ? args[1] : "guest@example.com";
+        String password = args.length > 2 ? args[2] : "password";
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 400;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 60;
+        double bookingShare = args.length > 5 ? Double.parseDouble(args[5]) : 0.2;
+
+        RequestLoadGenerator generator = new RequestLoadGenerator(baseUrl, bookingShare);
+        generator.login(email, password);
+        generator.loadPropertyIds();
+        generator.run(clients, Duration.ofSeconds(seconds));
+    }
+
+    // ─── Setup ────────────────────────────────────────────────────────────────
+
+    void login(String email, String password) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                MAPPER.writeValueAsString(Map.of("email", email, "password", password))))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with HTTP " + response.statusCode());
+        }
+        token = MAPPER.readTree(response.body()).path("token").asText();
+    }
+
+    void loadPropertyIds() throws Exception {
+        HttpResponse<String> response = http.send(authorized("/api/properties?size=100").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode property : MAPPER.readTree(response.body()).path("content")) {
+            ids.add(property.path("id").asLong());
+        }
+        if (ids.isEmpty()) throw new IllegalStateException("No properties to book — seed the database first");
+        propertyIds = ids;
+    }
+
+    // ─── Load ─────────────────────────────────────────────────────────────────
+
+    void run(int clients, Duration duration) throws InterruptedException {
+        // Short warm-up so JIT and connection pools settle before measuring
+        drive(Math.max(1, clients / 10), Duration.ofSeconds(5));
+        searches.reset();
+        bookings.reset();
+
+        long start = System.nanoTime();
+        drive(clients, duration);
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("%d clients, %.0fs, booking share %.0f%%%n", clients, elapsed, bookingShare * 100);
+        searches.print("search", elapsed);
+        bookings.print("booking", elapsed);
+        Recorder.merge(searches, bookings).print("total", elapsed);
+    }
+
+    private void drive(int clients, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                pool.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        if (ThreadLocalRandom.current().nextDouble() < bookingShare) book();
+                        else search();
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+    }
+
+    private void search() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String city = CITIES[random.nextInt(CITIES.length)];
+        String path = "/api/properties?page=" + random.nextInt(5) + "&size=12"
+                + (city.isEmpty() ? "" : "&city=" + city);
+        send(searches, authorized(path).GET().build());
+    }
+
+    private void book() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Spread stays over several years so most requests do not collide
+        LocalDate checkIn = LocalDate.now().plusDays(30 + random.nextInt(3 * 365));
+        Map<String, Object> body = Map.of(
+                "propertyId", propertyIds.get(random.nextInt(propertyIds.size())),
+                "checkInDate", checkIn.toString(),
+                "checkOutDate", checkIn.plusDays(1 + random.nextInt(6)).toString(),
+                "guests", 1 + random.nextInt(3));
+        try {
+            send(bookings, authorized("/api/bookings")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                    .build());
+        } catch (Exception e) {
+            bookings.error();
+        }
+    }
+
+    private void send(Recorder recorder, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+            recorder.record(System.nanoTime() - start, response.statusCode());
+        } catch (Exception e) {
+            recorder.error();
+        }
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    // ─── Latency recording ────────────────────────────────────────────────────
+
+    /** Collects raw latencies; runs are short enough that keeping every sample is fine. */
+    static final class Recorder {
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private final AtomicLong clientErrors = new AtomicLong();
+        private final AtomicLong serverErrors = new AtomicLong();
+        private final AtomicLong ioErrors = new AtomicLong();
+
+        synchronized void record(long nanos, int status) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+            if (status >= 500) serverErrors.incrementAndGet();
+            else if (status >= 400) clientErrors.incrementAndGet();
+        }
+
+        void error() {
+            ioErrors.incrementAndGet();
+        }
+
+        synchronized void reset() {
+            count = 0;
+            clientErrors.set(0);
+            serverErrors.set(0);
+            ioErrors.set(0);
+        }
+
+        static Recorder merge(Recorder a, Recorder b) {
+            Recorder merged = new Recorder();
+            merged.latencies = Arrays.copyOf(a.latencies, a.count + b.count);
+            System.arraycopy(b.latencies, 0, merged.latencies, a.count, b.count);
+            merged.count = a.count + b.count;
+            merged.clientErrors.set(a.clientErrors.get() + b.clientErrors.get());
+            merged.serverErrors.set(a.serverErrors.get() + b.serverErrors.get());
+            merged.ioErrors.set(a.ioErrors.get() + b.ioErrors.get());
+            return merged;
+        }
+
+        synchronized void print(String label, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("  %-8s %8d req  %8.1f req/s  p50 %7.1f ms  p99 %7.1f ms  max %7.1f ms"
+                            + "  4xx %d  5xx %d  io %d%n",
+                    label, count, count / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0),
+                    clientErrors.get(), serverErrors.get(), ioErrors.get());
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
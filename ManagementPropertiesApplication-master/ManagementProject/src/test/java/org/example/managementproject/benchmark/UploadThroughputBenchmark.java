@@ -0,0 +1,106 @@
+package org.example.managementproject.benchmark;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bytes per second served from {@code /uploads}. Clients download the given files over
+ * and over without caching, so every request reaches the resource handler.
+ *
+ * <p>Start the application once with {@code UPLOAD_SENDFILE=false} (files copied through
+ * the response stream, as before) and once with the default, and run the benchmark with
+ * identical arguments each time:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     org.example.managementproject.benchmark.UploadThroughputBenchmark \
+ *     http://localhost:8080 /uploads/a.jpg,/uploads/b.jpg 32 30
+ * </pre>
+ *
+ * Arguments: base URL, comma-separated upload paths, concurrent clients and duration in
+ * seconds. Use files above {@code app.upload.sendfile-min-size}; smaller ones are copied
+ * either way.
+ */
+public class UploadThroughputBenchmark {
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final List<String> paths;
+
+    private final RequestLoadGenerator.Recorder downloads = new RequestLoadGenerator.Recorder();
+    private final AtomicLong bytes = new AtomicLong();
+
+    UploadThroughputBenchmark(String baseUrl, List<String> paths) {
+        this.baseUrl = baseUrl;
+        this.paths = paths;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        List<String> paths = List.of((args.length > 1 ? args[1] : "/uploads/sample.jpg").split(","));
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        new UploadThroughputBenchmark(baseUrl, paths).run(clients, Duration.ofSeconds(seconds));
+    }
+
+    void run(int clients, Duration duration) throws InterruptedException {
+        drive(Math.max(1, clients / 4), Duration.ofSeconds(5));
+        downloads.reset();
+        bytes.set(0);
+
+        long start = System.nanoTime();
+        drive(clients, duration);
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("%d clients, %.0fs, %d files%n", clients, elapsed, paths.size());
+        downloads.print("download", elapsed);
+        System.out.printf("  %-8s %8.1f MB/s%n", "served", bytes.get() / elapsed / (1024 * 1024));
+    }
+
+    private void drive(int clients, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                pool.submit(() -> {
+                    while (System.nanoTime() < deadline) download();
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+    }
+
+    private void download() {
+        String path = paths.get(ThreadLocalRandom.current().nextInt(paths.size()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                bytes.addAndGet(body.transferTo(OutputStream.nullOutputStream()));
+            }
+            downloads.record(System.nanoTime() - start, response.statusCode());
+        } catch (Exception e) {
+            downloads.error();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.managementproject.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConfigTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AsyncProperties properties = new AsyncProperties();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) executor.shutdown();
+    }
+
+    @Test
+    void mailExecutor_ShouldRejectAndCount_WhenPoolAndQueueAreFull() {
+        properties.getMail().setCoreSize(1);
+        properties.getMail().setMaxSize(1);
+        properties.getMail().setQueueCapacity(1);
+        executor = new AsyncConfig(properties, registry).mailExecutor();
+        executor.initialize();
+
+        executor.execute(this::block);   // occupies the only worker
+        executor.execute(this::block);   // waits in the queue
+
+        assertThrows(TaskRejectedException.class, () -> executor.execute(this::block));
+        assertEquals(1.0, registry.get("async.executor.rejected").tag("name", "mail").counter().count());
+        assertEquals(1.0, registry.get("async.executor.queued").tag("name", "mail").gauge().value());
+    }
+
+    @Test
+    void executors_ShouldUseVirtualThreads_WhenVirtualModeIsOn() throws Exception {
+        properties.setVirtual(true);
+        executor = new AsyncConfig(properties, registry).geocodingExecutor();
+        executor.initialize();
+
+        Thread worker = CompletableFuture.supplyAsync(Thread::currentThread, executor).get(5, TimeUnit.SECONDS);
+
+        assertTrue(worker.isVirtual());
+        assertTrue(worker.getName().startsWith("geocoding-v"));
+    }
+
+    private void block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package org.example.managementproject.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.managementproject.dto.request.ForgotPasswordRequest;
 import org.example.managementproject.dto.request.LoginRequest;
+import org.example.managementproject.dto.request.RefreshTokenRequest;
+import org.example.managementproject.dto.request.RegisterRequest;
+import org.example.managementproject.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -26,6 +33,9 @@ class AuthControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Test
     void shouldReturn401OnInvalidLogin() throws Exception {
         LoginRequest request = new LoginRequest();
@@ -59,4 +69,56 @@ class AuthControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // revocations take effect on commit
+    void shouldRotateRefreshToken_AndRevokeAccessTokenOnLogout() throws Exception {
+        try {
+            rotateAndLogout();
+        } finally {
+            userRepository.findByEmail("rotation-test@example.com").ifPresent(userRepository::delete);
+        }
+    }
+
+    private void rotateAndLogout() throws Exception {
+        RegisterRequest register = new RegisterRequest();
+        register.setFirstName("Rota");
+        register.setLastName("Tion");
+        register.setEmail("rotation-test@example.com");
+        register.setPassword("password1");
+        JsonNode session = objectMapper.readTree(mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(register)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        JsonNode rotated = objectMapper.readTree(mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refresh(session))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andReturn().getResponse().getContentAsString());
+        assertNotEquals(session.path("refreshToken").asText(), rotated.path("refreshToken").asText());
+
+        // The presented token was used up by the rotation
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refresh(session))))
+                .andExpect(status().isUnauthorized());
+
+        String accessToken = "Bearer " + rotated.path("token").asText();
+        mockMvc.perform(get("/api/users/me").header("Authorization", accessToken)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refresh(rotated))))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/users/me").header("Authorization", accessToken)).andExpect(status().isUnauthorized());
+    }
+
+    private static RefreshTokenRequest refresh(JsonNode session) {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(session.path("refreshToken").asText());
+        return request;
+    }
 }
@@ -0,0 +1,243 @@
+package org.example.managementproject.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.managementproject.ManagementProjectApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application nodes in one JVM, both on the same embedded PostgreSQL and both in
+ * {@code postgres} relay mode: a message sent through one node must reach the recipient's
+ * sessions on both nodes, exactly once each, and presence must be visible across nodes.
+ * Sessions authenticate with the bearer token on CONNECT, as the browser client does.
+ */
+@DisabledIfSystemProperty(named = "user.name", matches = "root",
+        disabledReason = "Embedded PostgreSQL refuses to run as root")
+class ChatRelayIntegrationTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private record Account(long id, String token) {}
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final WebSocketStompClient stomp = new WebSocketStompClient(new StandardWebSocketClient());
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        // One after the other, so schema updates and the data seeder do not race
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        if (nodeB != null) nodeB.close();
+        if (nodeA != null) nodeA.close();
+        if (postgres != null) postgres.close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stomp.stop();
+    }
+
+    @Test
+    void messageSentOnOneNode_ShouldReachRecipientSessionsOnEveryNode_Once() throws Exception {
+        Account sender = register(nodeA);
+        Account recipient = register(nodeA);
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+
+        BlockingQueue<JsonNode> onA = new LinkedBlockingQueue<>();
+        BlockingQueue<JsonNode> onB = new LinkedBlockingQueue<>();
+        subscribe(connect(nodeA, recipient), recipient.id(), onA);
+        subscribe(connect(nodeB, recipient), recipient.id(), onB);
+        StompSession senderOnA = connect(nodeA, sender);
+        Thread.sleep(500);   // let both SUBSCRIBE frames reach their brokers
+
+        senderOnA.send("/app/chat", Map.of(
+                "sender", Map.of("id", sender.id()),
+                "recipient", Map.of("id", recipient.id()),
+                "content", "Is the villa free in July?"));
+
+        JsonNode local = onA.poll(10, TimeUnit.SECONDS);
+        JsonNode relayed = onB.poll(10, TimeUnit.SECONDS);
+        assertNotNull(local, "recipient on the sending node got nothing");
+        assertNotNull(relayed, "recipient on the other node got nothing");
+        assertEquals("Is the villa free in July?", relayed.path("content").asText());
+        assertEquals(local.path("id").asLong(), relayed.path("id").asLong());
+
+        // Each node must ignore its own notification, or the local session sees a duplicate
+        assertNull(onA.poll(1, TimeUnit.SECONDS));
+        assertNull(onB.poll(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void stompSession_ShouldBeBoundToTheTokenOnConnect() throws Exception {
+        Account owner = register(nodeA);
+        Account other = register(nodeA);
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> stomp.connectAsync(
+                wsUrl(nodeA), new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS));
+        assertNotNull(rejected.getCause(), "CONNECT without a token must fail");
+
+        // A payload claiming to come from someone else is dropped, not delivered under their name
+        BlockingQueue<JsonNode> inbox = new LinkedBlockingQueue<>();
+        subscribe(connect(nodeA, owner), owner.id(), inbox);
+        StompSession spoofer = connect(nodeA, other);
+        Thread.sleep(500);
+        spoofer.send("/app/chat", Map.of(
+                "sender", Map.of("id", owner.id() + 1_000_000),
+                "recipient", Map.of("id", owner.id()),
+                "content", "Pay the deposit to this account"));
+        assertNull(inbox.poll(2, TimeUnit.SECONDS));
+
+        spoofer.send("/app/chat", Map.of(
+                "recipient", Map.of("id", owner.id()),
+                "content", "Hello"));
+        JsonNode delivered = inbox.poll(10, TimeUnit.SECONDS);
+        assertNotNull(delivered);
+        assertEquals(other.id(), delivered.path("senderId").asLong());
+    }
+
+    @Test
+    void userConnectedToOneNode_ShouldBeOnlineForCounterpartsOnTheOther() throws Exception {
+        Account agent = register(nodeA);
+        Account guest = register(nodeA);
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+
+        // Presence is only shared between chat counterparts, so open a conversation first
+        BlockingQueue<JsonNode> guestInbox = new LinkedBlockingQueue<>();
+        StompSession guestOnA = connect(nodeA, guest);
+        subscribe(guestOnA, guest.id(), guestInbox);
+        StompSession agentOnA = connect(nodeA, agent);
+        Thread.sleep(500);
+        agentOnA.send("/app/chat", Map.of(
+                "sender", Map.of("id", agent.id()),
+                "recipient", Map.of("id", guest.id()),
+                "content", "Welcome!"));
+        assertNotNull(guestInbox.poll(10, TimeUnit.SECONDS));
+
+        // The guest is connected to node A only; node B must still report them as online
+        assertEquals(List.of(guest.id()), onlineCounterparts(nodeB, agent));
+
+        BlockingQueue<JsonNode> presence = new LinkedBlockingQueue<>();
+        subscribeTo(agentOnA, "/user/" + agent.id() + "/queue/presence", presence);
+        Thread.sleep(500);
+        StompSession guestOnB = connect(nodeB, guest);
+        guestOnB.disconnect();
+        Thread.sleep(2500);   // a couple of presence ticks
+        assertEquals(List.of(guest.id()), onlineCounterparts(nodeA, agent),
+                "the guest's session on node A keeps them online");
+        assertNull(presence.poll(0, TimeUnit.SECONDS), "no change is announced while another node holds a session");
+
+        guestOnA.disconnect();
+        JsonNode delta = presence.poll(10, TimeUnit.SECONDS);
+        assertNotNull(delta, "the agent was not told the guest left");
+        assertEquals(guest.id(), delta.path("offline").path(0).asLong());
+        assertEquals(List.of(), onlineCounterparts(nodeB, agent));
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────────────────────
+
+    private static ConfigurableApplicationContext startNode() {
+        // Command-line arguments, so they win over the datasource in application.yml
+        return new SpringApplicationBuilder(ManagementProjectApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--app.chat.relay.mode=postgres");
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext node) {
+        return "http://localhost:" + node.getEnvironment().getProperty("local.server.port");
+    }
+
+    private Account register(ConfigurableApplicationContext node) throws Exception {
+        String email = "relay-" + UUID.randomUUID() + "@example.com";
+        Map<String, String> body = Map.of("firstName", "Relay", "lastName", "Tester",
+                "email", email, "password", "relay-password");
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl(node) + "/api/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(2, response.statusCode() / 100, response.body());
+        JsonNode auth = MAPPER.readTree(response.body());
+        return new Account(auth.path("userId").asLong(), auth.path("token").asText());
+    }
+
+    private List<Long> onlineCounterparts(ConfigurableApplicationContext node, Account account) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl(node) + "/api/chat/presence"))
+                        .header("Authorization", "Bearer " + account.token())
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return List.of(MAPPER.readValue(response.body(), Long[].class));
+    }
+
+    private static String wsUrl(ConfigurableApplicationContext node) {
+        return baseUrl(node).replaceFirst("^http", "ws") + "/ws/websocket";
+    }
+
+    private StompSession connect(ConfigurableApplicationContext node, Account account) throws Exception {
+        StompHeaders headers = new StompHeaders();
+        headers.add("Authorization", "Bearer " + account.token());
+        return stomp.connectAsync(wsUrl(node), new WebSocketHttpHeaders(), headers, new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private static void subscribe(StompSession session, long userId, BlockingQueue<JsonNode> inbox) {
+        subscribeTo(session, "/user/" + userId + "/queue/messages", inbox);
+    }
+
+    private static void subscribeTo(StompSession session, String destination, BlockingQueue<JsonNode> inbox) {
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return JsonNode.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                inbox.add((JsonNode) payload);
+            }
+        });
+    }
+}
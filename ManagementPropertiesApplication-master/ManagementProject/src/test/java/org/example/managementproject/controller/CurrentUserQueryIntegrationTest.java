@@ -0,0 +1,112 @@
+package org.example.managementproject.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.managementproject.dto.request.PropertyRequest;
+import org.example.managementproject.model.Property;
+import org.example.managementproject.model.User;
+import org.example.managementproject.repository.PropertyRepository;
+import org.example.managementproject.repository.RoleRepository;
+import org.example.managementproject.repository.UserRepository;
+import org.example.managementproject.security.JwtService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements that read the {@code users} table per request. Not
+ * transactional on purpose: every request must run in its own persistence context, as
+ * in production, or the first-level cache hides repeated lookups.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.example.managementproject.controller.CurrentUserQueryIntegrationTest$UserQueryCounter")
+@AutoConfigureMockMvc
+class CurrentUserQueryIntegrationTest {
+
+    /** Statements whose main table is users; joins from other tables do not count. */
+    public static class UserQueryCounter implements StatementInspector {
+        private static final Pattern FROM_USERS = Pattern.compile("\\bfrom\\s+users\\b", Pattern.CASE_INSENSITIVE);
+        static final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public String inspect(String sql) {
+            if (FROM_USERS.matcher(sql).find()) count.incrementAndGet();
+            return sql;
+        }
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserRepository userRepository;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private PropertyRepository propertyRepository;
+    @Autowired private JwtService jwtService;
+
+    private User agent;
+    private Property property;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        agent = userRepository.save(User.builder()
+                .firstName("Query").lastName("Counter")
+                .email("query-counter-" + UUID.randomUUID() + "@example.com")
+                .password("not-used")
+                .role(roleRepository.findByName("ROLE_AGENT").orElseThrow())
+                .active(true)
+                .build());
+        property = propertyRepository.save(Property.builder()
+                .title("Quiet Flat").address("Ulica 1").city("Skopje").country("North Macedonia")
+                .type("APARTMENT").pricePerNight(40.0).maxGuests(2)
+                .agent(agent)
+                .build());
+        token = "Bearer " + jwtService.generateToken(agent);
+    }
+
+    @AfterEach
+    void tearDown() {
+        propertyRepository.deleteById(property.getId());
+        userRepository.deleteById(agent.getId());
+    }
+
+    @Test
+    void authenticatedUser_ShouldBeLoadedAtMostOncePerRequest() throws Exception {
+        // First request also fills the verified-token cache
+        mockMvc.perform(get("/api/users/me").header("Authorization", token)).andExpect(status().isOk());
+
+        UserQueryCounter.count.set(0);
+        mockMvc.perform(get("/api/users/me").header("Authorization", token)).andExpect(status().isOk());
+        assertEquals(1, UserQueryCounter.count.get(), "profile: the user itself, nothing for authentication");
+
+        // Ownership is checked against the principal; the one query is the agent shown in the response
+        PropertyRequest request = new PropertyRequest();
+        request.setTitle("Quiet Flat");
+        request.setAddress("Ulica 1");
+        request.setCity("Skopje");
+        request.setCountry("North Macedonia");
+        request.setType("APARTMENT");
+        request.setPricePerNight(45.0);
+        request.setMaxGuests(2);
+        UserQueryCounter.count.set(0);
+        mockMvc.perform(put("/api/properties/" + property.getId())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+        assertEquals(1, UserQueryCounter.count.get(), "property update");
+    }
+}
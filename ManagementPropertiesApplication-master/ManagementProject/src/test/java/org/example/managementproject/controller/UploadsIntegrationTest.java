@@ -0,0 +1,98 @@
+package org.example.managementproject.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UploadsIntegrationTest {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Path file;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[100 * 1024];
+        new Random(7).nextBytes(content);
+        file = Files.createDirectories(Path.of("uploads")).resolve(UUID.randomUUID() + ".jpg");
+        Files.write(file, content);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void uploads_ShouldBeCacheableForever_AndRevalidateWith304() throws Exception {
+        MvcResult result = mockMvc.perform(get(url()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn();
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        mockMvc.perform(get(url()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/uploads/" + UUID.randomUUID() + ".jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void rangeRequests_ShouldReturnThePartAsked() throws Exception {
+        MvcResult result = mockMvc.perform(get(url()).header(HttpHeaders.RANGE, "bytes=1000-1999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1999/" + content.length))
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    void onConnectorsWithSendfile_TheFileIsLeftToTheConnector() throws Exception {
+        MvcResult result = mockMvc.perform(get(url()).requestAttr(SENDFILE_SUPPORTED, true))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toFile().getCanonicalPath()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 0L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", (long) content.length))
+                .andReturn();
+        assertEquals(0, result.getResponse().getContentAsByteArray().length, "no body written by the application");
+
+        mockMvc.perform(get(url()).requestAttr(SENDFILE_SUPPORTED, true).header(HttpHeaders.RANGE, "bytes=51200-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes 51200-" + (content.length - 1) + "/" + content.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length - 51200))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 51200L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", (long) content.length));
+    }
+
+    private String url() {
+        return "/uploads/" + file.getFileName();
+    }
+}
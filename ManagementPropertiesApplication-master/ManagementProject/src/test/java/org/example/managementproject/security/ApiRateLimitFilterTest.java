@@ -0,0 +1,109 @@
+package org.example.managementproject.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.managementproject.config.RateLimitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApiRateLimitFilterTest {
+
+    @Mock
+    private LoadShedder loadShedder;
+
+    private ApiRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getPerUser().setCapacity(5);
+        properties.setRoutes(List.of(
+                route("search", "GET", "/api/properties", null),
+                route("image-upload", "POST", "/api/properties/*/images", "imageExecutor")));
+        filter = new ApiRateLimitFilter(properties, loadShedder,
+                new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldLimitEachCallerPerRoute_AndAcrossAllRoutes() throws Exception {
+        signIn(7L);
+        assertEquals(200, perform("GET", "/api/properties").getStatus());
+        assertEquals(200, perform("GET", "/api/properties").getStatus());
+
+        MockHttpServletResponse throttled = perform("GET", "/api/properties");
+        assertEquals(429, throttled.getStatus());
+        assertEquals("30", throttled.getHeader("Retry-After"));   // one search permit per 60s / 2
+        assertTrue(throttled.getContentAsString().contains("\"status\":429"));
+
+        assertEquals(200, perform("GET", "/api/bookings/my").getStatus(), "other routes have their own budget");
+        signIn(8L);
+        assertEquals(200, perform("GET", "/api/properties").getStatus(), "buckets are per user");
+
+        signIn(7L);
+        assertEquals(200, perform("GET", "/api/bookings/my").getStatus());
+        assertEquals(200, perform("GET", "/api/bookings/my").getStatus(), "the refused search took no permit");
+        assertEquals(429, perform("GET", "/api/bookings/my").getStatus(), "five requests per user in all");
+        assertEquals(200, perform("GET", "/uploads/a.jpg").getStatus(), "only /api is limited");
+    }
+
+    @Test
+    void shouldShedExpensiveRoutes_WhileTheirResourcesAreSaturated() throws Exception {
+        when(loadShedder.databaseSaturated()).thenReturn(true);
+
+        MockHttpServletResponse shed = perform("GET", "/api/properties");
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+        assertEquals(200, perform("GET", "/api/bookings/my").getStatus(), "unlisted routes are never shed");
+
+        when(loadShedder.databaseSaturated()).thenReturn(false);
+        when(loadShedder.executorSaturated("imageExecutor")).thenReturn(true);
+        assertEquals(503, perform("POST", "/api/properties/4/images").getStatus());
+        assertEquals(200, perform("GET", "/api/properties").getStatus());
+        assertEquals(200, perform("GET", "/api/properties").getStatus(), "shed requests take no permits");
+    }
+
+    private MockHttpServletResponse perform(String method, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void signIn(Long userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user" + userId + "@example.com", "ROLE_AGENT", true, true);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.authorities()));
+    }
+
+    private static RateLimitProperties.Route route(String name, String method, String pattern, String executor) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName(name);
+        route.setMethod(method);
+        route.setPattern(pattern);
+        route.setCapacity(2);
+        route.setExecutor(executor);
+        return route;
+    }
+}
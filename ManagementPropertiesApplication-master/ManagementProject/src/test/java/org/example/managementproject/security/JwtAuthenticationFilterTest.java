@@ -0,0 +1,85 @@
+package org.example.managementproject.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.managementproject.model.Role;
+import org.example.managementproject.model.User;
+import org.example.managementproject.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private TokenRevocationRepository revocationRepository;
+
+    private final JwtService jwtService = new JwtService(
+            "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970", 60_000, 100, Duration.ofMinutes(5));
+    private TokenRevocationList revocationList;
+    private JwtAuthenticationFilter filter;
+    private User agent;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList(revocationRepository, null, new SimpleMeterRegistry(), 60_000, 100);
+        filter = new JwtAuthenticationFilter(jwtService, revocationList);
+        agent = User.builder().id(7L).email("agent@example.com").verified(true)
+                .role(Role.builder().name("ROLE_AGENT").build()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldAuthenticateFromClaims_WithoutTouchingTheDatabase() throws Exception {
+        filter.doFilter(request(jwtService.generateToken(agent)), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals(7L, principal.id());
+        assertEquals("agent@example.com", authentication.getName());
+        assertTrue(principal.verified());
+        assertEquals("ROLE_AGENT", authentication.getAuthorities().iterator().next().getAuthority());
+        verifyNoInteractions(revocationRepository);
+    }
+
+    @Test
+    void shouldLeaveRequestAnonymous_WhenTokenOrUserTokensWereRevoked() throws Exception {
+        String loggedOut = jwtService.generateToken(agent);
+        revocationList.revokeToken(jwtService.parse(loggedOut));
+        filter.doFilter(request(loggedOut), new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        String beforeRoleChange = jwtService.generateToken(agent);
+        revocationList.revokeAccessTokens(agent);   // version 0 -> 1
+        filter.doFilter(request(beforeRoleChange), new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        // A token issued after the change carries the new version and passes
+        filter.doFilter(request(jwtService.generateToken(agent)), new MockHttpServletResponse(), new MockFilterChain());
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.managementproject.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.example.managementproject.model.Role;
+import org.example.managementproject.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final String OTHER_SECRET = "7234753778214125442A472D4B6150645367566B59703373367639792F423F45";
+
+    private final User user = User.builder().id(7L).email("agent@example.com")
+            .role(Role.builder().name("ROLE_AGENT").build()).build();
+
+    @Test
+    void parse_ShouldReturnAllClaims_AndServeRepeatsFromTheVerifiedCache() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100, Duration.ofMinutes(5));
+        String token = jwtService.generateToken(user);
+
+        assertEquals("agent@example.com", jwtService.parse(token).getSubject());
+        // Same claims object: the second call did not verify or decode again
+        assertSame(jwtService.parse(token), jwtService.parse(token));
+        assertEquals(7L, jwtService.parse(token).get(JwtService.USER_ID_CLAIM, Number.class).longValue());
+        assertTrue(jwtService.isTokenValid(token, user));
+    }
+
+    @Test
+    void parse_ShouldRejectForgedAndExpiredTokens_EvenWithCacheEnabled() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100, Duration.ofMinutes(5));
+        String forged = new JwtService(OTHER_SECRET, 60_000, 0, Duration.ZERO).generateToken(user);
+        String expired = new JwtService(SECRET, -1_000, 0, Duration.ZERO).generateToken(user);
+
+        assertThrows(JwtException.class, () -> jwtService.parse(forged));
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parse(expired));
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parse(expired));
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.managementproject.security;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.managementproject.config.RateLimitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadShedderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Timer acquire = meterRegistry.timer("hikaricp.connections.acquire", "pool", "test");
+    private final ThreadPoolTaskExecutor imageExecutor = new ThreadPoolTaskExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        imageExecutor.shutdown();
+    }
+
+    @Test
+    void databaseSaturated_ShouldFollowTheMeanAcquireTimeOfTheLastSample() {
+        LoadShedder shedder = shedder();
+        acquire.record(Duration.ofMillis(2));
+        shedder.sample();
+        assertFalse(shedder.databaseSaturated());
+
+        acquire.record(Duration.ofMillis(150));
+        acquire.record(Duration.ofMillis(250));
+        shedder.sample();
+        assertTrue(shedder.databaseSaturated(), "mean wait of 200ms since the last sample");
+
+        acquire.record(Duration.ofMillis(3));
+        shedder.sample();
+        assertFalse(shedder.databaseSaturated(), "earlier waits no longer count");
+    }
+
+    @Test
+    void executorSaturated_ShouldTripAtTheConfiguredQueueFill() {
+        imageExecutor.setCorePoolSize(1);
+        imageExecutor.setMaxPoolSize(1);
+        imageExecutor.setQueueCapacity(5);
+        imageExecutor.initialize();
+        LoadShedder shedder = shedder();
+
+        imageExecutor.execute(this::awaitRelease);   // occupies the only worker
+        for (int i = 0; i < 3; i++) imageExecutor.execute(this::awaitRelease);
+        assertFalse(shedder.executorSaturated("imageExecutor"));
+
+        imageExecutor.execute(this::awaitRelease);
+        assertTrue(shedder.executorSaturated("imageExecutor"), "4 of 5 queue slots in use");
+        assertFalse(shedder.executorSaturated("mailExecutor"), "unknown executors never shed");
+    }
+
+    private LoadShedder shedder() {
+        return new LoadShedder(new DriverManagerDataSource(), meterRegistry,
+                Map.of("imageExecutor", imageExecutor), new RateLimitProperties());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
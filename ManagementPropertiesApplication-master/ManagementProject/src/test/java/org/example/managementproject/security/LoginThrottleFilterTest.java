@@ -0,0 +1,68 @@
+package org.example.managementproject.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleFilterTest {
+
+    private LoginThrottleFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        LoginThrottle loginThrottle = new LoginThrottle(new SimpleMeterRegistry(), 2, 5, Duration.ofMinutes(1), 1000);
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.addAllowedOriginPattern("*");
+        cors.addAllowedMethod("POST");
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/**", cors);
+        filter = new LoginThrottleFilter(loginThrottle, new ObjectMapper().registerModule(new JavaTimeModule()), corsSource);
+    }
+
+    @Test
+    void shouldRefuseAnAddressOverItsBudget_BeforeTheRequestGoesFurther() throws Exception {
+        assertNotNull(perform("POST", "/api/auth/login", "10.0.0.1").chain.getRequest());
+        assertNotNull(perform("POST", "/api/auth/register", "10.0.0.1").chain.getRequest());
+
+        Result refused = perform("POST", "/api/auth/login", "10.0.0.1");
+        assertEquals(429, refused.response.getStatus());
+        assertEquals("30", refused.response.getHeader("Retry-After"));   // one permit per 60s / 2
+        assertTrue(refused.response.getContentAsString().contains("\"status\":429"));
+        assertNull(refused.chain.getRequest(), "the body was never read");
+
+        MockHttpServletRequest fromFrontend = new MockHttpServletRequest("POST", "/api/auth/login");
+        fromFrontend.setRemoteAddr("10.0.0.1");
+        fromFrontend.addHeader("Origin", "http://localhost:5173");
+        MockHttpServletResponse readable = new MockHttpServletResponse();
+        filter.doFilter(fromFrontend, readable, new MockFilterChain());
+        assertEquals(429, readable.getStatus());
+        assertEquals("http://localhost:5173", readable.getHeader("Access-Control-Allow-Origin"),
+                "the security chain's CORS filter never runs for refusals");
+
+        assertEquals(200, perform("POST", "/api/auth/login", "10.0.0.2").response.getStatus(), "buckets are per address");
+        assertEquals(200, perform("POST", "/api/auth/refresh", "10.0.0.1").response.getStatus(), "only login and register");
+        assertEquals(200, perform("GET", "/api/auth/login", "10.0.0.1").response.getStatus(), "only POST");
+    }
+
+    private Result perform(String method, String path, String address) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return new Result(response, chain);
+    }
+
+    private record Result(MockHttpServletResponse response, MockFilterChain chain) {}
+}
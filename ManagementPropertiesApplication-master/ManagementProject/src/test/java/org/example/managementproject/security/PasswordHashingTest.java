@@ -0,0 +1,67 @@
+package org.example.managementproject.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.managementproject.model.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private PasswordHashing hashing;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void run_ShouldRefuseAtOnce_WhenThePoolAndQueueAreFull() throws Exception {
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        hashing = new PasswordHashing(executor, new SimpleMeterRegistry(), Duration.ofSeconds(5));
+
+        CompletableFuture.runAsync(() -> hashing.run(this::block));   // occupies the worker
+        CompletableFuture.runAsync(() -> hashing.run(this::block));   // waits in the queue
+        while (executor.getQueueSize() < 1) Thread.sleep(5);
+
+        long start = System.nanoTime();
+        ServiceUnavailableException refused =
+                assertThrows(ServiceUnavailableException.class, () -> hashing.run(() -> "hash"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "refused without waiting");
+        assertEquals(Duration.ofSeconds(1), refused.getRetryAfter());
+    }
+
+    @Test
+    void run_ShouldRethrowAuthenticationFailures_FromTheWorker() {
+        executor.initialize();
+        hashing = new PasswordHashing(executor, new SimpleMeterRegistry(), Duration.ofSeconds(5));
+
+        assertThrows(BadCredentialsException.class, () -> hashing.run(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        }));
+        assertEquals("hash", hashing.run(() -> "hash"));
+    }
+
+    private String block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "hash";
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.managementproject.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final RateLimiter limiter = new RateLimiter(5, Duration.ofMinutes(1), 100, clock::get);
+
+    @Test
+    void tryAcquire_ShouldAllowABurstOfCapacity_ThenReportTheWaitForTheNextPermit() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Duration.ZERO, limiter.tryAcquire("guest@example.com"));
+        }
+
+        Duration wait = limiter.tryAcquire("guest@example.com");
+        assertEquals(Duration.ofSeconds(12), wait);   // one permit per 60s / 5
+        assertEquals(Duration.ZERO, limiter.tryAcquire("other@example.com"), "buckets are per key");
+
+        clock.addAndGet(wait.toNanos());
+        assertEquals(Duration.ZERO, limiter.tryAcquire("guest@example.com"));
+        assertFalse(limiter.tryAcquire("guest@example.com").isZero());
+    }
+
+    @Test
+    void tryAcquire_ShouldNeverGrantMoreThanCapacity_UnderContention() throws Exception {
+        AtomicLong granted = new AtomicLong();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire("10.0.0.1").isZero()) granted.incrementAndGet();
+                }
+            });
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(5, granted.get());
+    }
+}
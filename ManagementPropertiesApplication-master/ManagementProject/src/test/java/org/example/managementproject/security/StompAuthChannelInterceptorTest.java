@@ -0,0 +1,122 @@
+package org.example.managementproject.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.example.managementproject.model.exception.AccessDeniedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StompAuthChannelInterceptorTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private TokenRevocationList revocationList;
+
+    @InjectMocks
+    private StompAuthChannelInterceptor interceptor;
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void connect_ShouldBindPrincipalToSession_FromBearerToken() {
+        Claims claims = Jwts.claims().subject("guest@example.com").add(JwtService.USER_ID_CLAIM, 7L).build();
+        when(jwtService.parse("good-token")).thenReturn(claims);
+        when(revocationList.isRevoked(claims)).thenReturn(false);
+        StompHeaderAccessor accessor = accessor(StompCommand.CONNECT);
+        accessor.addNativeHeader("Authorization", "Bearer good-token");
+
+        interceptor.preSend(message(accessor), channel);
+
+        StompPrincipal principal = assertInstanceOf(StompPrincipal.class, accessor.getUser());
+        assertEquals(7L, principal.userId());
+        assertEquals("7", principal.getName());   // matches /user/7/queue/... destinations
+    }
+
+    @Test
+    void connect_ShouldReject_MissingInvalidOrRevokedToken() {
+        when(jwtService.parse("forged")).thenThrow(new IllegalArgumentException("bad signature"));
+        Claims loggedOut = Jwts.claims().subject("guest@example.com").add(JwtService.USER_ID_CLAIM, 7L).build();
+        when(jwtService.parse("logged-out")).thenReturn(loggedOut);
+        when(revocationList.isRevoked(loggedOut)).thenReturn(true);
+        StompHeaderAccessor forged = accessor(StompCommand.CONNECT);
+        forged.addNativeHeader("Authorization", "Bearer forged");
+        StompHeaderAccessor revoked = accessor(StompCommand.CONNECT);
+        revoked.addNativeHeader("Authorization", "Bearer logged-out");
+
+        assertThrows(BadCredentialsException.class,
+                () -> interceptor.preSend(message(accessor(StompCommand.CONNECT)), channel));
+        assertThrows(BadCredentialsException.class, () -> interceptor.preSend(message(forged), channel));
+        assertThrows(BadCredentialsException.class, () -> interceptor.preSend(message(revoked), channel));
+    }
+
+    @Test
+    void laterFrames_ShouldAuthorizeFromSessionPrincipal_WithoutParsingTokens() {
+        StompPrincipal principal = new StompPrincipal(7L, "guest@example.com");
+
+        StompHeaderAccessor own = accessor(StompCommand.SUBSCRIBE);
+        own.setUser(principal);
+        own.setDestination("/user/7/queue/messages");
+        interceptor.preSend(message(own), channel);
+
+        StompHeaderAccessor foreign = accessor(StompCommand.SUBSCRIBE);
+        foreign.setUser(principal);
+        foreign.setDestination("/user/8/queue/messages");
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(message(foreign), channel));
+
+        StompHeaderAccessor anonymous = accessor(StompCommand.SEND);
+        anonymous.setDestination("/app/chat");
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(message(anonymous), channel));
+
+        verifyNoInteractions(jwtService, revocationList);
+    }
+
+    @Test
+    void signedInClients_ShouldOnlySendToTheApplication_AndOnlyListenOnTheirOwnQueues() {
+        StompPrincipal principal = new StompPrincipal(7L, "guest@example.com");
+
+        StompHeaderAccessor chat = accessor(StompCommand.SEND);
+        chat.setUser(principal);
+        chat.setDestination("/app/chat");
+        interceptor.preSend(message(chat), channel);
+
+        // Straight to the broker would skip ChatController's check of who is sending
+        for (String destination : new String[] {"/user/8/queue/messages", "/user/8/queue/receipts",
+                "/user/8/queue/presence", "/user/queue/messages"}) {
+            StompHeaderAccessor spoofed = accessor(StompCommand.SEND);
+            spoofed.setUser(principal);
+            spoofed.setDestination(destination);
+            assertThrows(AccessDeniedException.class, () -> interceptor.preSend(message(spoofed), channel), destination);
+        }
+
+        StompHeaderAccessor brokerQueue = accessor(StompCommand.SUBSCRIBE);
+        brokerQueue.setUser(principal);
+        brokerQueue.setDestination("/user/queue/messages");
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(message(brokerQueue), channel));
+    }
+
+    private static StompHeaderAccessor accessor(StompCommand command) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("session-1");
+        accessor.setLeaveMutable(true);
+        return accessor;
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.managementproject.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.managementproject.model.TokenRevocation;
+import org.example.managementproject.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    @Mock
+    private TokenRevocationRepository repository;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList(repository, null, new SimpleMeterRegistry(), 900_000, 100);
+    }
+
+    @Test
+    void revokeUser_ShouldRejectOnlyTokensBelowTheNewVersion_AndPersistTheEntry() {
+        revocationList.revokeUser(7L, 3);
+
+        assertTrue(revocationList.isRevoked(7L, 2, UUID.randomUUID().toString()));
+        assertFalse(revocationList.isRevoked(7L, 3, UUID.randomUUID().toString()));
+        assertFalse(revocationList.isRevoked(8L, 0, UUID.randomUUID().toString()));
+        verify(repository).save(any(TokenRevocation.class));
+    }
+
+    @Test
+    void reload_ShouldApplyRevocationsMadeOnOtherNodes_AndForgetExpiredOnes() {
+        String loggedOut = UUID.randomUUID().toString();
+        String stillValid = UUID.randomUUID().toString();
+        LocalDateTime later = LocalDateTime.now().plusMinutes(10);
+        when(repository.findByExpiresAtAfter(any()))
+                .thenReturn(List.of(
+                        TokenRevocation.builder().tokenId(loggedOut).expiresAt(later).build(),
+                        TokenRevocation.builder().userId(9L).minVersion(1).expiresAt(later).build()))
+                .thenReturn(List.of());
+
+        revocationList.reload();
+        assertTrue(revocationList.isRevoked(5L, 0, loggedOut));
+        assertFalse(revocationList.isRevoked(5L, 0, stillValid));
+        assertTrue(revocationList.isRevoked(9L, 0, null));
+
+        revocationList.reload();   // the entries expired and were purged
+        assertFalse(revocationList.isRevoked(5L, 0, loggedOut));
+        assertFalse(revocationList.isRevoked(9L, 0, null));
+    }
+}
@@ -5,19 +5,31 @@ import org.example.managementproject.model.User;
 import org.example.managementproject.repository.PasswordResetTokenRepository;
 import org.example.managementproject.repository.RoleRepository;
 import org.example.managementproject.repository.UserRepository;
+import org.example.managementproject.dto.request.LoginRequest;
+import org.example.managementproject.model.exception.TooManyRequestsException;
 import org.example.managementproject.security.JwtService;
+import org.example.managementproject.security.LoginThrottle;
+import org.example.managementproject.security.PasswordHashing;
+import org.example.managementproject.security.TokenRevocationList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +46,11 @@ class AuthServiceTest {
     @Mock private JwtService jwtService;
     @Mock private AuthenticationManager authenticationManager;
     @Mock private EmailService emailService;
+    @Mock private RefreshTokenService refreshTokenService;
+    @Mock private TokenRevocationList revocationList;
+    @Mock private LoginThrottle loginThrottle;
+    @Mock private PasswordHashing passwordHashing;
+    @Mock private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private AuthService authService;
@@ -41,6 +58,7 @@ class AuthServiceTest {
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(authService, "frontendUrl", "http://localhost:3000");
+        ReflectionTestUtils.setField(authService, "purgeBatchSize", 1000);
     }
 
     @Test
@@ -48,6 +66,7 @@ class AuthServiceTest {
         // Arrange
         String email = "admin@gmail.com";
         User user = new User();
+        user.setId(1L);
         user.setEmail(email);
         user.setFirstName("Admin");
 
@@ -56,8 +75,8 @@ class AuthServiceTest {
         // Act
         authService.forgotPassword(email);
 
-        // Assert
-        verify(resetTokenRepository, times(1)).save(any(PasswordResetToken.class));
+        // Assert — replaces any earlier token of the user instead of adding a row
+        verify(resetTokenRepository, times(1)).upsert(eq(1L), anyString(), any(LocalDateTime.class), any(LocalDateTime.class));
         verify(emailService, times(1)).sendPasswordResetEmail(eq(email), eq("Admin"), contains("http://localhost:3000/reset-password?token="));
     }
 
@@ -72,6 +91,7 @@ class AuthServiceTest {
 
         // Assert
         verify(resetTokenRepository, never()).save(any());
+        verify(resetTokenRepository, never()).upsert(any(), any(), any(), any());
         verify(emailService, never()).sendPasswordResetEmail(anyString(), anyString(), anyString());
     }
 
@@ -81,6 +101,7 @@ class AuthServiceTest {
         String token = "valid-token";
         String newPassword = "newPassword123";
         User user = new User();
+        user.setId(4L);
         user.setPassword("oldHash");
 
         PasswordResetToken resetToken = new PasswordResetToken();
@@ -91,13 +112,23 @@ class AuthServiceTest {
 
         when(resetTokenRepository.findByTokenAndUsedFalse(token)).thenReturn(Optional.of(resetToken));
         when(passwordEncoder.encode(newPassword)).thenReturn("newHash");
+        when(passwordHashing.run(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
 
         // Act
         authService.resetPassword(token, newPassword);
 
         // Assert
+        InOrder order = inOrder(passwordHashing, transactionTemplate);
+        order.verify(passwordHashing).run(any());   // no connection held while hashing
+        order.verify(transactionTemplate).executeWithoutResult(any());
         assertEquals("newHash", user.getPassword());
         assertTrue(resetToken.isUsed());
+        verify(revocationList).revokeAccessTokens(user);   // signed out everywhere
+        verify(refreshTokenService).revokeAll(4L);
         verify(userRepository, times(1)).save(user);
         verify(resetTokenRepository, times(1)).save(resetToken);
     }
@@ -134,4 +165,34 @@ class AuthServiceTest {
 
         assertEquals("Invalid or expired reset token", exception.getMessage());
     }
+
+    @Test
+    void testLogin_Throttled_RefusedBeforeAnyHashing() {
+        // Arrange
+        LoginRequest request = new LoginRequest();
+        request.setEmail("admin@gmail.com");
+        request.setPassword("guess");
+        doThrow(new TooManyRequestsException("Too many sign-in attempts", Duration.ofSeconds(12)))
+                .when(loginThrottle).checkLogin("admin@gmail.com");
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> authService.login(request));
+        verifyNoInteractions(passwordHashing, authenticationManager, userRepository);
+    }
+
+    @Test
+    void testPurgeResetTokens_DeletesInChunksUntilAShortOne() {
+        // Arrange
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(resetTokenRepository.deleteExpiredOrUsed(any(LocalDateTime.class), eq(1000)))
+                .thenReturn(1000, 1000, 37);
+
+        // Act
+        authService.purgeResetTokens();
+
+        // Assert — one transaction per chunk
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(resetTokenRepository, times(3)).deleteExpiredOrUsed(any(LocalDateTime.class), eq(1000));
+    }
 }
@@ -0,0 +1,297 @@
+package org.example.managementproject.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.managementproject.dto.request.ChatReceiptRequest;
+import org.example.managementproject.dto.request.ChatSyncRequest;
+import org.example.managementproject.dto.response.ChatInboxEntryResponse;
+import org.example.managementproject.dto.response.ChatMessageResponse;
+import org.example.managementproject.dto.response.ChatReceiptResponse;
+import org.example.managementproject.dto.response.ChatSearchResultResponse;
+import org.example.managementproject.dto.response.ChatSyncResponse;
+import org.example.managementproject.model.ChatMessage;
+import org.example.managementproject.model.User;
+import org.example.managementproject.model.exception.BadRequestException;
+import org.example.managementproject.repository.ChatMessageRepository;
+import org.example.managementproject.repository.ChatMessageRepository.MessageView;
+import org.example.managementproject.repository.ChatMessageRepository.SearchHit;
+import org.example.managementproject.repository.ChatRoomRepository;
+import org.example.managementproject.repository.ChatRoomRepository.InboxRow;
+import org.example.managementproject.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatServiceTest {
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private ChatRoomRepository chatRoomRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ChatLookupCache lookupCache;
+
+    @Mock
+    private ChatWriteBehind writeBehind;
+
+    @Mock
+    private PresenceRegistry presenceRegistry;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ChatService chatService;
+
+    @Test
+    void findChatMessages_ShouldReturnNewestPageOldestFirst() {
+        List<MessageView> newestFirst = List.of(row(12L), row(11L));
+        when(chatMessageRepository.findLatest("3_7", PageRequest.of(0, 2))).thenReturn(newestFirst);
+
+        List<ChatMessageResponse> page = chatService.findChatMessages(7L, 3L, null, 2);
+
+        assertEquals(List.of(11L, 12L), page.stream().map(ChatMessageResponse::getId).toList());
+        assertEquals("Ana Agent", page.get(0).getSenderName());
+    }
+
+    @Test
+    void findChatMessages_ShouldSeekBeforeCursor_AndCapPageSize() {
+        List<MessageView> older = List.of(row(10L));
+        when(chatMessageRepository.findBefore("3_7", 11L, PageRequest.of(0, ChatService.MAX_PAGE_SIZE)))
+                .thenReturn(older);
+
+        List<ChatMessageResponse> page = chatService.findChatMessages(3L, 7L, 11L, 10_000);
+
+        assertEquals(1, page.size());
+        verify(chatMessageRepository, never()).findLatest(any(), any());
+    }
+
+    @Test
+    void findInbox_ShouldQueryForAuthenticatedUser_AndMapCounterpart() {
+        InboxRow row = mock(InboxRow.class);
+        when(row.getChatId()).thenReturn("3_7");
+        when(row.getCounterpartId()).thenReturn(7L);
+        when(row.getCounterpartFirstName()).thenReturn("Gus");
+        when(row.getCounterpartLastName()).thenReturn("Guest");
+        when(row.getLastMessage()).thenReturn("Is the villa free in July?");
+        when(row.getUnreadCount()).thenReturn(2L);
+        when(userService.getAuthenticatedUserId()).thenReturn(3L);
+        when(chatRoomRepository.findInbox(3L, PageRequest.of(0, 20))).thenReturn(new PageImpl<>(List.of(row)));
+
+        ChatInboxEntryResponse entry = chatService.findInbox(0, 20).getContent().get(0);
+
+        assertEquals("Gus Guest", entry.getCounterpartName());
+        assertEquals(7L, entry.getCounterpartId());
+        assertEquals(2L, entry.getUnreadCount());
+    }
+
+    @Test
+    void saveMessage_ShouldInsertOnce_WithoutLoadingUsers() {
+        User senderRef = new User();
+        senderRef.setId(3L);
+        User recipientRef = new User();
+        recipientRef.setId(7L);
+        when(lookupCache.displayName(3L)).thenReturn("Ana Agent");
+        when(userRepository.getReferenceById(3L)).thenReturn(senderRef);
+        when(userRepository.getReferenceById(7L)).thenReturn(recipientRef);
+        when(chatMessageRepository.save(any(ChatMessage.class))).thenAnswer(inv -> {
+            ChatMessage saved = inv.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
+
+        ChatMessage message = ChatMessage.builder().chatRoomId("3_7").content("Hello")
+                .sender(User.builder().id(3L).build()).recipient(User.builder().id(7L).build()).build();
+        ChatMessageResponse response = chatService.saveMessage(message);
+
+        assertEquals(42L, response.getId());
+        assertEquals("Ana Agent", response.getSenderName());
+        ArgumentCaptor<ChatMessage> captor = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(chatMessageRepository).save(captor.capture());
+        assertSame(senderRef, captor.getValue().getSender());
+        verify(userRepository, never()).findById(any());
+        verify(chatRoomRepository).incrementUnread("3_7", 7L);
+    }
+
+    @Test
+    void applyReceipt_ShouldAdvanceRangeOnce_AndDropUnreadByChangedRows() {
+        ChatReceiptRequest receipt = receipt("READ");
+        when(chatMessageRepository.advanceStatus("3_7", 7L, 42L, ChatMessage.MessageStatus.READ,
+                EnumSet.of(ChatMessage.MessageStatus.RECEIVED, ChatMessage.MessageStatus.DELIVERED)))
+                .thenReturn(5);
+
+        ChatReceiptResponse response = chatService.applyReceipt(receipt);
+
+        assertEquals("3_7", response.getChatRoomId());
+        assertEquals("READ", response.getStatus());
+        verify(chatRoomRepository).decrementUnread("3_7", 7L, 5);
+    }
+
+    @Test
+    void applyReceipt_ShouldLeaveUnreadCounter_WhenOnlyDelivered() {
+        when(chatMessageRepository.advanceStatus("3_7", 7L, 42L, ChatMessage.MessageStatus.DELIVERED,
+                EnumSet.of(ChatMessage.MessageStatus.RECEIVED))).thenReturn(3);
+
+        chatService.applyReceipt(receipt("DELIVERED"));
+
+        verify(chatRoomRepository, never()).decrementUnread(any(), any(), anyInt());
+    }
+
+    @Test
+    void applyReceipt_ShouldRejectReceivedStatus() {
+        assertThrows(IllegalArgumentException.class, () -> chatService.applyReceipt(receipt("RECEIVED")));
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    void queueMessage_ShouldHandOffToWriteBehind_WithoutTouchingRepositories() {
+        when(writeBehind.nextId()).thenReturn(900L);
+        when(lookupCache.displayName(3L)).thenReturn("Ana Agent");
+
+        ChatMessage message = ChatMessage.builder().chatRoomId("3_7").content("Hello")
+                .sender(User.builder().id(3L).build()).recipient(User.builder().id(7L).build()).build();
+        ChatMessageResponse response = chatService.queueMessage(message);
+
+        assertEquals(900L, response.getId());
+        assertEquals("Ana Agent", response.getSenderName());
+        ArgumentCaptor<ChatWriteBehind.PendingMessage> captor = ArgumentCaptor.forClass(ChatWriteBehind.PendingMessage.class);
+        verify(writeBehind).submit(captor.capture());
+        assertEquals(900L, captor.getValue().id());
+        assertEquals("Hello", captor.getValue().content());
+        verifyNoInteractions(chatMessageRepository, userRepository);
+    }
+
+    @Test
+    void sync_ShouldReturnOnePage_AndCursorForTheNextRoundTrip() {
+        when(userService.getAuthenticatedUserId()).thenReturn(7L);
+        List<MessageView> rows = List.of(row(41L), row(46L), mock(MessageView.class));
+        when(chatMessageRepository.findSince(7L, 40L, "{\"3_7\":45}", 3)).thenReturn(rows);
+
+        ChatSyncRequest request = new ChatSyncRequest();
+        request.setAfter(40L);
+        request.setRooms(Map.of("3_7", 45L));
+        request.setLimit(2);
+        ChatSyncResponse response = chatService.sync(request);
+
+        assertEquals(List.of(41L, 46L), response.getMessages().stream().map(ChatMessageResponse::getId).toList());
+        assertEquals(46L, response.getCursor());
+        assertTrue(response.isHasMore());
+    }
+
+    @Test
+    void sync_ShouldKeepCursor_WhenNothingWasMissed() {
+        when(userService.getAuthenticatedUserId()).thenReturn(7L);
+        when(chatMessageRepository.findSince(7L, 40L, "{}", ChatService.MAX_PAGE_SIZE + 1)).thenReturn(List.of());
+
+        ChatSyncRequest request = new ChatSyncRequest();
+        request.setAfter(40L);
+        ChatSyncResponse response = chatService.sync(request);
+
+        assertTrue(response.getMessages().isEmpty());
+        assertEquals(40L, response.getCursor());
+        assertFalse(response.isHasMore());
+    }
+
+    @Test
+    void searchMessages_ShouldSearchCallersConversations_AndExposeHighlightMarkers() {
+        SearchHit hit = mock(SearchHit.class);
+        when(hit.getId()).thenReturn(41L);
+        when(hit.getSenderFirstName()).thenReturn("Ana");
+        when(hit.getSenderLastName()).thenReturn("Agent");
+        when(hit.getSnippet()).thenReturn("12 \u0002Rue\u0003 de la Paix");
+        when(hit.getRank()).thenReturn(0.5);
+        when(userService.getAuthenticatedUserId()).thenReturn(7L);
+        when(chatMessageRepository.search(eq(7L), eq("rue paix"), anyString(), eq(PageRequest.of(0, 20))))
+                .thenReturn(new PageImpl<>(List.of(hit)));
+
+        ChatSearchResultResponse result = chatService.searchMessages("  rue paix ", 0, 20).getContent().get(0);
+
+        assertEquals("Ana Agent", result.getSenderName());
+        assertEquals(ChatService.HIGHLIGHT_START, result.getHighlightStart());
+        assertEquals(0.5, result.getRank());
+    }
+
+    @Test
+    void searchMessages_ShouldRejectBlankQuery() {
+        assertThrows(BadRequestException.class, () -> chatService.searchMessages("   ", 0, 20));
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    void getChatId_ShouldSkipDatabase_WhenRoomIsCached() {
+        when(lookupCache.isKnownRoom("3_7")).thenReturn(true);
+
+        assertEquals(Optional.of("3_7"), chatService.getChatId(7L, 3L, true));
+        verifyNoInteractions(chatRoomRepository, userRepository);
+    }
+
+    @Test
+    void getChatId_ShouldUpsertOneCanonicalRoom_OnFirstContact() {
+        when(chatRoomRepository.existsByChatId("3_7")).thenReturn(false);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+
+        assertEquals(Optional.of("3_7"), chatService.getChatId(7L, 3L, true));
+
+        // Lower id first, whichever side opened the chat
+        verify(chatRoomRepository).upsert("3_7", 3L, 7L);
+        verify(lookupCache).rememberRoom("3_7");
+    }
+
+    @Test
+    void getChatId_ShouldNotCreateRoom_WhenNotAsked() {
+        when(chatRoomRepository.existsByChatId("3_7")).thenReturn(false);
+
+        assertEquals(Optional.empty(), chatService.getChatId(3L, 7L, false));
+        verify(chatRoomRepository, never()).upsert(any(), any(), any());
+    }
+
+    private ChatReceiptRequest receipt(String status) {
+        ChatReceiptRequest receipt = new ChatReceiptRequest();
+        receipt.setReaderId(7L);
+        receipt.setSenderId(3L);
+        receipt.setUpToId(42L);
+        receipt.setStatus(status);
+        return receipt;
+    }
+
+    private MessageView row(long id) {
+        MessageView row = mock(MessageView.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getChatRoomId()).thenReturn("3_7");
+        when(row.getSenderId()).thenReturn(3L);
+        when(row.getSenderFirstName()).thenReturn("Ana");
+        when(row.getSenderLastName()).thenReturn("Agent");
+        when(row.getRecipientId()).thenReturn(7L);
+        when(row.getContent()).thenReturn("message " + id);
+        when(row.getTimestamp()).thenReturn(LocalDateTime.of(2026, 7, 1, 12, 0));
+        when(row.getStatus()).thenReturn(ChatMessage.MessageStatus.RECEIVED);
+        return row;
+    }
+}
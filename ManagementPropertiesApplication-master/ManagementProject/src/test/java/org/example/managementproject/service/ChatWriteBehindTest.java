@@ -0,0 +1,161 @@
+package org.example.managementproject.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.managementproject.service.ChatWriteBehind.PendingMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatWriteBehindTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path tempDir;
+
+    private ChatWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        writeBehind = new ChatWriteBehind(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writeBehind, "enabled", true);
+        ReflectionTestUtils.setField(writeBehind, "capacity", 1);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 500);
+        ReflectionTestUtils.setField(writeBehind, "flushInterval", Duration.ofMillis(5));
+        ReflectionTestUtils.setField(writeBehind, "offerTimeout", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(writeBehind, "idBlockSize", 2);
+        ReflectionTestUtils.setField(writeBehind, "spoolFile", tempDir.resolve("chat.spool"));
+        ReflectionTestUtils.setField(writeBehind, "deadLetterFile", tempDir.resolve("chat.dead"));
+        writeBehind.init();
+    }
+
+    @Test
+    void nextId_ShouldReserveIdsInBlocks() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(10L, 11L), List.of(12L, 13L));
+
+        assertEquals(List.of(10L, 11L, 12L),
+                List.of(writeBehind.nextId(), writeBehind.nextId(), writeBehind.nextId()));
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Long.class), eq(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_ShouldInsertOnCallerThread_WhenQueueIsFull() {
+        ReflectionTestUtils.setField(writeBehind, "running", true);   // accept submissions without a flusher
+
+        writeBehind.submit(message(1L));
+        writeBehind.submit(message(2L));
+
+        ArgumentCaptor<Collection<PendingMessage>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(ChatWriteBehind.INSERT_SQL), captor.capture(), eq(500),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of(message(2L)), List.copyOf(captor.getValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stop_ShouldSpoolUnwrittenMessages_AndStartShouldReplayThem() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("database is down"));
+        writeBehind.start();
+        writeBehind.submit(message(1L));
+        writeBehind.stop();
+
+        Path spool = tempDir.resolve("chat.spool");
+        assertTrue(Files.exists(spool));
+
+        reset(jdbcTemplate);
+        ReflectionTestUtils.setField(writeBehind, "enabled", false);
+        writeBehind.start();
+
+        ArgumentCaptor<Collection<PendingMessage>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(ChatWriteBehind.INSERT_SQL), captor.capture(), eq(500),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of(message(1L)), List.copyOf(captor.getValue()));
+        assertFalse(Files.exists(spool));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitTask_ShouldRunAfterMessagesQueuedBeforeIt() {
+        List<String> order = new CopyOnWriteArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(ChatWriteBehind.INSERT_SQL), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(inv -> {
+            order.add("insert " + ((Collection<?>) inv.getArgument(1)).size());
+            return new int[0][];
+        });
+        ReflectionTestUtils.setField(writeBehind, "capacity", 10);
+        writeBehind.init();
+        writeBehind.start();
+
+        writeBehind.submit(message(1L));
+        writeBehind.submit(message(2L));
+        writeBehind.submitTask(() -> order.add("receipt"));
+        writeBehind.stop();
+
+        assertEquals("receipt", order.get(order.size() - 1));
+        assertEquals(2, order.stream().filter(step -> step.startsWith("insert"))
+                .mapToInt(step -> Integer.parseInt(step.substring(7))).sum());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aRowTheDatabaseRejects_ShouldBeSetAside_WithoutHoldingUpTheRowsAfterIt() throws Exception {
+        List<Long> written = new CopyOnWriteArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(ChatWriteBehind.INSERT_SQL), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(inv -> {
+            Collection<PendingMessage> batch = inv.getArgument(1);
+            if (batch.contains(message(2L))) {
+                throw new DataIntegrityViolationException("violates foreign key constraint on sender_id");
+            }
+            batch.forEach(message -> written.add(message.id()));
+            return new int[0][];
+        });
+        ReflectionTestUtils.setField(writeBehind, "capacity", 10);
+        writeBehind.init();
+        writeBehind.start();
+
+        writeBehind.submit(message(1L));
+        writeBehind.submit(message(2L));
+        writeBehind.submit(message(3L));
+        writeBehind.stop();
+
+        assertEquals(List.of(1L, 3L), written);
+        List<String> deadLetters = Files.readAllLines(tempDir.resolve("chat.dead"));
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"id\":2"));
+        assertFalse(Files.exists(tempDir.resolve("chat.spool")), "nothing left to retry");
+    }
+
+    private PendingMessage message(long id) {
+        return new PendingMessage(id, "3_7", 3L, 7L, "message " + id,
+                LocalDateTime.of(2026, 7, 1, 12, 0), "RECEIVED");
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.managementproject.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.example.managementproject.model.EmailOutbox;
+import org.example.managementproject.model.EmailOutboxStatus;
+import org.example.managementproject.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+
+    private JavaMailSenderImpl mailSender;
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        dispatcher = new EmailDispatcher(
+                outboxRepository,
+                mailSender,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new SyncTaskExecutor(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "fromEmail", "noreply@propmanager.com");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "concurrency", 1);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffMillis", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMillis", 60000L);
+        dispatcher.init();
+    }
+
+    @Test
+    void poll_ShouldDeliverEveryBatchOverSmtp_AndReportThroughput() {
+        int total = 500;
+        List<EmailOutbox> all = IntStream.range(0, total).mapToObj(this::pendingEmail).toList();
+        List<List<EmailOutbox>> batches = new ArrayList<>();
+        for (int i = 0; i < total; i += 50) batches.add(all.subList(i, i + 50));
+
+        var stub = when(outboxRepository.lockNextBatch(any(LocalDateTime.class), anyInt()));
+        for (List<EmailOutbox> batch : batches) stub = stub.thenReturn(batch);
+        stub.thenReturn(List.of());
+
+        long start = System.nanoTime();
+        dispatcher.poll();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        assertEquals(total, greenMail.getReceivedMessages().length);
+        assertTrue(all.stream().allMatch(e -> e.getStatus() == EmailOutboxStatus.SENT));
+        System.out.printf("Outbox dispatcher delivered %d emails in %.2fs (%.0f msg/s)%n",
+                total, seconds, total / seconds);
+    }
+
+    @Test
+    void drainBatch_ShouldSendWithNoTransactionOpen_BetweenClaimAndRecord() {
+        List<String> steps = new ArrayList<>();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            steps.add("begin");
+            return null;
+        });
+        doAnswer(invocation -> steps.add("commit")).when(transactionManager).commit(any());
+        JavaMailSenderImpl recordingSender = new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mimeMessages) {
+                steps.add("send");
+                super.send(mimeMessages);
+            }
+        };
+        recordingSender.setHost("localhost");
+        recordingSender.setPort(ServerSetupTest.SMTP.getPort());
+        dispatcher = new EmailDispatcher(outboxRepository, recordingSender,
+                new TransactionTemplate(transactionManager), new SyncTaskExecutor(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "fromEmail", "noreply@propmanager.com");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "leaseMillis", 600000L);
+        dispatcher.init();
+
+        EmailOutbox email = pendingEmail(1);
+        when(outboxRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(email));
+        when(outboxRepository.saveAll(any())).thenAnswer(invocation -> {
+            steps.add("save " + email.getStatus());
+            return invocation.getArgument(0);
+        });
+        LocalDateTime before = LocalDateTime.now();
+
+        assertEquals(1, dispatcher.drainBatch());
+
+        assertEquals(List.of("begin", "save SENDING", "commit", "send", "begin", "save SENT", "commit"), steps);
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertTrue(email.getNextAttemptAt().isAfter(before.plusMinutes(9)), "claimed with a lease");
+    }
+
+    @Test
+    void sendBatch_ShouldRescheduleWithBackoff_WhenSmtpIsDown() {
+        mailSender.setPort(1); // nothing listens here
+        EmailOutbox email = pendingEmail(1);
+        email.setStatus(EmailOutboxStatus.SENDING);
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.sendBatch(List.of(email));
+
+        assertEquals(EmailOutboxStatus.PENDING, email.getStatus());
+        assertEquals(1, email.getAttempts());
+        assertTrue(email.getNextAttemptAt().isAfter(before.plusNanos(900_000_000)));
+        assertNotNull(email.getLastError());
+    }
+
+    @Test
+    void sendBatch_ShouldMarkFailed_WhenMaxAttemptsReached() {
+        mailSender.setPort(1);
+        EmailOutbox email = pendingEmail(1);
+        email.setAttempts(2);
+
+        dispatcher.sendBatch(List.of(email));
+
+        assertEquals(EmailOutboxStatus.FAILED, email.getStatus());
+        assertEquals(3, email.getAttempts());
+    }
+
+    private EmailOutbox pendingEmail(int i) {
+        return EmailOutbox.builder()
+                .id((long) i)
+                .recipient("guest" + i + "@example.com")
+                .subject("Booking Request Received #" + i)
+                .body("<p>Hello guest " + i + "</p>")
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
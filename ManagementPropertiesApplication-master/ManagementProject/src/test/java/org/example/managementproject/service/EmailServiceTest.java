@@ -0,0 +1,102 @@
+package org.example.managementproject.service;
+
+import org.example.managementproject.model.Booking;
+import org.example.managementproject.model.DigestItem;
+import org.example.managementproject.model.EmailOutbox;
+import org.example.managementproject.model.NotificationDelivery;
+import org.example.managementproject.model.Property;
+import org.example.managementproject.model.User;
+import org.example.managementproject.repository.DigestItemRepository;
+import org.example.managementproject.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailServiceTest {
+
+    @Mock private EmailOutboxRepository outboxRepository;
+    @Mock private DigestItemRepository digestItemRepository;
+    @Spy  private EmailTemplates templates = new EmailTemplates();
+
+    @InjectMocks
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@propmanager.com");
+        ReflectionTestUtils.setField(emailService, "adminDelivery", NotificationDelivery.IMMEDIATE);
+    }
+
+    @Test
+    void sendNewBookingToAgent_ShouldBufferDigestItem_WhenAgentPrefersDigest() {
+        Booking booking = booking(NotificationDelivery.DIGEST);
+
+        emailService.sendNewBookingToAgent(booking);
+
+        ArgumentCaptor<DigestItem> captor = ArgumentCaptor.forClass(DigestItem.class);
+        verify(digestItemRepository).save(captor.capture());
+        assertEquals("agent@example.com", captor.getValue().getRecipient());
+        assertTrue(captor.getValue().getSummary().contains("Sea View Villa"));
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    void sendNewBookingToAgent_ShouldQueueEmail_WhenAgentPrefersImmediate() {
+        emailService.sendNewBookingToAgent(booking(NotificationDelivery.IMMEDIATE));
+
+        verify(outboxRepository).save(any(EmailOutbox.class));
+        verify(digestItemRepository, never()).save(any());
+    }
+
+    @Test
+    void sendPasswordResetEmail_ShouldBypassDigest_AndJumpTheQueue() {
+        emailService.sendPasswordResetEmail("guest@example.com", "Guest", "http://localhost:3000/reset-password?token=x");
+
+        ArgumentCaptor<EmailOutbox> captor = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(outboxRepository).save(captor.capture());
+        assertEquals(EmailService.PRIORITY_URGENT, captor.getValue().getPriority());
+        verify(digestItemRepository, never()).save(any());
+    }
+
+    @Test
+    void sendDigest_ShouldQueueOneSummaryEmail_ForAllItems() {
+        List<DigestItem> items = List.of(
+                DigestItem.builder().recipient("agent@example.com").recipientName("Ana")
+                        .category("New booking requests").summary("Guest One requested <Villa>").build(),
+                DigestItem.builder().recipient("agent@example.com").recipientName("Ana")
+                        .category("New booking requests").summary("Guest Two requested Loft").build());
+
+        emailService.sendDigest("agent@example.com", "Ana", items);
+
+        ArgumentCaptor<EmailOutbox> captor = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(outboxRepository, times(1)).save(captor.capture());
+        String body = captor.getValue().getBody();
+        assertTrue(body.contains("New booking requests (2)"));
+        assertTrue(body.contains("&lt;Villa&gt;"));
+    }
+
+    private Booking booking(NotificationDelivery agentDelivery) {
+        User agent = User.builder().firstName("Ana").lastName("Agent").email("agent@example.com")
+                .notificationDelivery(agentDelivery).build();
+        User guest = User.builder().firstName("Gus").lastName("Guest").email("guest@example.com").build();
+        Property property = Property.builder().title("Sea View Villa").city("Split").country("Croatia")
+                .agent(agent).build();
+        return Booking.builder().property(property).user(guest)
+                .checkInDate(LocalDate.of(2026, 7, 1)).checkOutDate(LocalDate.of(2026, 7, 4))
+                .guests(2).totalPrice(450.0).build();
+    }
+}
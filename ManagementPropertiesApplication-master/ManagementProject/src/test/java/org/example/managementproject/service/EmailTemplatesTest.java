@@ -0,0 +1,88 @@
+package org.example.managementproject.service;
+
+import org.example.managementproject.model.Booking;
+import org.example.managementproject.model.DigestItem;
+import org.example.managementproject.model.Property;
+import org.example.managementproject.model.User;
+import org.example.managementproject.service.EmailTemplates.RenderedEmail;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplatesTest {
+
+    private final EmailTemplates templates = new EmailTemplates();
+
+    @Test
+    void everyNotificationType_ShouldRenderThroughTheSharedLayout() {
+        Booking booking = booking("Late arrival");
+        Property property = booking.getProperty();
+
+        List<RenderedEmail> emails = List.of(
+                templates.bookingCreated(booking),
+                templates.bookingConfirmed(booking),
+                templates.bookingCancelled(booking),
+                templates.bookingRejected(booking),
+                templates.newBookingToAgent(booking),
+                templates.propertyApproved(property),
+                templates.propertyPending(property),
+                templates.propertyRejected(property),
+                templates.passwordReset("Gus", "http://localhost:3000/reset-password?token=abc"),
+                templates.digest("Ana", List.of(digestItem("Gus requested Sea View Villa"))));
+
+        for (RenderedEmail email : emails) {
+            assertTrue(email.body().startsWith("<div style=\"font-family: Arial, sans-serif;"), email.subject());
+            assertTrue(email.body().strip().endsWith("</div>"), email.subject());
+            assertFalse(email.body().contains("{{"), email.subject());
+        }
+    }
+
+    @Test
+    void bookingCreated_ShouldBindBookingDetails() {
+        RenderedEmail email = templates.bookingCreated(booking(null));
+
+        assertEquals("Booking Request Received – Sea View Villa", email.subject());
+        assertTrue(email.body().contains("Hi <strong>Gus</strong>,"));
+        assertTrue(email.body().contains("<strong style=\"color: #374151;\">Location:</strong> Split, Croatia"));
+        assertTrue(email.body().contains("<strong style=\"color: #374151;\">Total Price:</strong> $450.00"));
+    }
+
+    @Test
+    void newBookingToAgent_ShouldEscapeGuestInput_AndOmitEmptySpecialRequests() {
+        RenderedEmail withRequest = templates.newBookingToAgent(booking("<script>alert(1)</script>"));
+        RenderedEmail withoutRequest = templates.newBookingToAgent(booking(null));
+
+        assertTrue(withRequest.body().contains("&lt;script&gt;alert(1)&lt;/script&gt;"));
+        assertFalse(withRequest.body().contains("<script>"));
+        assertFalse(withoutRequest.body().contains("Special Requests"));
+    }
+
+    @Test
+    void digest_ShouldGroupItemsByCategory() {
+        RenderedEmail email = templates.digest("Ana", List.of(
+                digestItem("Gus requested Sea View Villa"),
+                digestItem("Mia requested Old Town Loft")));
+
+        assertEquals("📬 Your PropManager digest – 2 updates", email.subject());
+        assertTrue(email.body().contains("New booking requests (2)"));
+        assertTrue(email.body().contains("Mia requested Old Town Loft"));
+    }
+
+    private Booking booking(String specialRequests) {
+        User agent = User.builder().firstName("Ana").lastName("Agent").email("agent@example.com").build();
+        User guest = User.builder().firstName("Gus").lastName("Guest").email("guest@example.com").build();
+        Property property = Property.builder().title("Sea View Villa").city("Split").country("Croatia")
+                .pricePerNight(150.0).agent(agent).build();
+        return Booking.builder().property(property).user(guest)
+                .checkInDate(LocalDate.of(2026, 7, 1)).checkOutDate(LocalDate.of(2026, 7, 4))
+                .guests(2).totalPrice(450.0).specialRequests(specialRequests).build();
+    }
+
+    private DigestItem digestItem(String summary) {
+        return DigestItem.builder().recipient("agent@example.com").recipientName("Ana")
+                .category("New booking requests").summary(summary).build();
+    }
+}
@@ -0,0 +1,178 @@
+package org.example.managementproject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.managementproject.config.AsyncConfig;
+import org.example.managementproject.config.AsyncProperties;
+import org.example.managementproject.model.PropertyImage;
+import org.example.managementproject.repository.PropertyImageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceTest {
+
+    @Mock
+    private PropertyImageRepository propertyImageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path uploadDir;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private FileStorageService fileStorageService;
+    private ThreadPoolTaskExecutor imageExecutor;
+    private ImageVariantService service;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        service = service(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (imageExecutor != null) imageExecutor.shutdown();
+    }
+
+    @Test
+    void generate_ShouldWriteEachSize_AndRecordTheirUrls() throws Exception {
+        ImageIO.write(new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB), "jpg",
+                uploadDir.resolve("photo.jpg").toFile());
+        when(propertyImageRepository.findById(5L))
+                .thenReturn(Optional.of(PropertyImage.builder().id(5L).imageUrl("/uploads/photo.jpg").build()));
+        when(propertyImageRepository.updateVariants(eq(5L), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+        service.generate(5L);
+
+        verify(propertyImageRepository).updateVariants(eq(5L),
+                eq("/uploads/photo-thumb.jpg"), eq("/uploads/photo-card.jpg"), eq("/uploads/photo-full.jpg"),
+                isNull(), isNull(), isNull());   // no WebP writer in the JDK
+        assertEquals(320, ImageIO.read(uploadDir.resolve("photo-thumb.jpg").toFile()).getWidth());
+        assertEquals(600, ImageIO.read(uploadDir.resolve("photo-card.jpg").toFile()).getHeight());
+        assertEquals(1920, ImageIO.read(uploadDir.resolve("photo-full.jpg").toFile()).getWidth());
+    }
+
+    @Test
+    void generate_ShouldFallBackToTheOriginal_WhenItCannotBeDecoded() throws Exception {
+        Files.writeString(uploadDir.resolve("scan.heic"), "not an image ImageIO can read");
+        when(propertyImageRepository.findById(6L))
+                .thenReturn(Optional.of(PropertyImage.builder().id(6L).imageUrl("/uploads/scan.heic").build()));
+        when(propertyImageRepository.updateVariants(eq(6L), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+        service.generate(6L);
+
+        verify(propertyImageRepository).updateVariants(6L,
+                "/uploads/scan.heic", "/uploads/scan.heic", "/uploads/scan.heic", null, null, null);
+    }
+
+    @Test
+    void generate_ShouldDeleteItsFiles_WhenTheImageWasDeletedMeanwhile() throws Exception {
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "png",
+                uploadDir.resolve("gone.png").toFile());
+        when(propertyImageRepository.findById(7L))
+                .thenReturn(Optional.of(PropertyImage.builder().id(7L).imageUrl("/uploads/gone.png").build()));
+        when(propertyImageRepository.updateVariants(eq(7L), any(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        service.generate(7L);
+
+        assertFalse(Files.exists(uploadDir.resolve("gone-card.jpg")));
+        assertFalse(Files.exists(uploadDir.resolve("gone-thumb.jpg")));
+    }
+
+    @Test
+    void orient_ShouldTurnSidewaysCameraImagesUpright() {
+        byte[] app1 = {'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,             // big-endian TIFF header, IFD0 at offset 8
+                0, 1,                                    // one entry
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0, // orientation (SHORT) = 6
+                0, 0, 0, 0};
+        assertEquals(6, ImageVariantService.exifOrientation(app1));
+
+        BufferedImage landscape = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        landscape.setRGB(0, 0, 0xFF0000);                       // top-left of the sensor
+        BufferedImage upright = ImageVariantService.orient(landscape, 6);
+        assertEquals(300, upright.getWidth());
+        assertEquals(400, upright.getHeight());
+        assertEquals(0xFF0000, upright.getRGB(299, 0) & 0xFFFFFF, "rotated 90° clockwise");
+    }
+
+    @Test
+    void uploads_ShouldLeaveImagesToTheBackfill_WhenTheExecutorIsFull() throws Exception {
+        AsyncProperties properties = new AsyncProperties();
+        properties.getImage().setCoreSize(1);
+        properties.getImage().setMaxSize(1);
+        properties.getImage().setQueueCapacity(2);
+        imageExecutor = new AsyncConfig(properties, new SimpleMeterRegistry()).imageExecutor();
+        imageExecutor.initialize();
+        service = service(imageExecutor);
+        imageExecutor.execute(this::block);   // occupies the only worker
+        imageExecutor.execute(this::block);   // fills the queue
+        imageExecutor.execute(this::block);
+
+        service.onImagesUploaded(new PropertyImagesUploadedEvent(List.of(9L)));
+
+        verify(propertyImageRepository, never()).findById(9L);   // nothing rendered on the uploading thread
+
+        release.countDown();
+        while (!imageExecutor.getThreadPoolExecutor().getQueue().isEmpty()) Thread.sleep(10);
+        when(propertyImageRepository.findIdsWithoutVariants(any())).thenReturn(List.of(9L));
+        service.backfill();
+        verify(propertyImageRepository, timeout(5000)).findById(9L);
+    }
+
+    @Test
+    void generate_ShouldRecordVariantsInANewTransaction() throws Exception {
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png",
+                uploadDir.resolve("tx.png").toFile());
+        when(propertyImageRepository.findById(8L))
+                .thenReturn(Optional.of(PropertyImage.builder().id(8L).imageUrl("/uploads/tx.png").build()));
+
+        service.generate(8L);
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+    }
+
+    private ImageVariantService service(ThreadPoolTaskExecutor executor) {
+        return new ImageVariantService(propertyImageRepository, fileStorageService, executor, transactionManager,
+                new SimpleMeterRegistry(), 0.8f, 0.75f, 20);
+    }
+
+    private void block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.managementproject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.managementproject.dto.response.PresenceUpdateResponse;
+import org.example.managementproject.repository.ChatRoomRepository;
+import org.example.managementproject.repository.ChatRoomRepository.CounterpartRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceRegistryTest {
+
+    @Mock
+    private ChatRoomRepository chatRoomRepository;
+
+    @Mock
+    private UserMessageRelay messageRelay;
+
+    private PresenceRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        // Three one-second ticks of silence and a session is gone
+        registry = new PresenceRegistry(chatRoomRepository, messageRelay, new LocalPresenceDirectory(),
+                new SimpleMeterRegistry(), 1000, Duration.ofSeconds(3));
+    }
+
+    @Test
+    void tick_ShouldPushOneBatchedDelta_ToOnlineCounterpartsOnly() {
+        List<CounterpartRow> rows = List.of(row(3L, 7L), row(4L, 7L), row(3L, 9L));
+        when(chatRoomRepository.findCounterparts(anyCollection())).thenReturn(rows);
+        registry.connected("a", 3L);
+        registry.connected("b", 4L);
+        registry.connected("c", 7L);
+
+        registry.tick();
+
+        // 7 is online and hears about 3 and 4 in one frame; 9 is offline and gets nothing
+        verify(messageRelay).convertAndSendToUser(eq("7"), eq(PresenceRegistry.DESTINATION),
+                argThat((PresenceUpdateResponse delta) -> delta.getOnline().containsAll(List.of(3L, 4L))
+                        && delta.getOffline().isEmpty()));
+        verify(messageRelay, never()).convertAndSendToUser(eq("9"), any(), any());
+    }
+
+    @Test
+    void tick_ShouldExpireSilentSessions_AndKeepTouchedOnes() {
+        registry.connected("silent", 3L);
+        registry.connected("chatty", 5L);
+
+        for (int i = 0; i < 5; i++) {
+            registry.touch("chatty");
+            registry.tick();
+        }
+
+        assertFalse(registry.isOnlineHere(3L));
+        assertTrue(registry.isOnlineHere(5L));
+    }
+
+    @Test
+    void disconnected_ShouldKeepUserOnline_WhileAnotherSessionRemains() {
+        registry.connected("laptop", 3L);
+        registry.connected("phone", 3L);
+
+        registry.disconnected("laptop");
+        assertTrue(registry.isOnlineHere(3L));
+
+        registry.disconnected("phone");
+        assertFalse(registry.isOnlineHere(3L));
+    }
+
+    private CounterpartRow row(long userId, long counterpartId) {
+        CounterpartRow row = mock(CounterpartRow.class);
+        when(row.getUserId()).thenReturn(userId);
+        when(row.getCounterpartId()).thenReturn(counterpartId);
+        return row;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.managementproject.service;
+
+import org.example.managementproject.model.RefreshToken;
+import org.example.managementproject.model.User;
+import org.example.managementproject.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.CredentialsExpiredException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+    private final User user = User.builder().id(7L).email("guest@example.com").active(true).build();
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, null, Duration.ofDays(14), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void rotate_ShouldReplaceTheTokenWithinItsFamily_StoringOnlyHashes() {
+        RefreshToken current = token("family-1", null);
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("old"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.markUsed(eq(1L), any())).thenReturn(1);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("old");
+
+        ArgumentCaptor<RefreshToken> stored = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(stored.capture());
+        assertSame(user, rotation.user());
+        assertNotEquals("old", rotation.refreshToken());
+        assertEquals("family-1", stored.getValue().getFamilyId());
+        assertEquals(RefreshTokenService.hash(rotation.refreshToken()), stored.getValue().getTokenHash());
+        verify(refreshTokenRepository, never()).deleteFamily(any());
+    }
+
+    @Test
+    void rotate_ShouldRevokeTheWholeFamily_WhenAUsedTokenIsReplayed() {
+        RefreshToken replayed = token("family-1", LocalDateTime.now().minusMinutes(5));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("stolen"))).thenReturn(Optional.of(replayed));
+        when(refreshTokenRepository.markUsed(eq(1L), any())).thenReturn(0);
+
+        assertThrows(CredentialsExpiredException.class, () -> refreshTokenService.rotate("stolen"));
+
+        verify(refreshTokenRepository).deleteFamily("family-1");
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_ShouldOnlyRefuse_WhenAConcurrentRefreshWonWithinTheGracePeriod() {
+        RefreshToken justRotated = token("family-1", LocalDateTime.now().minusSeconds(1));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("raced"))).thenReturn(Optional.of(justRotated));
+        when(refreshTokenRepository.markUsed(eq(1L), any())).thenReturn(0);
+
+        assertThrows(CredentialsExpiredException.class, () -> refreshTokenService.rotate("raced"));
+
+        verify(refreshTokenRepository, never()).deleteFamily(any());
+    }
+
+    private RefreshToken token(String familyId, LocalDateTime usedAt) {
+        return RefreshToken.builder()
+                .id(1L)
+                .familyId(familyId)
+                .user(user)
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .usedAt(usedAt)
+                .build();
+    }
+}
@@ -4,14 +4,17 @@ import org.example.managementproject.model.Role;
 import org.example.managementproject.model.User;
 import org.example.managementproject.model.exception.ResourceNotFoundException;
 import org.example.managementproject.repository.UserRepository;
+import org.example.managementproject.security.TokenRevocationList;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -21,6 +24,15 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TokenRevocationList revocationList;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
     @InjectMocks
     private UserService userService;
 
@@ -35,6 +47,8 @@ class UserServiceTest {
         userService.deleteUser(userId);
 
         verify(userRepository, times(1)).delete(user);
+        verify(revocationList).revokeUser(userId, Integer.MAX_VALUE);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(userId));
     }
 
     @Test
@@ -45,4 +59,20 @@ class UserServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(userId));
         verify(userRepository, never()).delete(any());
     }
+
+    @Test
+    void setActive_ShouldRevokeTokensAndSessions_AndPublishUserChangedEvent() {
+        User user = new User();
+        user.setId(1L);
+        user.setActive(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+
+        userService.setActive(1L, false);
+
+        assertFalse(user.isActive());
+        verify(revocationList).revokeAccessTokens(user);
+        verify(refreshTokenService).revokeAll(1L);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
+    }
 }